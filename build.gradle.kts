@@ -103,3 +103,9 @@ dependencies {
   // Property-based testing framework. More details - https://github.com/quicktheories/QuickTheories
   testImplementation("org.quicktheories:quicktheories:0.26")
 }
+
+// Benchmark results are written in JSON, so runs can be compared with each other to spot regressions.
+jmh {
+  resultFormat = "JSON"
+  resultsFile = file("$buildDir/reports/jmh/results.json")
+}
@@ -0,0 +1,44 @@
+package edu.kpi.testcourse;
+
+import edu.kpi.testcourse.logic.HashUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Password hashing and validation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class HashUtilsBenchmark {
+  private HashUtils hashUtils;
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    hashUtils = new HashUtils();
+    hash = hashUtils.generateHash("password");
+  }
+
+  @Benchmark
+  public String generateHash() {
+    return hashUtils.generateHash("password");
+  }
+
+  @Benchmark
+  public boolean validatePassword() {
+    return hashUtils.validatePassword("password", hash);
+  }
+}
@@ -0,0 +1,63 @@
+package edu.kpi.testcourse;
+
+import com.google.gson.reflect.TypeToken;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.serialization.JsonTool;
+import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON round-trips of a single URL alias and of a repository snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class JsonToolBenchmark {
+  private static final Type SNAPSHOT_TYPE = new TypeToken<HashMap<String, UrlAlias>>(){}.getType();
+
+  @Param({"1000", "100000"})
+  public int snapshotSize;
+
+  private final JsonTool json = new JsonToolJacksonImpl();
+  private final UrlAlias urlAlias = Repositories.urlAlias(42);
+  private Map<String, UrlAlias> snapshot;
+
+  /**
+   * Creates a snapshot of the given size.
+   */
+  @Setup
+  public void setUp() {
+    snapshot = new HashMap<>();
+    for (int i = 0; i < snapshotSize; i++) {
+      UrlAlias alias = Repositories.urlAlias(i);
+      snapshot.put(alias.alias(), alias);
+    }
+  }
+
+  @Benchmark
+  public UrlAlias roundTripUrlAlias() {
+    return json.fromJson(json.toJson(urlAlias), UrlAlias.class);
+  }
+
+  @Benchmark
+  public Map<String, UrlAlias> roundTripSnapshot() {
+    return json.fromJson(json.toJson(snapshot), SNAPSHOT_TYPE);
+  }
+}
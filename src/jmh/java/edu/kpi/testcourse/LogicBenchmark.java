@@ -0,0 +1,77 @@
+package edu.kpi.testcourse;
+
+import edu.kpi.testcourse.logic.Logic;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import edu.kpi.testcourse.storage.UrlRepository;
+import edu.kpi.testcourse.storage.UserRepositoryFakeImpl;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Redirect lookups and alias creation through {@link Logic} against every repository
+ * implementation and different repository sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xmx8g"})
+public class LogicBenchmark {
+
+  @Param({"fake", "file", "mapped"})
+  public String repository;
+
+  @Param({"1000", "100000", "10000000"})
+  public int aliases;
+
+  private UrlShortenerConfig config;
+  private UrlRepository urls;
+  private Logic logic;
+
+  /**
+   * Creates the repository and fills it with aliases.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    // Created aliases are not forced to the disk, so the lookup structures are measured.
+    config = Repositories.temporaryConfig(FsyncPolicy.OS);
+    urls = Repositories.create(repository, config);
+    Repositories.fill(urls, aliases);
+    logic = new Logic(new UserRepositoryFakeImpl(), urls);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Repositories.dispose(urls, config);
+  }
+
+  @Benchmark
+  public String findFullUrl() {
+    return logic.findFullUrl("alias" + ThreadLocalRandom.current().nextInt(aliases));
+  }
+
+  @Benchmark
+  public String findFullUrl_unknownAlias() {
+    return logic.findFullUrl("unknown" + ThreadLocalRandom.current().nextInt(aliases));
+  }
+
+  @Benchmark
+  public String createNewAlias() {
+    return logic.createNewAlias("user@example.org", "https://example.org/some/long/path", null);
+  }
+}
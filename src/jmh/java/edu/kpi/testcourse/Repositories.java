@@ -0,0 +1,93 @@
+package edu.kpi.testcourse;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import edu.kpi.testcourse.storage.UrlRepository;
+import edu.kpi.testcourse.storage.UrlRepositoryFakeImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryFileImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryMappedImpl;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Creates and fills repositories for benchmarks.
+ */
+final class Repositories {
+  private static final int FILL_BATCH_SIZE = 10_000;
+
+  private Repositories() {
+  }
+
+  /**
+   * Creates a configuration in a fresh temporary directory with an empty snapshot.
+   */
+  static UrlShortenerConfig temporaryConfig(FsyncPolicy fsyncPolicy) {
+    try {
+      Path root = Files.createTempDirectory("url-shortener-benchmark");
+      Files.writeString(root.resolve("url-repository.json"), "{}");
+      Files.writeString(root.resolve("user-repository.json"), "{}");
+      // Compaction is benchmarked by itself, it would only add noise here.
+      return UrlShortenerConfig.builder(root)
+        .logCompactionThreshold(Integer.MAX_VALUE)
+        .fsyncPolicy(fsyncPolicy)
+        .fsyncIntervalMillis(1000)
+        .build();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates a repository of the given kind: <tt>fake</tt>, <tt>file</tt> or <tt>mapped</tt>.
+   */
+  static UrlRepository create(String kind, UrlShortenerConfig config) {
+    return switch (kind) {
+      case "fake" -> new UrlRepositoryFakeImpl();
+      case "file" -> new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), config);
+      case "mapped" -> new UrlRepositoryMappedImpl(config);
+      default -> throw new IllegalArgumentException("Unknown repository: " + kind);
+    };
+  }
+
+  /**
+   * Fills the repository with aliases <tt>alias0</tt>, <tt>alias1</tt> and so on.
+   */
+  static void fill(UrlRepository repository, int count) {
+    List<UrlAlias> batch = new ArrayList<>(FILL_BATCH_SIZE);
+    for (int i = 0; i < count; i++) {
+      batch.add(urlAlias(i));
+      if (batch.size() == FILL_BATCH_SIZE || i == count - 1) {
+        repository.createUrlAliases(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  static UrlAlias urlAlias(int number) {
+    return new UrlAlias("alias" + number,
+      "https://example.org/some/long/path?id=" + number,
+      "user" + (number % 1000) + "@example.org");
+  }
+
+  /**
+   * Closes the repository if it holds any resources and deletes its files.
+   */
+  static void dispose(UrlRepository repository, UrlShortenerConfig config) throws Exception {
+    if (repository instanceof AutoCloseable) {
+      ((AutoCloseable) repository).close();
+    }
+    try (Stream<Path> files = Files.walk(config.storageRoot())) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+}
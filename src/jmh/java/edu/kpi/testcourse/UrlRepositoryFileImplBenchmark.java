@@ -0,0 +1,96 @@
+package edu.kpi.testcourse;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import edu.kpi.testcourse.storage.UrlRepository;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent reads and writes on {@link edu.kpi.testcourse.storage.UrlRepositoryFileImpl}: a
+ * read-mostly mix (redirects) and a write-heavy mix (bulk shortening), for every fsync policy.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class UrlRepositoryFileImplBenchmark {
+  private static final int ALIASES = 100_000;
+
+  @Param({"ALWAYS", "INTERVAL", "OS"})
+  public FsyncPolicy fsyncPolicy;
+
+  private UrlShortenerConfig config;
+  private UrlRepository urls;
+
+  /**
+   * Creates the repository and fills it with aliases.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    config = Repositories.temporaryConfig(fsyncPolicy);
+    urls = Repositories.create("file", config);
+    Repositories.fill(urls, ALIASES);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Repositories.dispose(urls, config);
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(7)
+  public UrlAlias readMostly_find() {
+    return find();
+  }
+
+  @Benchmark
+  @Group("readMostly")
+  @GroupThreads(1)
+  public void readMostly_create() {
+    create();
+  }
+
+  @Benchmark
+  @Group("writeHeavy")
+  @GroupThreads(2)
+  public UrlAlias writeHeavy_find() {
+    return find();
+  }
+
+  @Benchmark
+  @Group("writeHeavy")
+  @GroupThreads(6)
+  public void writeHeavy_create() {
+    create();
+  }
+
+  private UrlAlias find() {
+    return urls.findUrlAlias("alias" + ThreadLocalRandom.current().nextInt(ALIASES));
+  }
+
+  private void create() {
+    urls.createUrlAlias(
+        new UrlAlias(UUID.randomUUID().toString(), "https://example.org", "user@example.org"));
+  }
+}
@@ -1,16 +1,52 @@
 package edu.kpi.testcourse;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.kpi.testcourse.analytics.ClickAnalytics;
+import edu.kpi.testcourse.logic.AliasGenerator;
+import edu.kpi.testcourse.logic.FileBlockSource;
 import edu.kpi.testcourse.logic.Logic;
 import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.RepositoryBackend;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.serialization.JsonTool;
 import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import edu.kpi.testcourse.storage.BloomFilteredUrlRepository;
+import edu.kpi.testcourse.storage.CachingUrlRepository;
+import edu.kpi.testcourse.storage.ChangeCapturingUrlRepository;
+import edu.kpi.testcourse.storage.ChangeFeed;
+import edu.kpi.testcourse.storage.ClickStatsRepository;
+import edu.kpi.testcourse.storage.ClickStatsRepositoryFakeImpl;
+import edu.kpi.testcourse.storage.ClickStatsRepositoryFileImpl;
+import edu.kpi.testcourse.storage.ClusteredUrlRepository;
+import edu.kpi.testcourse.storage.HttpChangeSource;
+import edu.kpi.testcourse.storage.PeerUrlRepository;
 import edu.kpi.testcourse.storage.UrlRepository;
-import edu.kpi.testcourse.storage.UrlRepositoryFakeImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryFileImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryFollowerImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryInMemoryImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryMappedImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryPartitionedImpl;
 import edu.kpi.testcourse.storage.UserRepository;
-import edu.kpi.testcourse.storage.UserRepositoryFakeImpl;
+import edu.kpi.testcourse.storage.UserRepositoryFileImpl;
+import edu.kpi.testcourse.storage.UserRepositoryInMemoryImpl;
+import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
-import java.nio.file.Paths;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Value;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 /**
@@ -18,21 +54,232 @@ import javax.inject.Singleton;
  */
 @Factory
 public class BeanFactory {
-  private final String baseUrl = "http://localhost:8080";
+  /**
+   * Name of the bounded executor for password hashing, which is too slow for the event loop.
+   */
+  public static final String PASSWORD_HASHING_EXECUTOR = "password-hashing";
+  /**
+   * Name of the bounded executor for blocking repository I/O, which must not run on the event loop.
+   */
+  public static final String REPOSITORY_IO_EXECUTOR = "repository-io";
+  /**
+   * Name of the URL repository with the aliases stored by this instance. It differs from the
+   * primary one only in a cluster, where the primary one forwards aliases of other members.
+   */
+  public static final String LOCAL_URL_REPOSITORY = "local";
 
+  /**
+   * Creates the URL repository used by the application. In a cluster (a non-empty
+   * <tt>url-shortener.cluster.members</tt> list) it routes every alias to the member that owns it,
+   * otherwise it is the repository of this instance.
+   */
   @Singleton
-  UrlRepository createUrlRepository() {
-    return new UrlRepositoryFakeImpl();
+  @Primary
+  UrlRepository createUrlRepository(
+      @Named(LOCAL_URL_REPOSITORY) UrlRepository local,
+      UrlShortenerConfig config,
+      JsonTool jsonTool,
+      @Value("${url-shortener.cluster.self:}") String self,
+      @Value("${url-shortener.cluster.members:}") String members,
+      @Value("${url-shortener.cluster.token:}") String clusterToken
+  ) {
+    List<String> memberUrls = clusterMembers(members);
+    if (memberUrls.isEmpty()) {
+      return local;
+    }
+    if (config.repositoryBackend() == RepositoryBackend.FOLLOWER) {
+      throw new IllegalStateException("A follower can't be a member of a cluster");
+    }
+    if (!memberUrls.contains(self)) {
+      throw new IllegalStateException(
+          "url-shortener.cluster.self must be one of url-shortener.cluster.members");
+    }
+    if (clusterToken.isEmpty()) {
+      throw new IllegalStateException("url-shortener.cluster.token is not set");
+    }
+    Map<String, UrlRepository> repositories = new LinkedHashMap<>();
+    for (String member : memberUrls) {
+      repositories.put(member, member.equals(self)
+          ? local
+          : new PeerUrlRepository(member, clusterToken, jsonTool));
+    }
+    return new ClusteredUrlRepository(self, repositories);
   }
 
+  /**
+   * Creates the URL repository of the configured backend. Changes are recorded in the change feed
+   * for followers. A follower itself is not decorated: changes of the leader bypass the
+   * decorators, and its lookups never leave memory anyway.
+   */
   @Singleton
-  UserRepository createUserRepository() {
-    return new UserRepositoryFakeImpl();
+  @Named(LOCAL_URL_REPOSITORY)
+  UrlRepository createLocalUrlRepository(
+      UrlShortenerConfig config,
+      JsonTool jsonTool,
+      ChangeFeed feed,
+      MetricsRegistry metrics,
+      @Value("${url-shortener.replication.leader-url:}") String leaderUrl,
+      @Value("${url-shortener.replication.token:}") String replicationToken
+  ) {
+    if (config.repositoryBackend() == RepositoryBackend.FOLLOWER) {
+      if (leaderUrl.isEmpty()) {
+        throw new IllegalStateException("url-shortener.replication.leader-url is not set");
+      }
+      UrlRepositoryFollowerImpl follower = new UrlRepositoryFollowerImpl(
+          new HttpChangeSource(leaderUrl, replicationToken, jsonTool));
+      metrics.gauge("url_repository_aliases", "Number of URL aliases", follower::size);
+      metrics.gauge("replication_sequence", "Latest change of the leader applied here",
+          follower::sequence);
+      return follower;
+    }
+
+    UrlRepository storage = new ChangeCapturingUrlRepository(createStorage(config, jsonTool), feed);
+    CachingUrlRepository cache = new CachingUrlRepository(storage,
+        config.cacheMaximumEntries(), config.cacheMaximumBytes());
+    BloomFilteredUrlRepository filtered =
+        new BloomFilteredUrlRepository(cache, config.unknownAliasFalsePositiveRate());
+
+    metrics.gauge("url_repository_aliases", "Number of URL aliases", filtered::size);
+    metrics.counter("url_cache_hits_total", "Lookups served from the alias cache",
+        () -> cache.stats().hits());
+    metrics.counter("url_cache_misses_total", "Lookups that missed the alias cache",
+        () -> cache.stats().misses());
+    metrics.counter("url_cache_evictions_total", "Aliases evicted from the alias cache",
+        () -> cache.stats().evictions());
+    metrics.gauge("url_cache_entries", "Aliases in the alias cache",
+        () -> cache.stats().entries());
+    metrics.gauge("url_cache_bytes", "Approximate size of the alias cache",
+        () -> cache.stats().bytes());
+    metrics.counter("unknown_alias_filter_rejections_total",
+        "Lookups rejected by the Bloom filter", () -> filtered.stats().rejections());
+    metrics.counter("unknown_alias_filter_false_positives_total",
+        "Lookups of unknown aliases that passed the Bloom filter",
+        () -> filtered.stats().falsePositives());
+    return filtered;
+  }
+
+  private static UrlRepository createStorage(UrlShortenerConfig config, JsonTool jsonTool) {
+    return switch (config.repositoryBackend()) {
+      case MEMORY -> new UrlRepositoryInMemoryImpl();
+      case FILE -> new UrlRepositoryFileImpl(jsonTool, config);
+      case PARTITIONED -> new UrlRepositoryPartitionedImpl(jsonTool, config);
+      case MAPPED -> new UrlRepositoryMappedImpl(config);
+      case FOLLOWER -> throw new IllegalArgumentException("A follower has no storage of its own");
+    };
+  }
+
+  @Singleton
+  ChangeFeed createChangeFeed(UrlShortenerConfig config, MetricsRegistry metrics) {
+    ChangeFeed feed = new ChangeFeed(config.changeFeedCapacity());
+    metrics.gauge("change_feed_sequence", "Latest change of URL aliases", feed::lastSequence);
+    return feed;
+  }
+
+  @Singleton
+  UserRepository createUserRepository(
+      UrlShortenerConfig config, JsonTool jsonTool, MetricsRegistry metrics
+  ) {
+    UserRepository users = keepsFiles(config.repositoryBackend())
+        ? new UserRepositoryFileImpl(jsonTool, config)
+        : new UserRepositoryInMemoryImpl();
+    metrics.gauge("user_repository_users", "Number of users", users::size);
+    return users;
+  }
+
+  @Singleton
+  ClickStatsRepository createClickStatsRepository(UrlShortenerConfig config, JsonTool jsonTool) {
+    return keepsFiles(config.repositoryBackend())
+        ? new ClickStatsRepositoryFileImpl(jsonTool, config)
+        : new ClickStatsRepositoryFakeImpl();
+  }
+
+  /**
+   * Creates the click counter. Clicks counted since the last periodic flush are flushed on
+   * shutdown.
+   */
+  @Singleton
+  @Bean(preDestroy = "close")
+  ClickAnalytics createClickAnalytics(ClickStatsRepository repository, UrlShortenerConfig config) {
+    return new ClickAnalytics(repository, config);
   }
 
   @Singleton
-  Logic createLogic(UserRepository users, UrlRepository urls) {
-    return new Logic(users, urls);
+  MetricsRegistry createMetricsRegistry() {
+    return MetricsRegistry.global();
+  }
+
+  /**
+   * Creates the business logic. Backends that keep aliases across restarts keep the sequence of
+   * generated aliases too, so that a restart does not generate taken aliases again. Members of a
+   * cluster take interleaved blocks of the sequence, so that they don't generate the same aliases.
+   * Click statistics of an alias are dropped when it is created or deleted.
+   *
+   * <p>Existing aliases are indexed for reuse in the background unless
+   * <tt>url-shortener.index-existing-aliases</tt> is false. It is false by default for the mapped
+   * backend: its aliases are read from the file into new strings, so the index would hold a copy of
+   * every alias on the heap, which the mapped backend is there to avoid.
+   */
+  @Singleton
+  Logic createLogic(UserRepository users, UrlRepository urls, UrlShortenerConfig config,
+      @Named(REPOSITORY_IO_EXECUTOR) ExecutorService ioExecutor, ClickAnalytics clickAnalytics,
+      @Value("${url-shortener.cluster.self:}") String self,
+      @Value("${url-shortener.cluster.members:}") String members,
+      @Value("${url-shortener.index-existing-aliases:}") String indexExistingAliases) {
+    List<String> memberUrls = clusterMembers(members);
+    AliasGenerator aliasGenerator;
+    if (memberUrls.isEmpty()) {
+      aliasGenerator = keepsFiles(config.repositoryBackend())
+          ? new AliasGenerator(new FileBlockSource(config.storageRoot()))
+          : new AliasGenerator();
+    } else {
+      AliasGenerator.BlockSource blocks = keepsFiles(config.repositoryBackend())
+          ? new FileBlockSource(config.storageRoot())
+          : AliasGenerator.clockSeeded();
+      aliasGenerator = new AliasGenerator(AliasGenerator.interleaved(
+          blocks, memberUrls.indexOf(self), memberUrls.size()));
+    }
+    boolean indexExisting = indexExistingAliases.isBlank()
+        ? config.repositoryBackend() != RepositoryBackend.MAPPED
+        : Boolean.parseBoolean(indexExistingAliases);
+    return new Logic(users, urls, aliasGenerator, ioExecutor, clickAnalytics::forget,
+        indexExisting);
+  }
+
+  /**
+   * Creates the executor for password hashing. It uses at most half of the cores, so a burst of
+   * logins can't take all of the CPU, and rejects new tasks when too many of them are queued.
+   */
+  @Singleton
+  @Named(PASSWORD_HASHING_EXECUTOR)
+  ExecutorService createPasswordHashingExecutor() {
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    return createBoundedExecutor(PASSWORD_HASHING_EXECUTOR, threads, 1024);
+  }
+
+  /**
+   * Creates the executor for blocking repository I/O. Its threads mostly wait for the disk, so
+   * there are many more of them than cores. Concurrent writes are persisted together anyway, so
+   * waiting writers are cheap for the disk.
+   */
+  @Singleton
+  @Named(REPOSITORY_IO_EXECUTOR)
+  ExecutorService createRepositoryIoExecutor() {
+    int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+    return createBoundedExecutor(REPOSITORY_IO_EXECUTOR, threads, 10_000);
+  }
+
+  /**
+   * Creates a fixed-size pool of daemon threads that rejects new tasks when too many of them are
+   * queued.
+   */
+  private static ExecutorService createBoundedExecutor(String name, int threads, int queueSize) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), runnable -> {
+          Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
   }
 
   @Singleton
@@ -40,8 +287,39 @@ public class BeanFactory {
     return new JsonToolJacksonImpl();
   }
 
+  /**
+   * Creates the configuration from <tt>url-shortener</tt> properties of the application
+   * configuration. The storage root is created for the backends that keep files there.
+   */
   @Singleton
-  UrlShortenerConfig createUrlShortenerConfig() {
-    return new UrlShortenerConfig(Paths.get("/home/user/url-shortener-db"));
+  UrlShortenerConfig createUrlShortenerConfig(UrlShortenerProperties properties) {
+    UrlShortenerConfig config = properties.toConfig();
+    if (keepsFiles(config.repositoryBackend())) {
+      try {
+        Files.createDirectories(config.storageRoot());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return config;
+  }
+
+  /**
+   * Parses the comma-separated list of cluster members, an empty list means that there is no
+   * cluster.
+   */
+  private static List<String> clusterMembers(String members) {
+    return Arrays.stream(members.split(","))
+        .map(String::trim)
+        .filter(member -> !member.isEmpty())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Tells whether the backend keeps data in the storage root. A follower does not, so that it can
+   * run on the same box as its leader.
+   */
+  private static boolean keepsFiles(RepositoryBackend backend) {
+    return backend != RepositoryBackend.MEMORY && backend != RepositoryBackend.FOLLOWER;
   }
 }
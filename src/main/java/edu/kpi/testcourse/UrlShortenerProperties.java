@@ -0,0 +1,78 @@
+package edu.kpi.testcourse;
+
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.RepositoryBackend;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.SnapshotFormat;
+import io.micronaut.context.annotation.ConfigurationProperties;
+import java.nio.file.Paths;
+
+/**
+ * The <tt>url-shortener</tt> properties of the application configuration that make up
+ * {@link UrlShortenerConfig}, see the configuration record for their meaning. A property that is
+ * not set keeps the default of the record.
+ */
+@ConfigurationProperties("url-shortener")
+public class UrlShortenerProperties {
+  private final UrlShortenerConfig.Builder config =
+      UrlShortenerConfig.builder(Paths.get("/home/user/url-shortener-db"));
+
+  public void setStorageRoot(String storageRoot) {
+    config.storageRoot(Paths.get(storageRoot));
+  }
+
+  public void setLogCompactionThreshold(int logCompactionThreshold) {
+    config.logCompactionThreshold(logCompactionThreshold);
+  }
+
+  public void setFsyncPolicy(FsyncPolicy fsyncPolicy) {
+    config.fsyncPolicy(fsyncPolicy);
+  }
+
+  public void setFsyncIntervalMillis(long fsyncIntervalMillis) {
+    config.fsyncIntervalMillis(fsyncIntervalMillis);
+  }
+
+  public void setCacheMaximumEntries(long cacheMaximumEntries) {
+    config.cacheMaximumEntries(cacheMaximumEntries);
+  }
+
+  public void setCacheMaximumBytes(long cacheMaximumBytes) {
+    config.cacheMaximumBytes(cacheMaximumBytes);
+  }
+
+  public void setUnknownAliasFalsePositiveRate(double unknownAliasFalsePositiveRate) {
+    config.unknownAliasFalsePositiveRate(unknownAliasFalsePositiveRate);
+  }
+
+  public void setSnapshotShards(int snapshotShards) {
+    config.snapshotShards(snapshotShards);
+  }
+
+  public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+    config.snapshotFormat(snapshotFormat);
+  }
+
+  public void setRepositoryPartitions(int repositoryPartitions) {
+    config.repositoryPartitions(repositoryPartitions);
+  }
+
+  public void setClickStatsFlushIntervalMillis(long clickStatsFlushIntervalMillis) {
+    config.clickStatsFlushIntervalMillis(clickStatsFlushIntervalMillis);
+  }
+
+  public void setRepositoryBackend(RepositoryBackend repositoryBackend) {
+    config.repositoryBackend(repositoryBackend);
+  }
+
+  public void setChangeFeedCapacity(int changeFeedCapacity) {
+    config.changeFeedCapacity(changeFeedCapacity);
+  }
+
+  /**
+   * Creates the configuration from the properties.
+   */
+  public UrlShortenerConfig toConfig() {
+    return config.build();
+  }
+}
@@ -0,0 +1,216 @@
+package edu.kpi.testcourse.analytics;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import edu.kpi.testcourse.storage.ClickStatsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts clicks (redirects) by alias and accumulates them in a {@link ClickStatsRepository}.
+ *
+ * <p>{@link #recordClick(String)} is called on the redirect hot path, so it never blocks and never
+ * touches the disk: it increments a {@link LongAdder} of the alias, which spreads concurrent
+ * increments of a popular alias over several cells instead of making them fight for one. The
+ * counted clicks are written to the repository by a background thread every
+ * {@link UrlShortenerConfig#clickStatsFlushIntervalMillis()}, all of them with a single write.
+ * Clicks counted after the last flush are lost if the process crashes.
+ *
+ * <p>Aliases that were not clicked since the previous flush are dropped from memory, so only
+ * recently clicked aliases take space here. A click that finds the counter of an alias right
+ * before it is dropped is still flushed, unless its thread stalls for longer than a flush period
+ * between finding the counter and incrementing it.
+ *
+ * <p>Statistics of an alias are dropped by {@link #forget(String)} when the alias is created or
+ * deleted, because a deleted or expired alias can be taken again by anyone. The repository drops
+ * them with the next flush, until then they are hidden.
+ */
+public class ClickAnalytics implements AutoCloseable {
+  private static final Histogram FLUSH_SECONDS = MetricsRegistry.global().timer(
+      "click_stats_flush_seconds", "Duration of click statistics flushes");
+  private static final Counter FLUSH_FAILURES = MetricsRegistry.global().counter(
+      "click_stats_flush_failures_total", "Number of failed click statistics flushes");
+  private static final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "click-stats-flush");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final ClickStatsRepository repository;
+  private final ConcurrentHashMap<String, PendingClicks> pendingByAlias =
+      new ConcurrentHashMap<>();
+  // Aliases whose statistics are to be dropped from the repository by the next flush.
+  private final Set<String> forgotten = ConcurrentHashMap.newKeySet();
+  private final ScheduledFuture<?> periodicFlush;
+  // Idle counters removed from the map by the previous flush. A click might have got one of them
+  // right before the removal, so they are flushed once more. Guarded by the instance monitor.
+  private List<PendingClicks> retired = List.of();
+
+  /**
+   * Creates an instance and starts flushing clicks periodically.
+   *
+   * @param repository a repository the clicks are accumulated in
+   * @param appConfig configuration with the flush period
+   */
+  public ClickAnalytics(ClickStatsRepository repository, UrlShortenerConfig appConfig) {
+    this.repository = repository;
+    long interval = appConfig.clickStatsFlushIntervalMillis();
+    this.periodicFlush = scheduler.scheduleWithFixedDelay(this::flushInBackground, interval,
+        interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Counts a redirect by the alias. It is cheap and never blocks.
+   */
+  public void recordClick(String alias) {
+    PendingClicks clicks = pendingByAlias.get(alias);
+    if (clicks == null) {
+      clicks = pendingByAlias.computeIfAbsent(alias, PendingClicks::new);
+    }
+    clicks.record(System.currentTimeMillis());
+  }
+
+  /**
+   * Returns click statistics of the alias, including clicks that are not flushed yet. Clicks that
+   * are being flushed right now might be missing.
+   */
+  public ClickStats stats(String alias) {
+    ClickStats stats = forgotten.contains(alias) ? null : repository.findClickStats(alias);
+    if (stats == null) {
+      stats = new ClickStats(alias, 0, 0);
+    }
+    PendingClicks clicks = pendingByAlias.get(alias);
+    if (clicks != null) {
+      stats = stats.plus(clicks.unflushed());
+    }
+    return stats;
+  }
+
+  /**
+   * Drops click statistics of the alias, its clicks are counted from zero again. It never blocks.
+   */
+  public void forget(String alias) {
+    PendingClicks clicks = pendingByAlias.remove(alias);
+    if (clicks != null || repository.findClickStats(alias) != null) {
+      forgotten.add(alias);
+    }
+  }
+
+  /**
+   * Writes all clicks counted so far into the repository. If the write fails, the clicks are
+   * written by the next flush.
+   */
+  public synchronized void flush() {
+    long start = System.nanoTime();
+    Set<String> reset = Set.copyOf(forgotten);
+    if (!reset.isEmpty()) {
+      repository.resetClickStats(List.copyOf(reset));
+      forgotten.removeAll(reset);
+    }
+
+    List<PendingClicks> flushed = new ArrayList<>();
+    List<ClickStats> unflushed = new ArrayList<>();
+    List<PendingClicks> idle = new ArrayList<>();
+    for (PendingClicks clicks : retired) {
+      // A retired counter of a forgotten alias counts clicks of the former alias.
+      if (!reset.contains(clicks.alias)) {
+        collect(clicks, flushed, unflushed);
+      }
+    }
+    for (PendingClicks clicks : pendingByAlias.values()) {
+      if (!collect(clicks, flushed, unflushed)) {
+        idle.add(clicks);
+      }
+    }
+
+    if (!unflushed.isEmpty()) {
+      repository.addClicks(unflushed);
+    }
+    for (int i = 0; i < flushed.size(); i++) {
+      flushed.get(i).flushedClicks += unflushed.get(i).clicks();
+    }
+
+    List<PendingClicks> newlyRetired = new ArrayList<>(idle.size());
+    for (PendingClicks clicks : idle) {
+      if (pendingByAlias.remove(clicks.alias, clicks)) {
+        newlyRetired.add(clicks);
+      }
+    }
+    retired = newlyRetired;
+    FLUSH_SECONDS.recordSince(start);
+  }
+
+  /**
+   * Stops flushing periodically, the clicks counted so far are flushed right away.
+   */
+  @Override
+  public void close() {
+    periodicFlush.cancel(false);
+    flush();
+  }
+
+  /**
+   * Adds clicks of the counter that are not flushed yet to the lists.
+   *
+   * @return whether there are such clicks
+   */
+  private static boolean collect(
+      PendingClicks clicks, List<PendingClicks> flushed, List<ClickStats> unflushed
+  ) {
+    ClickStats stats = clicks.unflushed();
+    if (stats.clicks() == 0) {
+      return false;
+    }
+    flushed.add(clicks);
+    unflushed.add(stats);
+    return true;
+  }
+
+  private void flushInBackground() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      // An exception would cancel the periodic flush.
+      FLUSH_FAILURES.increment();
+    }
+  }
+
+  /**
+   * Clicks on a single alias counted in memory.
+   */
+  private static final class PendingClicks {
+    private final String alias;
+    private final LongAdder clicks = new LongAdder();
+    private volatile long lastAccess;
+    // Clicks already written to the repository. Written only by the flushing thread.
+    private volatile long flushedClicks;
+
+    PendingClicks(String alias) {
+      this.alias = alias;
+    }
+
+    void record(long now) {
+      clicks.increment();
+      // Concurrent clicks may race here, but they happen within the same millisecond or so, and
+      // the plain write is much cheaper than a compare-and-set loop.
+      if (now > lastAccess) {
+        lastAccess = now;
+      }
+    }
+
+    ClickStats unflushed() {
+      return new ClickStats(alias, clicks.sum() - flushedClicks, lastAccess);
+    }
+  }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains click analytics: redirects counted in memory on the hot path and flushed
+ * to the click statistics repository in background.
+ */
+package edu.kpi.testcourse.analytics;
@@ -0,0 +1,31 @@
+package edu.kpi.testcourse.entities;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import javax.annotation.Nullable;
+
+/**
+ * A single change of URL aliases in the change feed of a leader instance.
+ *
+ * @param sequence number of the change, changes of an instance are numbered one by one
+ * @param type what happened to the alias
+ * @param alias the short identifier of the URL
+ * @param urlAlias the created URL alias, <tt>null</tt> for deletions
+ */
+public record AliasChange(
+    @JsonProperty("sequence") long sequence,
+    @JsonProperty("type") Type type,
+    @JsonProperty("alias") String alias,
+    @JsonProperty("urlAlias") @JsonInclude(JsonInclude.Include.NON_NULL) @Nullable UrlAlias urlAlias
+) {
+
+  /**
+   * A kind of change.
+   */
+  public enum Type {
+    /** The alias was created, possibly replacing an expired one. */
+    CREATE,
+    /** The alias was deleted. */
+    DELETE
+  }
+}
@@ -0,0 +1,11 @@
+package edu.kpi.testcourse.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Consecutive changes of URL aliases from the change feed of a leader instance.
+ *
+ * @param changes the changes ordered by sequence, empty if nothing has changed
+ */
+public record AliasChanges(@JsonProperty("changes") List<AliasChange> changes) {}
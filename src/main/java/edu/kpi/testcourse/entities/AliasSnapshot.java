@@ -0,0 +1,19 @@
+package edu.kpi.testcourse.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * All URL aliases of a leader instance, which a follower bootstraps from before it applies the
+ * changes that follow.
+ *
+ * @param epoch identifier of the change feed the sequence belongs to, it changes when the leader
+ *     restarts and starts numbering changes from scratch
+ * @param sequence number of the latest change that is already reflected in the aliases
+ * @param aliases all URL aliases
+ */
+public record AliasSnapshot(
+    @JsonProperty("epoch") long epoch,
+    @JsonProperty("sequence") long sequence,
+    @JsonProperty("aliases") List<UrlAlias> aliases
+) {}
@@ -0,0 +1,25 @@
+package edu.kpi.testcourse.entities;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Click (redirect) statistics of a single shortened URL.
+ *
+ * @param alias the short identifier of the URL
+ * @param clicks number of redirects by the alias
+ * @param lastAccess time of the latest redirect in milliseconds since the epoch, <tt>0</tt> if
+ *     there were no redirects
+ */
+public record ClickStats(
+    @JsonProperty("alias") String alias,
+    @JsonProperty("clicks") long clicks,
+    @JsonProperty("lastAccess") long lastAccess
+) {
+
+  /**
+   * Combines these statistics with the statistics of the same alias collected later.
+   */
+  public ClickStats plus(ClickStats other) {
+    return new ClickStats(alias, clicks + other.clicks, Math.max(lastAccess, other.lastAccess));
+  }
+}
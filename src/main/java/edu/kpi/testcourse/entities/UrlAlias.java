@@ -1,5 +1,7 @@
 package edu.kpi.testcourse.entities;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -8,9 +10,37 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * @param alias The unique short identifier of this URL. Prepend <tt>https://example.org/r/</tt> to get the short URL.
  * @param destinationUrl full version of URL
  * @param email an email of user that created this alias
+ * @param expiresAt time when the alias expires in milliseconds since the epoch, <tt>0</tt> if it
+ *     never expires
  */
 public record UrlAlias(
     @JsonProperty("alias") String alias,
     @JsonProperty("destinationUrl") String destinationUrl,
-    @JsonProperty("email") String email
-) {}
+    @JsonProperty("email") String email,
+    @JsonProperty("expiresAt") @JsonInclude(JsonInclude.Include.NON_DEFAULT) long expiresAt
+) {
+
+  /**
+   * Creates an alias. JSON is deserialized with this constructor, a missing expiry means that the
+   * alias never expires.
+   */
+  @JsonCreator
+  public UrlAlias {
+  }
+
+  /**
+   * Creates an alias that never expires.
+   */
+  public UrlAlias(String alias, String destinationUrl, String email) {
+    this(alias, destinationUrl, email, 0);
+  }
+
+  /**
+   * Tells whether the alias is expired at the given time.
+   *
+   * @param now milliseconds since the epoch
+   */
+  public boolean isExpired(long now) {
+    return expiresAt != 0 && expiresAt <= now;
+  }
+}
@@ -0,0 +1,136 @@
+package edu.kpi.testcourse.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of short aliases.
+ *
+ * <p>Every alias is a unique number from a sequence encoded in base62 and prefixed with
+ * {@link #PREFIX}. Users are not allowed to pick aliases with this prefix, so generated aliases
+ * never collide with custom ones and there is no need to retry on collision.
+ *
+ * <p>Numbers are handed out from blocks: each thread reserves a block of {@link #BLOCK_SIZE}
+ * numbers from a {@link BlockSource} and then takes numbers from it without any synchronization.
+ * The source is hit only once per block.
+ */
+public class AliasGenerator {
+  /**
+   * The first character of every generated alias.
+   */
+  public static final char PREFIX = '_';
+  static final int BLOCK_SIZE = 1024;
+
+  private static final char[] DIGITS =
+      "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+  private final BlockSource blocks;
+  private final ThreadLocal<Block> threadBlocks = ThreadLocal.withInitial(Block::new);
+
+  /**
+   * Creates a generator that takes blocks of numbers from the given source.
+   */
+  public AliasGenerator(BlockSource blocks) {
+    this.blocks = blocks;
+  }
+
+  /**
+   * Creates a generator that starts the sequence from zero every time. Suitable only for
+   * repositories that do not outlive the application.
+   */
+  public AliasGenerator() {
+    this(new InMemoryBlockSource());
+  }
+
+  /**
+   * Generates a new alias, which is never returned again by this generator.
+   */
+  public String nextAlias() {
+    Block block = threadBlocks.get();
+    if (block.next == block.end) {
+      block.next = blocks.reserve(BLOCK_SIZE);
+      block.end = block.next + BLOCK_SIZE;
+    }
+    return encode(block.next++);
+  }
+
+  /**
+   * Checks whether the alias belongs to the namespace of generated aliases.
+   */
+  public static boolean isReserved(String alias) {
+    return !alias.isEmpty() && alias.charAt(0) == PREFIX;
+  }
+
+  static String encode(long number) {
+    char[] buffer = new char[12];
+    int position = buffer.length;
+    do {
+      buffer[--position] = DIGITS[(int) (number % DIGITS.length)];
+      number /= DIGITS.length;
+    } while (number > 0);
+    buffer[--position] = PREFIX;
+    return new String(buffer, position, buffer.length - position);
+  }
+
+  /**
+   * Returns a source of blocks of one member of a cluster: block <tt>k</tt> of the given source
+   * becomes block <tt>k * members + member</tt>, so members never generate the same aliases.
+   *
+   * @param source a source that reserves blocks of the same size at multiples of that size
+   * @param member index of the member, from <tt>0</tt> to <tt>members - 1</tt>
+   * @param members number of members
+   */
+  public static BlockSource interleaved(BlockSource source, int member, int members) {
+    return size -> {
+      long first = source.reserve(size);
+      return (first / size * members + member) * size;
+    };
+  }
+
+  /**
+   * Returns an in-memory source that starts with the block of the current millisecond. It suits a
+   * cluster member that keeps no files: other members still store the aliases it generated before
+   * a restart, and to reach them again it would have to generate a block per millisecond.
+   */
+  public static BlockSource clockSeeded() {
+    return new InMemoryBlockSource(System.currentTimeMillis() * BLOCK_SIZE);
+  }
+
+  /**
+   * Source of blocks of sequence numbers.
+   */
+  @FunctionalInterface
+  public interface BlockSource {
+    /**
+     * Reserves a block of sequence numbers that was never reserved before.
+     *
+     * @param size a number of sequence numbers in the block
+     * @return the first number of the block
+     */
+    long reserve(int size);
+  }
+
+  /**
+   * Lock-free in-memory source of blocks.
+   */
+  static class InMemoryBlockSource implements BlockSource {
+    private final AtomicLong next;
+
+    InMemoryBlockSource() {
+      this(0);
+    }
+
+    InMemoryBlockSource(long start) {
+      this.next = new AtomicLong(start);
+    }
+
+    @Override
+    public long reserve(int size) {
+      return next.getAndAdd(size);
+    }
+  }
+
+  private static class Block {
+    private long next;
+    private long end;
+  }
+}
@@ -0,0 +1,101 @@
+package edu.kpi.testcourse.logic;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Short-living cache of successful password verifications, so that a user who logs in often does
+ * not cost a PBKDF2 computation every time.
+ *
+ * <p>Passwords are never kept in memory: an entry is keyed by HMAC-SHA256 of the email and the
+ * password under a random key that lives only in this process. An entry remembers the password
+ * hash it was verified against, so it stops matching as soon as the stored hash changes.
+ */
+class CredentialCache {
+  static final long DEFAULT_TTL_MILLIS = 60_000;
+  static final int DEFAULT_MAXIMUM_ENTRIES = 10_000;
+
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs;
+  private final long ttlNanos;
+  private final int maximumEntries;
+  private final LongSupplier nanoClock;
+  private final ConcurrentHashMap<Key, Verification> verifications = new ConcurrentHashMap<>();
+
+  CredentialCache() {
+    this(DEFAULT_TTL_MILLIS, DEFAULT_MAXIMUM_ENTRIES, System::nanoTime);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param ttlMillis how long a successful verification is trusted
+   * @param maximumEntries maximal number of remembered verifications
+   * @param nanoClock source of time in nanoseconds
+   */
+  CredentialCache(long ttlMillis, int maximumEntries, LongSupplier nanoClock) {
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, "HmacSHA256");
+    this.macs = ThreadLocal.withInitial(this::createMac);
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.maximumEntries = maximumEntries;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Checks whether the password was recently verified against the given password hash.
+   */
+  boolean isVerified(String email, String password, String passwordHash) {
+    Verification verification = verifications.get(key(email, password));
+    return verification != null
+        && verification.passwordHash().equals(passwordHash)
+        && nanoClock.getAsLong() - verification.verifiedAt() < ttlNanos;
+  }
+
+  /**
+   * Remembers that the password matches the given password hash.
+   */
+  void verified(String email, String password, String passwordHash) {
+    long now = nanoClock.getAsLong();
+    if (verifications.size() >= maximumEntries) {
+      verifications.values().removeIf(verification -> now - verification.verifiedAt() >= ttlNanos);
+      if (verifications.size() >= maximumEntries) {
+        // Still full of fresh entries, which is only possible under a burst of distinct logins.
+        verifications.clear();
+      }
+    }
+    verifications.put(key(email, password), new Verification(passwordHash, now));
+  }
+
+  private Key key(String email, String password) {
+    Mac mac = macs.get();
+    mac.update(email.getBytes(StandardCharsets.UTF_8));
+    // The separator can't be a part of an email, so different pairs never produce the same input.
+    mac.update((byte) 0);
+    ByteBuffer digest = ByteBuffer.wrap(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    return new Key(digest.getLong(), digest.getLong());
+  }
+
+  private Mac createMac() {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(key);
+      return mac;
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IllegalStateException("System doesn't provide HmacSHA256 algorithm", e);
+    }
+  }
+
+  private record Key(long high, long low) {}
+
+  private record Verification(String passwordHash, long verifiedAt) {}
+}
@@ -0,0 +1,144 @@
+package edu.kpi.testcourse.logic;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reverse index of URL aliases by their owner and destination URL, which lets a user get an
+ * existing alias of a URL instead of creating another one.
+ *
+ * <p>The index is an open-addressing hash table (linear probing) keyed by a 64-bit hash of the
+ * owner email and the destination URL. It keeps only the hash and a reference to the alias
+ * string, which is shared with the repository, so an entry takes about 12 bytes plus free slots.
+ *
+ * <p>The index is not kept in sync with the repository: deleted aliases stay here, and two keys
+ * may collide. Thus a found alias is only a candidate, callers check it against the repository
+ * and {@link #remove(long, String)} it if it does not match.
+ *
+ * <p>The index is thread-safe.
+ */
+final class DestinationIndex {
+  private static final int INITIAL_CAPACITY = 1024;
+  // Keys are never zero, so a zero key marks a free slot.
+  private static final long FREE = 0;
+
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private String[] aliases = new String[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Computes the key of the owner and the destination URL.
+   */
+  static long key(String email, String destinationUrl) {
+    long h = 0x9E3779B97F4A7C15L;
+    h = mix(h, email);
+    // The length separates the strings, so that ("ab", "c") and ("a", "bc") get different keys.
+    h = (h ^ email.length()) * 0x100000001B3L;
+    h = mix(h, destinationUrl);
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h == FREE ? 1 : h;
+  }
+
+  /**
+   * Returns the alias stored with the key or <tt>null</tt> if there is none.
+   */
+  synchronized @Nullable String get(long key) {
+    int mask = keys.length - 1;
+    for (int slot = slotOf(key, mask); keys[slot] != FREE; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return aliases[slot];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores the alias with the key, replacing the alias stored with it before.
+   */
+  synchronized void put(long key, String alias) {
+    if (2 * (size + 1) > keys.length) {
+      resize(2 * keys.length);
+    }
+    int mask = keys.length - 1;
+    int slot = slotOf(key, mask);
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    if (keys[slot] == FREE) {
+      keys[slot] = key;
+      size++;
+    }
+    aliases[slot] = alias;
+  }
+
+  /**
+   * Removes the key if it is stored with the given alias.
+   */
+  synchronized void remove(long key, String alias) {
+    int mask = keys.length - 1;
+    int slot = slotOf(key, mask);
+    while (keys[slot] != key) {
+      if (keys[slot] == FREE) {
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    if (!aliases[slot].equals(alias)) {
+      return;
+    }
+
+    // Shifts the following entries back, so that none of them is separated from its home slot by
+    // the freed one.
+    int free = slot;
+    for (int next = (free + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+      int home = slotOf(keys[next], mask);
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        aliases[free] = aliases[next];
+        free = next;
+      }
+    }
+    keys[free] = FREE;
+    aliases[free] = null;
+    size--;
+  }
+
+  /**
+   * Returns the number of keys in the index.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    String[] oldAliases = aliases;
+    keys = new long[capacity];
+    aliases = new String[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = slotOf(oldKeys[i], mask);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        aliases[slot] = oldAliases[i];
+      }
+    }
+  }
+
+  private static int slotOf(long key, int mask) {
+    return (int) key & mask;
+  }
+
+  private static long mix(long h, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001B3L;
+    }
+    return h;
+  }
+}
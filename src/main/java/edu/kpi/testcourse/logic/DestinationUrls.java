@@ -0,0 +1,59 @@
+package edu.kpi.testcourse.logic;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Validation and normalization of destination URLs.
+ *
+ * <p>A destination is parsed once, when its alias is created, and stored in a normalized form:
+ * an absolute HTTP(S) URL with a lower case scheme, without redundant path segments and with all
+ * non-ASCII characters percent-encoded. Such a string is a valid <tt>Location</tt> header value,
+ * so redirects write it as is without parsing it again.
+ */
+final class DestinationUrls {
+  private DestinationUrls() {
+  }
+
+  /**
+   * Validates the URL and returns its normalized form.
+   *
+   * @throws Logic.InvalidUrl if the URL is not an absolute HTTP(S) URL
+   */
+  static String normalize(String url) throws Logic.InvalidUrl {
+    URI uri;
+    try {
+      uri = new URI(url.strip()).normalize();
+    } catch (URISyntaxException e) {
+      throw new Logic.InvalidUrl();
+    }
+    String scheme = uri.getScheme();
+    if (scheme == null || uri.getHost() == null
+        || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))) {
+      throw new Logic.InvalidUrl();
+    }
+    String normalized = uri.toASCIIString();
+    return scheme.toLowerCase(Locale.ROOT) + normalized.substring(scheme.length());
+  }
+
+  /**
+   * Returns the stored destination in a form suitable for the <tt>Location</tt> header. The
+   * destinations stored before they were normalized on creation are normalized here.
+   *
+   * @return the destination or <tt>null</tt> if it is not a valid URL
+   */
+  static String forLocationHeader(String destinationUrl) {
+    for (int i = 0; i < destinationUrl.length(); i++) {
+      char c = destinationUrl.charAt(i);
+      if (c <= ' ' || c >= 0x7F) {
+        try {
+          return normalize(destinationUrl);
+        } catch (Logic.InvalidUrl e) {
+          return null;
+        }
+      }
+    }
+    return destinationUrl;
+  }
+}
@@ -0,0 +1,82 @@
+package edu.kpi.testcourse.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link AliasGenerator.BlockSource} that survives restarts, for repositories that keep aliases
+ * on the disk.
+ *
+ * <p>The file keeps the end of the sequence numbers leased so far. Numbers are leased
+ * {@link #LEASE_SIZE} at a time, and the new end is written to the disk (and synced) before any
+ * number of the lease is handed out. Thus a restart never hands out a number again, it only skips
+ * the rest of the last lease.
+ *
+ * <p>Leases are multiples of the block size, so blocks of that size start at its multiples, as
+ * {@link AliasGenerator#interleaved} needs.
+ */
+public class FileBlockSource implements AliasGenerator.BlockSource {
+  static final String FILE_NAME = "alias-sequence";
+  static final long LEASE_SIZE = 64L * AliasGenerator.BLOCK_SIZE;
+
+  private final Path file;
+  // Guarded by this.
+  private long next;
+  private long leaseEnd;
+
+  /**
+   * Creates a source that continues the sequence stored in the file, or starts it if there is no
+   * file yet.
+   *
+   * @param storageRoot a directory of the file
+   */
+  public FileBlockSource(Path storageRoot) {
+    this.file = storageRoot.resolve(FILE_NAME);
+    try {
+      if (Files.exists(file)) {
+        next = Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).trim());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("Corrupted alias sequence file " + file, e);
+    }
+    leaseEnd = next;
+  }
+
+  @Override
+  public synchronized long reserve(int size) {
+    if (next + size > leaseEnd) {
+      long end = next + Math.max(LEASE_SIZE, size);
+      store(end);
+      leaseEnd = end;
+    }
+    long first = next;
+    next += size;
+    return first;
+  }
+
+  /**
+   * Replaces the file atomically, so that a crash leaves either the old end or the new one.
+   */
+  private void store(long end) {
+    Path tmpFile = file.resolveSibling(FILE_NAME + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        channel.write(StandardCharsets.UTF_8.encode(Long.toString(end)));
+        channel.force(true);
+      }
+      Files.move(tmpFile, file,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
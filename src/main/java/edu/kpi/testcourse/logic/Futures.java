@@ -0,0 +1,21 @@
+package edu.kpi.testcourse.logic;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for code that handles failures of futures.
+ */
+public final class Futures {
+  private Futures() {
+  }
+
+  /**
+   * Returns the exception a future failed with. Dependent stages of a future wrap the exception
+   * into a {@link CompletionException}, which is stripped here.
+   */
+  public static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null
+        ? error.getCause()
+        : error;
+  }
+}
@@ -1,5 +1,7 @@
 package edu.kpi.testcourse.logic;
 
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import java.math.BigInteger;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -11,6 +13,11 @@ import javax.crypto.spec.PBEKeySpec;
  * Utility class for password hashing and validation.
  */
 public class HashUtils {
+  private static final Histogram HASHING_SECONDS = MetricsRegistry.global().timer(
+      "password_hashing_seconds", "Duration of password hashing", "operation", "hash");
+  private static final Histogram VALIDATION_SECONDS = MetricsRegistry.global().timer(
+      "password_hashing_seconds", "Duration of password hashing", "operation", "validate");
+
   private final SecretKeyFactory skf;
   private final SecureRandom sr;
 
@@ -43,8 +50,10 @@ public class HashUtils {
     byte[] salt = getSalt();
 
     PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, 64 * 8);
+    long start = System.nanoTime();
     try {
       byte[] hash = skf.generateSecret(spec).getEncoded();
+      HASHING_SECONDS.recordSince(start);
       return iterations + ":" + toHex(salt) + ":" + toHex(hash);
     } catch (InvalidKeySpecException e) {
       throw new RuntimeException("Error during password hash generation", e);
@@ -87,8 +96,10 @@ public class HashUtils {
         iterations,
         hash.length * 8
     );
+    long start = System.nanoTime();
     try {
       byte[] testHash = skf.generateSecret(spec).getEncoded();
+      VALIDATION_SECONDS.recordSince(start);
       int diff = hash.length ^ testHash.length;
       for (int i = 0; i < hash.length && i < testHash.length; i++) {
         diff |= hash[i] ^ testHash[i];
@@ -2,26 +2,130 @@ package edu.kpi.testcourse.logic;
 
 import edu.kpi.testcourse.entities.UrlAlias;
 import edu.kpi.testcourse.entities.User;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.storage.UrlRepository;
 import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
 import edu.kpi.testcourse.storage.UserRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 /**
  * Business logic of the URL shortener application.
+ *
+ * <p>Methods with the <tt>Async</tt> suffix don't block the calling thread: blocking repository
+ * work is done by the I/O executor.
  */
 public class Logic {
+  /**
+   * The longest time to live of an alias.
+   */
+  public static final Duration MAX_TTL = Duration.ofDays(36_500);
+
+  private static final Histogram AUTH_VERIFICATION_SECONDS = MetricsRegistry.global().timer(
+      "auth_verification_seconds", "Duration of user credentials checks");
+  private static final Counter ALIAS_CONFLICTS = MetricsRegistry.global().counter(
+      "alias_conflicts_total", "Number of attempts to create an alias that is already taken");
+  private static final Counter ALIAS_REUSES = MetricsRegistry.global().counter(
+      "alias_reuses_total", "Number of shortenings answered with an existing alias of the URL");
+
   private final UserRepository users;
   private final UrlRepository urls;
   private final HashUtils hashUtils;
+  private final CredentialCache credentialCache;
+  private final AliasGenerator aliasGenerator;
+  private final Executor ioExecutor;
+  private final Consumer<String> aliasReset;
+  private final DestinationIndex destinations = new DestinationIndex();
 
   /**
    * Creates an instance.
    */
   public Logic(UserRepository users, UrlRepository urls) {
+    this(users, urls, new AliasGenerator());
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param users users repository
+   * @param urls URL aliases repository
+   * @param aliasGenerator generator of aliases for URLs shortened without a custom alias
+   */
+  public Logic(UserRepository users, UrlRepository urls, AliasGenerator aliasGenerator) {
+    this(users, urls, aliasGenerator, Runnable::run);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param users users repository
+   * @param urls URL aliases repository
+   * @param aliasGenerator generator of aliases for URLs shortened without a custom alias
+   * @param ioExecutor an executor for blocking repository work of asynchronous methods
+   */
+  public Logic(UserRepository users, UrlRepository urls, AliasGenerator aliasGenerator,
+      Executor ioExecutor) {
+    this(users, urls, aliasGenerator, ioExecutor, alias -> { });
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param users users repository
+   * @param urls URL aliases repository
+   * @param aliasGenerator generator of aliases for URLs shortened without a custom alias
+   * @param ioExecutor an executor for blocking repository work of asynchronous methods
+   * @param aliasReset called with every alias that is created or deleted, so that data kept by the
+   *     alias name, like click statistics, is dropped rather than inherited by a later alias with
+   *     the same name (a deleted or expired alias can be taken again)
+   */
+  public Logic(UserRepository users, UrlRepository urls, AliasGenerator aliasGenerator,
+      Executor ioExecutor, Consumer<String> aliasReset) {
+    this(users, urls, aliasGenerator, ioExecutor, aliasReset, true);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param users users repository
+   * @param urls URL aliases repository
+   * @param aliasGenerator generator of aliases for URLs shortened without a custom alias
+   * @param ioExecutor an executor for blocking repository work of asynchronous methods
+   * @param aliasReset called with every alias that is created or deleted, so that data kept by the
+   *     alias name, like click statistics, is dropped rather than inherited by a later alias with
+   *     the same name (a deleted or expired alias can be taken again)
+   * @param indexExistingAliases whether aliases that are already in the repository can be reused
+   *     when their URL is shortened again; they are indexed by the I/O executor in the background,
+   *     so they are reused only once the walk over the repository has reached them. Aliases
+   *     created by this instance are always reused
+   */
+  public Logic(UserRepository users, UrlRepository urls, AliasGenerator aliasGenerator,
+      Executor ioExecutor, Consumer<String> aliasReset, boolean indexExistingAliases) {
     this.users = users;
     this.urls = urls;
     this.hashUtils = new HashUtils();
+    this.credentialCache = new CredentialCache();
+    this.aliasGenerator = aliasGenerator;
+    this.ioExecutor = ioExecutor;
+    this.aliasReset = aliasReset;
+    if (indexExistingAliases) {
+      try {
+        ioExecutor.execute(() -> urls.forEachUrlAlias(this::indexDestination));
+      } catch (RejectedExecutionException e) {
+        // Reuse is best effort, the existing aliases are just not reused then.
+      }
+    }
   }
 
   /**
@@ -42,17 +146,31 @@ public class Logic {
   /**
    * Gives an answer if user is registered and password is correct.
    *
+   * <p>Password hashing is slow by design, so successful checks are cached for a short time.
+   *
    * @param email a users email
    * @param password a users password
    * @return if user is registered and password is correct
    */
   public boolean isUserValid(String email, String password) {
-    User user = users.findUser(email);
-    if (user == null) {
-      return false;
-    }
+    long start = System.nanoTime();
+    try {
+      User user = users.findUser(email);
+      if (user == null) {
+        return false;
+      }
 
-    return hashUtils.validatePassword(password, user.passwordHash());
+      if (credentialCache.isVerified(email, password, user.passwordHash())) {
+        return true;
+      }
+      boolean valid = hashUtils.validatePassword(password, user.passwordHash());
+      if (valid) {
+        credentialCache.verified(email, password, user.passwordHash());
+      }
+      return valid;
+    } finally {
+      AUTH_VERIFICATION_SECONDS.recordSince(start);
+    }
   }
 
   /**
@@ -60,40 +178,374 @@ public class Logic {
    *
    * @param email an email of a user that creates the alias
    * @param url a full URL
-   * @param alias a proposed alias
+   * @param alias a proposed alias, a new one is generated if it is not provided
    *
    * @return a shortened URL
+   * @throws AliasIsReserved if the proposed alias belongs to the namespace of generated aliases
+   * @throws InvalidUrl if the full URL is not an absolute HTTP(S) URL
    */
   public String createNewAlias(String email, String url, String alias) throws AliasAlreadyExist {
-    String finalAlias;
-    if (alias == null || alias.isEmpty()) {
-      // TODO: Generate short alias
-      throw new UnsupportedOperationException("Is not implemented yet");
-    } else {
-      finalAlias = alias;
+    return createNewAlias(email, url, alias, null);
+  }
+
+  /**
+   * Create a new URL alias (shortened version) that expires after the given time.
+   *
+   * @param email an email of a user that creates the alias
+   * @param url a full URL
+   * @param alias a proposed alias, a new one is generated if it is not provided
+   * @param ttl time to live of the alias, it never expires if the time is not provided
+   *
+   * @return a shortened URL
+   * @throws AliasIsReserved if the proposed alias belongs to the namespace of generated aliases
+   * @throws InvalidUrl if the full URL is not an absolute HTTP(S) URL
+   * @throws InvalidTtl if the time to live is not positive or longer than {@link #MAX_TTL}
+   */
+  public String createNewAlias(String email, String url, String alias, @Nullable Duration ttl)
+      throws AliasAlreadyExist {
+    return createNewAlias(email, url, alias, ttl, false);
+  }
+
+  /**
+   * Create a new URL alias (shortened version) or reuse an existing one. An alias of the user with
+   * the same full URL is reused only if a new alias would be generated and would never expire.
+   *
+   * <p>Existing aliases are looked up in an index of this instance, which holds the aliases the
+   * repository walks on startup and the ones created by this instance since then. In a cluster, the
+   * repository walks only the aliases the member stores, so an alias is reused only by the member
+   * it was created through, and by the member that stores it after a restart. Reuse saves aliases,
+   * it does not guarantee that a URL of a user has a single alias.
+   *
+   * @param email an email of a user that creates the alias
+   * @param url a full URL
+   * @param alias a proposed alias, a new one is generated if it is not provided
+   * @param ttl time to live of the alias, it never expires if the time is not provided
+   * @param reuseExisting whether to return an existing alias of the URL instead of creating one
+   *
+   * @return a shortened URL
+   * @throws AliasIsReserved if the proposed alias belongs to the namespace of generated aliases
+   * @throws InvalidUrl if the full URL is not an absolute HTTP(S) URL
+   * @throws InvalidTtl if the time to live is not positive or longer than {@link #MAX_TTL}
+   */
+  public String createNewAlias(String email, String url, String alias, @Nullable Duration ttl,
+      boolean reuseExisting) throws AliasAlreadyExist {
+    String destinationUrl = DestinationUrls.normalize(url);
+    long expiresAt = expiresAt(ttl);
+    if (reuseExisting && isReusable(alias, ttl)) {
+      String existing = findExistingAlias(email, destinationUrl);
+      if (existing != null) {
+        ALIAS_REUSES.increment();
+        return existing;
+      }
+    }
+    UrlAlias urlAlias = new UrlAlias(resolveAlias(alias), destinationUrl, email, expiresAt);
+
+    try {
+      urls.createUrlAlias(urlAlias);
+    } catch (AliasAlreadyExist e) {
+      ALIAS_CONFLICTS.increment();
+      throw e;
     }
+    indexDestination(urlAlias);
+    aliasReset.accept(urlAlias.alias());
+
+    return urlAlias.alias();
+  }
+
+  /**
+   * Asynchronous variant of {@link #createNewAlias(String, String, String)}.
+   *
+   * @return a future of the alias, which fails with {@link AliasAlreadyExist} or
+   *     {@link AliasIsReserved} if the alias can't be used, or with {@link InvalidUrl}
+   */
+  public CompletableFuture<String> createNewAliasAsync(String email, String url, String alias) {
+    return createNewAliasAsync(email, url, alias, null);
+  }
+
+  /**
+   * Asynchronous variant of {@link #createNewAlias(String, String, String, Duration)}.
+   *
+   * @return a future of the alias, which fails with {@link AliasAlreadyExist} or
+   *     {@link AliasIsReserved} if the alias can't be used, or with {@link InvalidUrl} or
+   *     {@link InvalidTtl}
+   */
+  public CompletableFuture<String> createNewAliasAsync(
+      String email, String url, String alias, @Nullable Duration ttl
+  ) {
+    return createNewAliasAsync(email, url, alias, ttl, false);
+  }
 
-    urls.createUrlAlias(new UrlAlias(finalAlias, url, email));
+  /**
+   * Asynchronous variant of {@link #createNewAlias(String, String, String, Duration, boolean)}.
+   *
+   * @return a future of the alias, which fails with {@link AliasAlreadyExist} or
+   *     {@link AliasIsReserved} if the alias can't be used, or with {@link InvalidUrl} or
+   *     {@link InvalidTtl}
+   */
+  public CompletableFuture<String> createNewAliasAsync(
+      String email, String url, String alias, @Nullable Duration ttl, boolean reuseExisting
+  ) {
+    String destinationUrl;
+    long expiresAt;
+    try {
+      destinationUrl = DestinationUrls.normalize(url);
+      expiresAt = expiresAt(ttl);
+    } catch (InvalidUrl | InvalidTtl e) {
+      return CompletableFuture.failedFuture(e);
+    }
 
-    return finalAlias;
+    if (reuseExisting && isReusable(alias, ttl)) {
+      long key = DestinationIndex.key(email, destinationUrl);
+      String candidate = destinations.get(key);
+      if (candidate != null) {
+        return urls.findUrlAliasAsync(candidate, ioExecutor).thenCompose(found -> {
+          if (matches(found, email, destinationUrl)) {
+            ALIAS_REUSES.increment();
+            return CompletableFuture.completedFuture(candidate);
+          }
+          destinations.remove(key, candidate);
+          return createUrlAliasAsync(email, destinationUrl, alias, expiresAt);
+        });
+      }
+    }
+    return createUrlAliasAsync(email, destinationUrl, alias, expiresAt);
+  }
+
+  /**
+   * Stores a new alias. The alias is resolved only here, so that a reused alias does not take a
+   * generated one for nothing.
+   */
+  private CompletableFuture<String> createUrlAliasAsync(
+      String email, String destinationUrl, @Nullable String alias, long expiresAt
+  ) {
+    UrlAlias urlAlias;
+    try {
+      urlAlias = new UrlAlias(resolveAlias(alias), destinationUrl, email, expiresAt);
+    } catch (AliasIsReserved e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return urls.createUrlAliasAsync(urlAlias, ioExecutor)
+      .whenComplete((created, error) -> {
+        if (error != null && Futures.unwrap(error) instanceof AliasAlreadyExist) {
+          ALIAS_CONFLICTS.increment();
+        }
+      })
+      .thenApply(created -> {
+        indexDestination(urlAlias);
+        aliasReset.accept(urlAlias.alias());
+        return urlAlias.alias();
+      });
+  }
+
+  /**
+   * Create many URL aliases at once. All of them are stored with a single repository write.
+   *
+   * @param email an email of a user that creates the aliases
+   * @param requests full URLs with proposed aliases
+   * @return a result for every request, in the same order
+   */
+  public List<ShortenResult> createNewAliases(String email, List<ShortenRequest> requests) {
+    Batch batch = new Batch(email, requests);
+    return batch.complete(urls.createUrlAliases(batch.urlAliases));
+  }
+
+  /**
+   * Asynchronous variant of {@link #createNewAliases(String, List)}.
+   */
+  public CompletableFuture<List<ShortenResult>> createNewAliasesAsync(
+      String email, List<ShortenRequest> requests
+  ) {
+    if (requests.stream().noneMatch(ShortenRequest::reuseExisting)) {
+      Batch batch = new Batch(email, requests);
+      return urls.createUrlAliasesAsync(batch.urlAliases, ioExecutor).thenApply(batch::complete);
+    }
+    // Existing aliases are checked against the repository, which may block.
+    CompletableFuture<Batch> batch;
+    try {
+      batch = CompletableFuture.supplyAsync(() -> new Batch(email, requests), ioExecutor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return batch.thenCompose(collected -> urls.createUrlAliasesAsync(collected.urlAliases,
+        ioExecutor).thenApply(collected::complete));
+  }
+
+  /**
+   * Tells whether an existing alias can be reused instead of creating the requested one: a
+   * proposed alias or a time to live would not be respected by an existing alias.
+   */
+  private static boolean isReusable(@Nullable String alias, @Nullable Duration ttl) {
+    return (alias == null || alias.isEmpty()) && ttl == null;
+  }
+
+  /**
+   * Finds an alias of the user with the given full URL that never expires.
+   *
+   * @return the alias or <tt>null</tt> if there is no such alias
+   */
+  private @Nullable String findExistingAlias(String email, String destinationUrl) {
+    long key = DestinationIndex.key(email, destinationUrl);
+    String candidate = destinations.get(key);
+    if (candidate == null) {
+      return null;
+    }
+    if (matches(urls.findUrlAlias(candidate), email, destinationUrl)) {
+      return candidate;
+    }
+    // The alias was deleted, or it is another URL with a colliding key.
+    destinations.remove(key, candidate);
+    return null;
+  }
+
+  private static boolean matches(@Nullable UrlAlias urlAlias, String email, String destinationUrl) {
+    return urlAlias != null && urlAlias.expiresAt() == 0 && urlAlias.email().equals(email)
+        && urlAlias.destinationUrl().equals(destinationUrl);
+  }
+
+  private void indexDestination(UrlAlias urlAlias) {
+    // Only aliases that never expire are reused.
+    if (urlAlias.expiresAt() == 0) {
+      destinations.put(DestinationIndex.key(urlAlias.email(), urlAlias.destinationUrl()),
+          urlAlias.alias());
+    }
+  }
+
+  private static long expiresAt(@Nullable Duration ttl) throws InvalidTtl {
+    if (ttl == null) {
+      return 0;
+    }
+    // The upper bound keeps the expiry time far from an overflow.
+    if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(MAX_TTL) > 0) {
+      throw new InvalidTtl();
+    }
+    return System.currentTimeMillis() + ttl.toMillis();
+  }
+
+  private String resolveAlias(@Nullable String alias) throws AliasIsReserved {
+    if (alias == null || alias.isEmpty()) {
+      return aliasGenerator.nextAlias();
+    } else if (AliasGenerator.isReserved(alias)) {
+      throw new AliasIsReserved();
+    } else {
+      return alias;
+    }
   }
 
   /**
    * Get full URL by alias.
    *
    * @param alias a short URL alias
-   * @return a full URL
+   * @return a full URL, which is ready to be sent in the <tt>Location</tt> header as is
    */
   public String findFullUrl(String alias) {
     UrlAlias urlAlias = urls.findUrlAlias(alias);
 
     if (urlAlias != null) {
-      return urlAlias.destinationUrl();
+      return DestinationUrls.forLocationHeader(urlAlias.destinationUrl());
     }
 
     return null;
   }
 
+  /**
+   * Get complete information about the URL alias.
+   *
+   * @param alias a short URL alias
+   * @return the URL alias or <tt>null</tt> if there is no such alias
+   */
+  public @Nullable UrlAlias findAlias(String alias) {
+    return urls.findUrlAlias(alias);
+  }
+
+  /**
+   * Asynchronous variant of {@link #findAlias(String)}.
+   *
+   * @param alias a short URL alias
+   * @return a future of the URL alias, which is completed with <tt>null</tt> if there is no such
+   *     alias
+   */
+  public CompletableFuture<UrlAlias> findAliasAsync(String alias) {
+    return urls.findUrlAliasAsync(alias, ioExecutor);
+  }
+
+  /**
+   * Asynchronous variant of {@link #findFullUrl(String)}.
+   *
+   * @param alias a short URL alias
+   * @return a future of the full URL, which is completed with <tt>null</tt> if there is no such
+   *     alias
+   */
+  public CompletableFuture<String> findFullUrlAsync(String alias) {
+    return urls.findUrlAliasAsync(alias, ioExecutor).thenApply(urlAlias -> urlAlias == null
+        ? null
+        : DestinationUrls.forLocationHeader(urlAlias.destinationUrl()));
+  }
+
+  /**
+   * URL aliases of a batch shortening, collected before they are stored.
+   */
+  private class Batch {
+    private final ShortenResult[] results;
+    private final List<UrlAlias> urlAliases;
+    // Positions of the URL aliases among the requests.
+    private final int[] positions;
+    // Requests that reuse the alias created for an earlier request of the batch, mapped to the
+    // position of that request.
+    private final Map<Integer, Integer> reusedInBatch = new HashMap<>();
+
+    Batch(String email, List<ShortenRequest> requests) {
+      results = new ShortenResult[requests.size()];
+      urlAliases = new ArrayList<>(requests.size());
+      positions = new int[requests.size()];
+      Map<String, Integer> firstByDestination = new HashMap<>();
+      int reused = 0;
+      for (int i = 0; i < results.length; i++) {
+        ShortenRequest request = requests.get(i);
+        try {
+          String destinationUrl = DestinationUrls.normalize(request.url());
+          long expiresAt = expiresAt(request.ttl());
+          if (request.reuseExisting() && isReusable(request.alias(), request.ttl())) {
+            String existing = findExistingAlias(email, destinationUrl);
+            if (existing != null) {
+              results[i] = new ShortenResult(existing, null);
+              reused++;
+              continue;
+            }
+            Integer first = firstByDestination.putIfAbsent(destinationUrl, i);
+            if (first != null) {
+              reusedInBatch.put(i, first);
+              continue;
+            }
+          }
+          positions[urlAliases.size()] = i;
+          urlAliases.add(
+              new UrlAlias(resolveAlias(request.alias()), destinationUrl, email, expiresAt));
+        } catch (InvalidUrl | InvalidTtl | AliasIsReserved e) {
+          results[i] = new ShortenResult(null, e);
+        }
+      }
+      ALIAS_REUSES.increment(reused + reusedInBatch.size());
+    }
+
+    List<ShortenResult> complete(boolean[] created) {
+      int conflicts = 0;
+      for (int i = 0; i < created.length; i++) {
+        UrlAlias urlAlias = urlAliases.get(i);
+        if (created[i]) {
+          results[positions[i]] = new ShortenResult(urlAlias.alias(), null);
+          indexDestination(urlAlias);
+          aliasReset.accept(urlAlias.alias());
+        } else {
+          results[positions[i]] = new ShortenResult(null, new AliasAlreadyExist());
+          conflicts++;
+        }
+      }
+      reusedInBatch.forEach((position, first) -> results[position] = results[first]);
+      ALIAS_CONFLICTS.increment(conflicts);
+      return List.of(results);
+    }
+  }
+
   /**
    * Error for situation when we are trying to register already registered user.
    */
@@ -103,6 +555,68 @@ public class Logic {
     }
   }
 
+  /**
+   * Error for situation when a user proposes an alias that could be generated by the system.
+   */
+  public static class AliasIsReserved extends IllegalArgumentException {
+    public AliasIsReserved() {
+      super("Aliases starting with '" + AliasGenerator.PREFIX + "' are reserved");
+    }
+  }
+
+  /**
+   * Error for situation when a full URL is not a valid absolute HTTP(S) URL.
+   */
+  public static class InvalidUrl extends IllegalArgumentException {
+    public InvalidUrl() {
+      super("URL must be an absolute http or https URL");
+    }
+  }
+
+  /**
+   * Error for situation when a time to live of an alias is not positive.
+   */
+  public static class InvalidTtl extends IllegalArgumentException {
+    public InvalidTtl() {
+      super("Time to live must be positive and at most " + MAX_TTL.toDays() + " days");
+    }
+  }
+
+  /**
+   * A full URL with a proposed alias to shorten it to.
+   *
+   * @param url a full URL
+   * @param alias a proposed alias, a new one is generated if it is not provided
+   * @param ttl time to live of the alias, it never expires if the time is not provided
+   * @param reuseExisting whether to reuse an existing alias of the URL, see
+   *     {@link #createNewAlias(String, String, String, Duration, boolean)}
+   */
+  public record ShortenRequest(
+      String url, @Nullable String alias, @Nullable Duration ttl, boolean reuseExisting
+  ) {
+    /**
+     * Creates a request of a new alias that never expires.
+     */
+    public ShortenRequest(String url, @Nullable String alias) {
+      this(url, alias, null, false);
+    }
+
+    /**
+     * Creates a request of a new alias.
+     */
+    public ShortenRequest(String url, @Nullable String alias, @Nullable Duration ttl) {
+      this(url, alias, ttl, false);
+    }
+  }
+
+  /**
+   * A result of shortening of a single URL.
+   *
+   * @param alias the alias of the URL if it was shortened
+   * @param error the reason why the URL was not shortened otherwise
+   */
+  public record ShortenResult(@Nullable String alias, @Nullable RuntimeException error) {}
+
   /**
    * GetAllAliasesForUser wrapper. 
    *
@@ -112,6 +626,37 @@ public class Logic {
   public List<UrlAlias> getAllAliasesForUser(String userEmail) {
     return urls.getAllAliasesForUser(userEmail);
   }
+
+  /**
+   * Get a page of URL aliases of the user sorted by alias.
+   *
+   * @param userEmail user email
+   * @param after an alias to start after or <tt>null</tt> to get the first page
+   * @param limit maximal number of aliases in the page
+   * @return list of UrlAlias objects
+   */
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return urls.getAliasesForUser(userEmail, after, limit);
+  }
+
+  /**
+   * Iterates over URL aliases of the user sorted by alias, reading them as the iteration proceeds.
+   * The iteration blocks on the repository.
+   *
+   * @param userEmail user email
+   */
+  public Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    return urls.iterateAliasesForUser(userEmail);
+  }
+
+  /**
+   * Asynchronous variant of {@link #getAliasesForUser(String, String, int)}.
+   */
+  public CompletableFuture<List<UrlAlias>> getAliasesForUserAsync(
+      String userEmail, @Nullable String after, int limit
+  ) {
+    return urls.getAliasesForUserAsync(userEmail, after, limit, ioExecutor);
+  }
   
   /**
    * DeleteUrlAlias wrapper.
@@ -121,5 +666,14 @@ public class Logic {
    */
   public void deleteAlias(String email, String alias) {
     urls.deleteUrlAlias(email, alias);
+    aliasReset.accept(alias);
+  }
+
+  /**
+   * Asynchronous variant of {@link #deleteAlias(String, String)}.
+   */
+  public CompletableFuture<Void> deleteAliasAsync(String email, String alias) {
+    return urls.deleteUrlAliasAsync(email, alias, ioExecutor)
+      .thenRun(() -> aliasReset.accept(alias));
   }
 }
@@ -4,6 +4,259 @@ package edu.kpi.testcourse.logic;
  * Runtime server-side configuration for the URL shortener application.
  *
  * @param storageRoot Full path to the DB root directory.
+ * @param logCompactionThreshold Number of records in a repository log after which the log is
+ *     compacted into the repository snapshot.
+ * @param fsyncPolicy When repository writes are forced to the disk.
+ * @param fsyncIntervalMillis Period of forcing writes to the disk for
+ *     {@link FsyncPolicy#INTERVAL} policy.
+ * @param cacheMaximumEntries Maximal number of URL aliases kept in the lookup cache.
+ * @param cacheMaximumBytes Maximal approximate size of URL aliases kept in the lookup cache.
+ * @param unknownAliasFalsePositiveRate Desired share of lookups of unknown aliases that are not
+ *     rejected by the Bloom filter and go to the repository.
+ * @param snapshotShards Number of files a repository snapshot is split into, the files are loaded
+ *     in parallel on startup.
+ * @param snapshotFormat Format of repository snapshot files.
+ * @param repositoryPartitions Number of independent partitions of the partitioned URL repository,
+ *     each one is written under its own lock into its own files.
+ * @param clickStatsFlushIntervalMillis Period of writing clicks counted in memory into the click
+ *     statistics repository.
+ * @param repositoryBackend Storage engine of the repositories the server runs with.
+ * @param changeFeedCapacity Number of the latest URL alias changes kept for followers, a follower
+ *     that falls further behind bootstraps from a snapshot again.
  */
-public record UrlShortenerConfig(java.nio.file.Path storageRoot) {
+public record UrlShortenerConfig(
+    java.nio.file.Path storageRoot,
+    int logCompactionThreshold,
+    FsyncPolicy fsyncPolicy,
+    long fsyncIntervalMillis,
+    long cacheMaximumEntries,
+    long cacheMaximumBytes,
+    double unknownAliasFalsePositiveRate,
+    int snapshotShards,
+    SnapshotFormat snapshotFormat,
+    int repositoryPartitions,
+    long clickStatsFlushIntervalMillis,
+    RepositoryBackend repositoryBackend,
+    int changeFeedCapacity
+) {
+
+  /**
+   * Creates a configuration with default tuning parameters.
+   *
+   * @param storageRoot Full path to the DB root directory.
+   */
+  public UrlShortenerConfig(java.nio.file.Path storageRoot) {
+    this(storageRoot, 10_000, FsyncPolicy.ALWAYS, 1000, 100_000, 64L * 1024 * 1024, 0.01, 1,
+        SnapshotFormat.JSON, 16, 1000, RepositoryBackend.MEMORY, 100_000);
+  }
+
+  /**
+   * Creates a builder of a configuration with default tuning parameters.
+   *
+   * @param storageRoot Full path to the DB root directory.
+   */
+  public static Builder builder(java.nio.file.Path storageRoot) {
+    return new UrlShortenerConfig(storageRoot).toBuilder();
+  }
+
+  /**
+   * Creates a builder of a copy of the configuration, the parameters that are not set on the
+   * builder are kept.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
+  }
+
+  /**
+   * Builder of {@link UrlShortenerConfig}.
+   */
+  public static final class Builder {
+    private java.nio.file.Path storageRoot;
+    private int logCompactionThreshold;
+    private FsyncPolicy fsyncPolicy;
+    private long fsyncIntervalMillis;
+    private long cacheMaximumEntries;
+    private long cacheMaximumBytes;
+    private double unknownAliasFalsePositiveRate;
+    private int snapshotShards;
+    private SnapshotFormat snapshotFormat;
+    private int repositoryPartitions;
+    private long clickStatsFlushIntervalMillis;
+    private RepositoryBackend repositoryBackend;
+    private int changeFeedCapacity;
+
+    private Builder(UrlShortenerConfig config) {
+      storageRoot = config.storageRoot;
+      logCompactionThreshold = config.logCompactionThreshold;
+      fsyncPolicy = config.fsyncPolicy;
+      fsyncIntervalMillis = config.fsyncIntervalMillis;
+      cacheMaximumEntries = config.cacheMaximumEntries;
+      cacheMaximumBytes = config.cacheMaximumBytes;
+      unknownAliasFalsePositiveRate = config.unknownAliasFalsePositiveRate;
+      snapshotShards = config.snapshotShards;
+      snapshotFormat = config.snapshotFormat;
+      repositoryPartitions = config.repositoryPartitions;
+      clickStatsFlushIntervalMillis = config.clickStatsFlushIntervalMillis;
+      repositoryBackend = config.repositoryBackend;
+      changeFeedCapacity = config.changeFeedCapacity;
+    }
+
+    /**
+     * Sets the DB root directory.
+     */
+    public Builder storageRoot(java.nio.file.Path storageRoot) {
+      this.storageRoot = storageRoot;
+      return this;
+    }
+
+    /**
+     * Sets the log compaction threshold.
+     */
+    public Builder logCompactionThreshold(int logCompactionThreshold) {
+      this.logCompactionThreshold = logCompactionThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the fsync policy.
+     */
+    public Builder fsyncPolicy(FsyncPolicy fsyncPolicy) {
+      this.fsyncPolicy = fsyncPolicy;
+      return this;
+    }
+
+    /**
+     * Sets the period of forcing writes for the interval fsync policy.
+     */
+    public Builder fsyncIntervalMillis(long fsyncIntervalMillis) {
+      this.fsyncIntervalMillis = fsyncIntervalMillis;
+      return this;
+    }
+
+    /**
+     * Sets the maximal number of aliases in the lookup cache.
+     */
+    public Builder cacheMaximumEntries(long cacheMaximumEntries) {
+      this.cacheMaximumEntries = cacheMaximumEntries;
+      return this;
+    }
+
+    /**
+     * Sets the maximal approximate size of aliases in the lookup cache.
+     */
+    public Builder cacheMaximumBytes(long cacheMaximumBytes) {
+      this.cacheMaximumBytes = cacheMaximumBytes;
+      return this;
+    }
+
+    /**
+     * Sets the false positive rate of the unknown alias filter.
+     */
+    public Builder unknownAliasFalsePositiveRate(double unknownAliasFalsePositiveRate) {
+      this.unknownAliasFalsePositiveRate = unknownAliasFalsePositiveRate;
+      return this;
+    }
+
+    /**
+     * Sets the number of repository snapshot files.
+     */
+    public Builder snapshotShards(int snapshotShards) {
+      this.snapshotShards = snapshotShards;
+      return this;
+    }
+
+    /**
+     * Sets the format of repository snapshots.
+     */
+    public Builder snapshotFormat(SnapshotFormat snapshotFormat) {
+      this.snapshotFormat = snapshotFormat;
+      return this;
+    }
+
+    /**
+     * Sets the number of URL repository partitions.
+     */
+    public Builder repositoryPartitions(int repositoryPartitions) {
+      this.repositoryPartitions = repositoryPartitions;
+      return this;
+    }
+
+    /**
+     * Sets the period of click statistics flushes.
+     */
+    public Builder clickStatsFlushIntervalMillis(long clickStatsFlushIntervalMillis) {
+      this.clickStatsFlushIntervalMillis = clickStatsFlushIntervalMillis;
+      return this;
+    }
+
+    /**
+     * Sets the storage engine.
+     */
+    public Builder repositoryBackend(RepositoryBackend repositoryBackend) {
+      this.repositoryBackend = repositoryBackend;
+      return this;
+    }
+
+    /**
+     * Sets the number of changes kept for followers.
+     */
+    public Builder changeFeedCapacity(int changeFeedCapacity) {
+      this.changeFeedCapacity = changeFeedCapacity;
+      return this;
+    }
+
+    /**
+     * Creates the configuration.
+     */
+    public UrlShortenerConfig build() {
+      return new UrlShortenerConfig(storageRoot, logCompactionThreshold, fsyncPolicy,
+          fsyncIntervalMillis, cacheMaximumEntries, cacheMaximumBytes,
+          unknownAliasFalsePositiveRate, snapshotShards, snapshotFormat, repositoryPartitions,
+          clickStatsFlushIntervalMillis, repositoryBackend, changeFeedCapacity);
+    }
+  }
+
+  /**
+   * Defines when repository writes are forced to the disk (fsync).
+   */
+  public enum FsyncPolicy {
+    /** Every batch of writes is forced before the writers return. */
+    ALWAYS,
+    /** Writes are forced in background every fsyncIntervalMillis milliseconds. */
+    INTERVAL,
+    /** Writes are never forced explicitly, the operating system decides when to flush them. */
+    OS
+  }
+
+  /**
+   * Defines how repository snapshots are stored. Snapshots of any format are read on startup, so
+   * the format can be switched without converting the files.
+   */
+  public enum SnapshotFormat {
+    /** JSON objects, human-readable. */
+    JSON,
+    /** Binary records, much smaller and faster to load. */
+    BINARY,
+    /** Binary records compressed block by block. */
+    COMPRESSED_BINARY
+  }
+
+  /**
+   * Defines where the server keeps users, URL aliases and click statistics.
+   */
+  public enum RepositoryBackend {
+    /** Concurrent maps in memory, everything is lost on restart. */
+    MEMORY,
+    /** Snapshot and log files in the storage root. */
+    FILE,
+    /** Like {@link #FILE}, but URL aliases are split into independent partitions. */
+    PARTITIONED,
+    /** Like {@link #FILE}, but URL aliases are kept off-heap in memory-mapped files. */
+    MAPPED,
+    /**
+     * URL aliases are replicated from a leader instance through its change feed and can't be
+     * changed here, users and click statistics are kept in memory.
+     */
+    FOLLOWER
+  }
 }
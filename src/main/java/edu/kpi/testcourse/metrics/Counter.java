@@ -0,0 +1,37 @@
+package edu.kpi.testcourse.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count of events.
+ *
+ * <p>Increments are lock-free and contend only under heavy load, when the count is spread over
+ * several cells (see {@link LongAdder}).
+ */
+public class Counter {
+  private final LongAdder count = new LongAdder();
+
+  Counter() {
+  }
+
+  /**
+   * Counts a single event.
+   */
+  public void increment() {
+    count.increment();
+  }
+
+  /**
+   * Counts the given number of events.
+   */
+  public void increment(long events) {
+    count.add(events);
+  }
+
+  /**
+   * Returns the number of events counted so far.
+   */
+  public long count() {
+    return count.sum();
+  }
+}
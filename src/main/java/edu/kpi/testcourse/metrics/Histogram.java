@@ -0,0 +1,147 @@
+package edu.kpi.testcourse.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A distribution of non-negative values, e.g. latencies in nanoseconds or sizes in bytes.
+ *
+ * <p>Values are counted in log-linear buckets, like in HdrHistogram: every power of two range is
+ * split into {@link #SUB_BUCKETS} equal buckets, so a value is known with a relative error of at
+ * most 1/{@value #SUB_BUCKETS} whatever its magnitude. Recording a value is a few bit operations
+ * and a single atomic increment, without any locks or allocations.
+ *
+ * <p>Prometheus gets cumulative counts at powers of two between the configured bounds, they are
+ * exact, because the buckets never cross powers of two.
+ */
+public class Histogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final double unit;
+  private final int minExportedExponent;
+  private final int maxExportedExponent;
+
+  /**
+   * Creates an instance.
+   *
+   * @param unit a multiplier that converts recorded values into exported ones
+   * @param minExportedExponent the power of two of the least exported bucket bound
+   * @param maxExportedExponent the power of two of the greatest exported bucket bound
+   */
+  Histogram(double unit, int minExportedExponent, int maxExportedExponent) {
+    this.unit = unit;
+    this.minExportedExponent = minExportedExponent;
+    this.maxExportedExponent = maxExportedExponent;
+  }
+
+  /**
+   * Records a value, negative values are recorded as zeroes.
+   */
+  public void record(long value) {
+    long recorded = Math.max(0, value);
+    buckets.incrementAndGet(bucketIndex(recorded));
+    count.increment();
+    sum.add(recorded);
+  }
+
+  /**
+   * Records the time elapsed since the given {@link System#nanoTime()}.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Returns the number of recorded values.
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the sum of recorded values in recorded units.
+   */
+  public long sum() {
+    return sum.sum();
+  }
+
+  /**
+   * Estimates the value at the given percentile, in recorded units.
+   *
+   * @param percentile a number between 0 and 100
+   * @return the middle of the bucket that contains the percentile, 0 if nothing was recorded
+   */
+  public long valueAtPercentile(double percentile) {
+    long total = 0;
+    long[] counts = new long[buckets.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return bucketLowerBound(i) + (bucketWidth(i) - 1) / 2;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Writes the histogram as a Prometheus histogram series.
+   *
+   * @param name a name of the metric
+   * @param labels labels of the series, formatted as <tt>a="b",c="d"</tt>, or an empty string
+   */
+  void writeTo(StringBuilder out, String name, String labels) {
+    String separator = labels.isEmpty() ? "" : ",";
+    long cumulative = 0;
+    int index = 0;
+    for (int exponent = minExportedExponent; exponent <= maxExportedExponent; exponent++) {
+      // Buckets below the bound hold values less than 2^exponent.
+      int end = bucketIndex(1L << exponent);
+      for (; index < end; index++) {
+        cumulative += buckets.get(index);
+      }
+      out.append(name).append("_bucket{").append(labels).append(separator)
+          .append("le=\"").append(MetricsRegistry.format((1L << exponent) * unit)).append("\"} ")
+          .append(cumulative).append('\n');
+    }
+    // Read the count after the buckets, so that it is never less than the last bucket.
+    long total = Math.max(count(), cumulative);
+    out.append(name).append("_bucket{").append(labels).append(separator)
+        .append("le=\"+Inf\"} ").append(total).append('\n');
+    out.append(name).append("_sum").append(MetricsRegistry.braced(labels)).append(' ')
+        .append(MetricsRegistry.format(sum() * unit)).append('\n');
+    out.append(name).append("_count").append(MetricsRegistry.braced(labels)).append(' ')
+        .append(total).append('\n');
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+  }
+
+  private static long bucketWidth(int index) {
+    return index < SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+  }
+}
@@ -0,0 +1,179 @@
+package edu.kpi.testcourse.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A set of named metrics, which is exported in the Prometheus text format.
+ *
+ * <p>Metrics are looked up once, usually into static fields of the instrumented classes, and then
+ * updated without touching the registry. Asking for a metric with the same name and labels twice
+ * returns the same metric. A gauge registered again replaces the previous one, so it always
+ * reports the latest instance of the measured object.
+ *
+ * <p>Metric names and label values are taken as is, they must be valid in Prometheus.
+ */
+public class MetricsRegistry {
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+  private final ConcurrentHashMap<String, Family> families = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the registry the application metrics are registered in.
+   */
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * Returns a counter.
+   *
+   * @param name a name of the metric, it should end with <tt>_total</tt>
+   * @param help a description of the metric
+   * @param labels label names and values, alternating
+   */
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) family(name, help, Type.COUNTER)
+        .series.computeIfAbsent(formatLabels(labels), key -> new Counter());
+  }
+
+  /**
+   * Registers a counter that is maintained elsewhere, e.g. by a data structure that keeps its own
+   * statistics. It replaces the previous one with the same name and labels.
+   *
+   * @param name a name of the metric, it should end with <tt>_total</tt>
+   * @param help a description of the metric
+   * @param value a supplier of the count, it is called on every export, so it must be cheap
+   * @param labels label names and values, alternating
+   */
+  public void counter(String name, String help, DoubleSupplier value, String... labels) {
+    family(name, help, Type.COUNTER).series.put(formatLabels(labels), value);
+  }
+
+  /**
+   * Returns a histogram of durations, which are recorded in nanoseconds and exported in seconds
+   * (from a microsecond to a minute).
+   *
+   * @param name a name of the metric, it should end with <tt>_seconds</tt>
+   * @param help a description of the metric
+   * @param labels label names and values, alternating
+   */
+  public Histogram timer(String name, String help, String... labels) {
+    return (Histogram) family(name, help, Type.HISTOGRAM)
+        .series.computeIfAbsent(formatLabels(labels), key -> new Histogram(1e-9, 10, 36));
+  }
+
+  /**
+   * Returns a histogram of sizes, which are recorded and exported in bytes (from 64 bytes to
+   * 1 GB).
+   *
+   * @param name a name of the metric, it should end with <tt>_bytes</tt>
+   * @param help a description of the metric
+   * @param labels label names and values, alternating
+   */
+  public Histogram sizes(String name, String help, String... labels) {
+    return (Histogram) family(name, help, Type.HISTOGRAM)
+        .series.computeIfAbsent(formatLabels(labels), key -> new Histogram(1, 6, 30));
+  }
+
+  /**
+   * Registers a gauge, which reports the value of the supplier at the moment of export.
+   *
+   * @param name a name of the metric
+   * @param help a description of the metric
+   * @param value a supplier of the value, it is called on every export, so it must be cheap
+   * @param labels label names and values, alternating
+   */
+  public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    family(name, help, Type.GAUGE).series.put(formatLabels(labels), value);
+  }
+
+  /**
+   * Exports all metrics in the Prometheus text format (version 0.0.4).
+   */
+  public String scrape() {
+    StringBuilder out = new StringBuilder();
+    for (Map.Entry<String, Family> entry : new TreeMap<>(families).entrySet()) {
+      String name = entry.getKey();
+      Family family = entry.getValue();
+      out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(name).append(' ').append(family.type.exported).append('\n');
+      for (Map.Entry<String, Object> series : new TreeMap<>(family.series).entrySet()) {
+        String labels = series.getKey();
+        switch (family.type) {
+          case COUNTER, GAUGE -> out.append(name).append(braced(labels)).append(' ')
+              .append(format(valueOf(series.getValue()))).append('\n');
+          case HISTOGRAM -> ((Histogram) series.getValue()).writeTo(out, name, labels);
+          default -> throw new IllegalStateException("Unknown metric type: " + family.type);
+        }
+      }
+    }
+    return out.toString();
+  }
+
+  private static double valueOf(Object metric) {
+    return metric instanceof Counter counter
+        ? counter.count()
+        : ((DoubleSupplier) metric).getAsDouble();
+  }
+
+  static String format(double value) {
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  private Family family(String name, String help, Type type) {
+    Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+    if (family.type != type) {
+      throw new IllegalArgumentException(
+          "Metric " + name + " is already registered as a " + family.type.exported);
+    }
+    return family;
+  }
+
+  private static String formatLabels(String... labels) {
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name and value pairs");
+    }
+    StringBuilder formatted = new StringBuilder();
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        formatted.append(',');
+      }
+      formatted.append(labels[i]).append("=\"").append(labels[i + 1]).append('"');
+    }
+    return formatted.toString();
+  }
+
+  static String braced(String labels) {
+    return labels.isEmpty() ? "" : "{" + labels + "}";
+  }
+
+  private enum Type {
+    COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+    private final String exported;
+
+    Type(String exported) {
+      this.exported = exported;
+    }
+  }
+
+  /**
+   * Series of a metric with the same name, keyed by labels.
+   */
+  private static class Family {
+    private final String help;
+    private final Type type;
+    private final ConcurrentHashMap<String, Object> series = new ConcurrentHashMap<>();
+
+    Family(String help, Type type) {
+      this.help = help;
+      this.type = type;
+    }
+  }
+}
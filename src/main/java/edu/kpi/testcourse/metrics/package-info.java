@@ -0,0 +1,5 @@
+/**
+ * This package contains the metrics subsystem: counters, histograms and gauges of the hot paths,
+ * exported in the Prometheus text format.
+ */
+package edu.kpi.testcourse.metrics;
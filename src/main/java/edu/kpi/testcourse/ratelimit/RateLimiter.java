@@ -0,0 +1,108 @@
+package edu.kpi.testcourse.ratelimit;
+
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Token-bucket rate limits of clients, like users or IP addresses.
+ *
+ * <p>Every client has a bucket of <tt>burst</tt> tokens, which refills at the given rate, and a
+ * request takes a token. A bucket is kept as a single number: the time when it is full again
+ * (the generic cell rate algorithm), so it is changed with a single compare-and-set and the
+ * limiter takes no locks.
+ *
+ * <p>Buckets are kept in a fixed-size open-addressing table, a client may only be in one of
+ * {@link #PROBES} slots next to its home slot. A new client takes an empty slot, or the slot of
+ * an idle client, whose bucket is full and so can be dropped without changing anything. If all the
+ * slots are busy, the bucket that is the closest to full is evicted, and its client starts with a
+ * full bucket on the next request. Thus the memory is bounded, and with enough slots for all the
+ * active clients the limits are exact.
+ */
+public class RateLimiter {
+  private static final int PROBES = 8;
+  private static final Counter EVICTIONS = MetricsRegistry.global().counter(
+      "rate_limiter_evictions_total", "Busy token buckets evicted to make room for new clients");
+
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final AtomicReferenceArray<Bucket> buckets;
+  private final int mask;
+
+  /**
+   * Creates a limiter.
+   *
+   * @param permitsPerSecond rate at which buckets refill
+   * @param burst number of tokens of a full bucket
+   * @param maxClients number of buckets kept in the table, rounded up to a power of two
+   */
+  public RateLimiter(double permitsPerSecond, int burst, int maxClients) {
+    if (permitsPerSecond <= 0 || burst < 1 || maxClients < 1) {
+      throw new IllegalArgumentException("Invalid rate limit");
+    }
+    this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    this.toleranceNanos = (burst - 1) * intervalNanos;
+    int capacity = Integer.highestOneBit(Math.max(PROBES, maxClients) - 1) << 1;
+    this.buckets = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Takes a token from the bucket of the client.
+   *
+   * @return <tt>0</tt> if the token was taken, otherwise nanoseconds until the bucket has one
+   */
+  public long tryAcquire(String client) {
+    return tryAcquire(client, System.nanoTime());
+  }
+
+  long tryAcquire(String client, long now) {
+    int h = client.hashCode() * 0x9E3779B9;
+    int home = (h ^ (h >>> 16)) & mask;
+    retry:
+    while (true) {
+      int victim = -1;
+      Bucket victimBucket = null;
+      for (int i = 0; i < PROBES; i++) {
+        int slot = (home + i) & mask;
+        Bucket bucket = buckets.get(slot);
+        if (bucket != null && bucket.client().equals(client)) {
+          long fullAt = Math.max(bucket.fullAt(), now);
+          long wait = fullAt - now - toleranceNanos;
+          if (wait > 0) {
+            return wait;
+          }
+          if (buckets.compareAndSet(slot, bucket, new Bucket(client, fullAt + intervalNanos))) {
+            return 0;
+          }
+          continue retry;
+        }
+        // Slots are never emptied, so the client can't be in a slot after an empty one.
+        if (bucket == null) {
+          victim = slot;
+          victimBucket = null;
+          break;
+        }
+        if (victim == -1 || bucket.fullAt() - victimBucket.fullAt() < 0) {
+          victim = slot;
+          victimBucket = bucket;
+        }
+      }
+
+      // A new bucket is full, the request takes one of its tokens.
+      if (buckets.compareAndSet(victim, victimBucket, new Bucket(client, now + intervalNanos))) {
+        if (victimBucket != null && victimBucket.fullAt() - now > 0) {
+          EVICTIONS.increment();
+        }
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * A bucket of a client, which is full at the given time of {@link System#nanoTime()}. Buckets
+   * are immutable, a change replaces the whole bucket.
+   */
+  private record Bucket(String client, long fullAt) {}
+}
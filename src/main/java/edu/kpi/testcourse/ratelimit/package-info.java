@@ -0,0 +1,5 @@
+/**
+ * This package contains rate limiting: token buckets of clients of the expensive endpoints, kept
+ * in a bounded lock-free table.
+ */
+package edu.kpi.testcourse.ratelimit;
@@ -1,45 +1,79 @@
 package edu.kpi.testcourse.rest;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.JsonObject;
-import com.nimbusds.jose.shaded.json.JSONObject;
+import com.google.gson.reflect.TypeToken;
+import edu.kpi.testcourse.BeanFactory;
+import edu.kpi.testcourse.analytics.ClickAnalytics;
+import edu.kpi.testcourse.entities.ClickStats;
 import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.Futures;
 import edu.kpi.testcourse.logic.Logic;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import edu.kpi.testcourse.rest.models.BatchShortenResponse;
+import edu.kpi.testcourse.rest.models.ClickStatsResponse;
 import edu.kpi.testcourse.rest.models.ErrorResponse;
+import edu.kpi.testcourse.rest.models.UrlListResponse;
 import edu.kpi.testcourse.rest.models.UrlShortenRequest;
 import edu.kpi.testcourse.rest.models.UrlShortenResponse;
 import edu.kpi.testcourse.serialization.JsonTool;
-import edu.kpi.testcourse.storage.UrlRepository;
 import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
-import edu.kpi.testcourse.storage.UrlRepository.PermissionDenied;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Delete;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.http.server.util.HttpHostResolver;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.rules.SecurityRule;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
+import javax.inject.Named;
 
 /**
  * API controller for all REST API endpoints that require authentication.
+ *
+ * <p>Repository work is done off the event loop, the endpoints respond when it is finished.
+ *
+ * <p>On a read-only follower, the endpoints that change aliases respond with
+ * <tt>503 Service Unavailable</tt>: aliases are changed through the leader.
  */
 @Secured(SecurityRule.IS_AUTHENTICATED)
 @Controller
 public class AuthenticatedApiController {
 
+  private static final int DEFAULT_PAGE_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final int MAX_BATCH_SIZE = 100_000;
+  private static final String NDJSON = "application/x-ndjson";
+  private static final Histogram SHORTEN_SECONDS = MetricsRegistry.global().timer(
+      "http_shorten_seconds", "Latency of URL shortening", "kind", "single");
+  private static final Histogram BATCH_SHORTEN_SECONDS = MetricsRegistry.global().timer(
+      "http_shorten_seconds", "Latency of URL shortening", "kind", "batch");
+
   private final Logic logic;
   private final JsonTool json;
   private final HttpHostResolver httpHostResolver;
-
+  private final ClickAnalytics clickAnalytics;
+  private final Scheduler ioScheduler;
 
   /**
    * Main constructor.
@@ -47,78 +81,278 @@ public class AuthenticatedApiController {
    * @param logic the business logic module
    * @param json JSON serialization tool
    * @param httpHostResolver micronaut httpHostResolver
+   * @param clickAnalytics a source of click statistics
+   * @param ioExecutor an executor for blocking repository work
    */
   @Inject
   public AuthenticatedApiController(
       Logic logic,
       JsonTool json,
-      HttpHostResolver httpHostResolver) {
+      HttpHostResolver httpHostResolver,
+      ClickAnalytics clickAnalytics,
+      @Named(BeanFactory.REPOSITORY_IO_EXECUTOR) ExecutorService ioExecutor) {
     this.logic = logic;
     this.json = json;
     this.httpHostResolver = httpHostResolver;
+    this.clickAnalytics = clickAnalytics;
+    this.ioScheduler = Schedulers.from(ioExecutor);
   }
 
   /**
-   * Create URL alias.
+   * Create URL alias, which expires after the optional time to live. If the request asks to reuse
+   * existing aliases, an alias the user already has for the URL may be returned instead.
+   *
+   * <p>The alias is stored off the event loop, the response is sent when it is persisted.
    */
   @Post(value = "/urls/shorten", processes = MediaType.APPLICATION_JSON)
-  public HttpResponse<String> shorten(
+  public CompletableFuture<HttpResponse<String>> shorten(
       @Body UrlShortenRequest request,
       Principal principal,
       HttpRequest<?> httpRequest
-  ) throws JsonProcessingException {
+  ) {
+    long start = System.nanoTime();
     String email = principal.getName();
+    String baseUrl = httpHostResolver.resolve(httpRequest);
+    return logic.createNewAliasAsync(email, request.url(), request.alias(), request.ttlDuration(),
+        request.shouldReuseExisting())
+      .<HttpResponse<String>>handle((alias, error) -> {
+        SHORTEN_SECONDS.recordSince(start);
+        if (error == null) {
+          return HttpResponse.created(
+            json.toJson(new UrlShortenResponse(baseUrl + "/r/" + alias)));
+        }
+        Throwable cause = Futures.unwrap(error);
+        if (cause instanceof AliasAlreadyExist || cause instanceof Logic.AliasIsReserved) {
+          return HttpResponse.serverError(json.toJson(toErrorResponse((RuntimeException) cause)));
+        } else if (cause instanceof Logic.InvalidUrl || cause instanceof Logic.InvalidTtl) {
+          return HttpResponse.badRequest(json.toJson(toErrorResponse((RuntimeException) cause)));
+        } else if (cause instanceof RejectedExecutionException
+            || cause instanceof UnsupportedOperationException) {
+          // The I/O executor is overloaded, or this instance is a read-only follower.
+          return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        throw new CompletionException(cause);
+      });
+  }
+
+  /**
+   * Create many URL aliases at once.
+   *
+   * <p>The body is either a JSON array of shorten requests or NDJSON (one shorten request per
+   * line). All aliases are stored with a single repository write, and the response contains a
+   * result for every request in the same order.
+   */
+  @Post(value = "/urls/shorten/batch", consumes = {MediaType.APPLICATION_JSON, NDJSON},
+      produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> shortenBatch(
+      @Body String body,
+      Principal principal,
+      HttpRequest<?> httpRequest
+  ) {
+    long start = System.nanoTime();
+    List<UrlShortenRequest> requests;
     try {
-      String baseUrl = httpHostResolver.resolve(httpRequest);
-      var shortenedUrl = baseUrl + "/r/"
-          + logic.createNewAlias(email, request.url(), request.alias());
-      return HttpResponse.created(
-        json.toJson(new UrlShortenResponse(shortenedUrl)));
-    } catch (AliasAlreadyExist e) {
-      return HttpResponse.serverError(
-        json.toJson(new ErrorResponse(1, "Alias is already taken"))
-      );
+      requests = parseBatch(body, httpRequest.getContentType()
+          .map(MediaType::getName)
+          .orElse(MediaType.APPLICATION_JSON));
+    } catch (JsonTool.JsonParsingError e) {
+      return CompletableFuture.completedFuture(
+        HttpResponse.badRequest(json.toJson(new ErrorResponse(3, "Invalid batch"))));
+    }
+    if (requests.size() > MAX_BATCH_SIZE) {
+      return CompletableFuture.completedFuture(
+        HttpResponse.badRequest(json.toJson(new ErrorResponse(3,
+          "Batch must contain at most " + MAX_BATCH_SIZE + " URLs"))));
+    }
+
+    List<Logic.ShortenRequest> shortenRequests = new ArrayList<>(requests.size());
+    for (UrlShortenRequest request : requests) {
+      shortenRequests.add(new Logic.ShortenRequest(request.url(), request.alias(),
+          request.ttlDuration(), request.shouldReuseExisting()));
     }
+
+    String baseUrl = httpHostResolver.resolve(httpRequest) + "/r/";
+    return logic.createNewAliasesAsync(principal.getName(), shortenRequests)
+      .<HttpResponse<String>>handle((results, error) -> {
+        BATCH_SHORTEN_SECONDS.recordSince(start);
+        if (error != null) {
+          Throwable cause = Futures.unwrap(error);
+          if (cause instanceof RejectedExecutionException
+              || cause instanceof UnsupportedOperationException) {
+            return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+          }
+          throw new CompletionException(cause);
+        }
+        List<BatchShortenResponse> responses = new ArrayList<>(results.size());
+        for (Logic.ShortenResult result : results) {
+          responses.add(result.error() == null
+              ? new BatchShortenResponse(baseUrl + result.alias(), null)
+              : new BatchShortenResponse(null, toErrorResponse(result.error())));
+        }
+        return HttpResponse.ok(json.toJson(responses));
+      });
   }
 
   /**
-  * Get all Url aliases which belongs to username.
-  */
-  @Get(value = "/urls", processes = MediaType.APPLICATION_JSON)
-  public HttpResponse<String> getAll(
-      @Body UrlShortenRequest request,
-      Principal principal,
-      HttpRequest<?> httpRequest,
-      Logic logic) throws UrlRepository.PermissionDenied {
+   * Get a page of Url aliases which belong to the user, sorted by alias.
+   *
+   * @param limit maximal number of aliases in the page, 100 by default
+   * @param cursor the cursor returned with the previous page, the first page is returned without it
+   * @param principal to get name as an email of the user
+   */
+  @Get(value = "/urls{?limit,cursor}", produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> getAll(
+      @QueryValue @Nullable Integer limit,
+      @QueryValue @Nullable String cursor,
+      Principal principal) {
+    int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      return CompletableFuture.completedFuture(
+        HttpResponse.badRequest(json.toJson(new ErrorResponse(3,
+          "Limit must be between 1 and " + MAX_PAGE_SIZE))));
+    }
+    String after;
     try {
-      var aliasList = logic.getAllAliasesForUser(principal.getName());
-      JSONObject result = new JSONObject();
-      result.put("urls", aliasList);
-      return HttpResponse.ok(result.toJSONString());
-    } catch (UrlRepository.PermissionDenied e) {
-      return HttpResponse.serverError(
-        json.toJson(new ErrorResponse(1, "User is not authorized"))
-      );
+      after = cursor == null ? null : decodeCursor(cursor);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.completedFuture(
+        HttpResponse.badRequest(json.toJson(new ErrorResponse(3, "Invalid cursor"))));
     }
+
+    // One extra alias tells whether there is a next page.
+    return logic.getAliasesForUserAsync(principal.getName(), after, pageSize + 1)
+      .<HttpResponse<String>>handle((page, error) -> {
+        if (error != null) {
+          Throwable cause = Futures.unwrap(error);
+          if (cause instanceof RejectedExecutionException) {
+            return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+          }
+          throw new CompletionException(cause);
+        }
+        String nextCursor = null;
+        if (page.size() > pageSize) {
+          page = page.subList(0, pageSize);
+          nextCursor = encodeCursor(page.get(pageSize - 1).alias());
+        }
+        return HttpResponse.ok(json.toJson(new UrlListResponse(page, nextCursor)));
+      });
+  }
+
+  /**
+   * Get all Url aliases which belong to the user as a JSON array, sorted by alias.
+   *
+   * <p>The array is written to the response incrementally: aliases are read from the repository
+   * as the client consumes them, so the whole list is never held in memory. They are read by the
+   * I/O executor.
+   *
+   * @param principal to get name as an email of the user
+   */
+  @Get(value = "/urls/stream", produces = MediaType.APPLICATION_JSON)
+  public Flowable<UrlAlias> streamAll(Principal principal) {
+    String email = principal.getName();
+    return Flowable.<UrlAlias>fromIterable(() -> logic.iterateAliasesForUser(email))
+      .subscribeOn(ioScheduler);
+  }
+
+  /**
+   * Get click statistics of an alias of the user.
+   *
+   * <p>Clicks are aggregated in memory, so reading them neither blocks nor slows down redirects.
+   * The alias is looked up off the event loop.
+   *
+   * <p>Every instance counts the redirects it serves. In a cluster, the statistics cover only the
+   * redirects served by the member that answers this request, not those of the whole cluster.
+   *
+   * @param alias a short URL alias
+   * @param principal to get name as an email of the user
+   */
+  @Get(value = "/urls/{alias}/stats", produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> stats(String alias, Principal principal) {
+    String email = principal.getName();
+    return logic.findAliasAsync(alias).<HttpResponse<String>>handle((urlAlias, error) -> {
+      if (error != null) {
+        Throwable cause = Futures.unwrap(error);
+        if (cause instanceof RejectedExecutionException) {
+          return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        throw new CompletionException(cause);
+      }
+      if (urlAlias == null || !urlAlias.email().equals(email)) {
+        return HttpResponse.notFound(json.toJson(new ErrorResponse(1,
+          "Alias was not found among created by the user")));
+      }
+      ClickStats stats = clickAnalytics.stats(alias);
+      String lastAccess = stats.lastAccess() == 0
+          ? null
+          : Instant.ofEpochMilli(stats.lastAccess()).toString();
+      return HttpResponse.ok(
+        json.toJson(new ClickStatsResponse(alias, stats.clicks(), lastAccess)));
+    });
   }
 
   /**
    * Deletes alias via requested link.
    *
-   * @param request to get alias from request
+   * @param alias a short URL alias
    * @param principal to get name as an email for delete function
-   * @throws IllegalArgumentException if there is no such alias
    */
   @Delete(value = "/urls/{alias}")
-  public HttpResponse<?> delete(@Body UrlShortenRequest request,
-                                Principal principal,
-                                Logic logic) throws IllegalArgumentException {
-    try {
-      logic.deleteAlias(request.alias(), principal.getName());
-      return HttpResponse.noContent();
-    } catch (IllegalArgumentException e) {
-      return HttpResponse.serverError(json.toJson(new ErrorResponse(1,
-        "Alias was not found among created by the user")));
+  public CompletableFuture<HttpResponse<String>> delete(String alias, Principal principal) {
+    return logic.deleteAliasAsync(principal.getName(), alias)
+      .<HttpResponse<String>>handle((deleted, error) -> {
+        if (error == null) {
+          return HttpResponse.noContent();
+        }
+        Throwable cause = Futures.unwrap(error);
+        if (cause instanceof RejectedExecutionException
+            || cause instanceof UnsupportedOperationException) {
+          // The I/O executor is overloaded, or this instance is a read-only follower.
+          return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+        } else if (cause instanceof IllegalArgumentException) {
+          return HttpResponse.serverError(json.toJson(new ErrorResponse(1,
+            "Alias was not found among created by the user")));
+        }
+        throw new CompletionException(cause);
+      });
+  }
+
+  private static String encodeCursor(String alias) {
+    return Base64.getUrlEncoder().withoutPadding()
+      .encodeToString(alias.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decodeCursor(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
+
+  private List<UrlShortenRequest> parseBatch(String body, String contentType) {
+    if (!contentType.equals(NDJSON)) {
+      List<UrlShortenRequest> requests =
+          json.fromJson(body, new TypeToken<List<UrlShortenRequest>>(){}.getType());
+      return requests == null ? List.of() : requests;
+    }
+    List<UrlShortenRequest> requests = new ArrayList<>();
+    body.lines()
+      .filter(line -> !line.isBlank())
+      .forEach(line -> requests.add(json.fromJson(line, UrlShortenRequest.class)));
+    return requests;
+  }
+
+  /**
+   * Describes a shortening error the same way for single and batch requests: <tt>1</tt> - the
+   * alias is taken, <tt>2</tt> - the alias is reserved, <tt>4</tt> - the URL is invalid,
+   * <tt>5</tt> - the time to live is invalid. Code <tt>3</tt> is for malformed requests.
+   */
+  private static ErrorResponse toErrorResponse(RuntimeException error) {
+    if (error instanceof AliasAlreadyExist) {
+      return new ErrorResponse(1, "Alias is already taken");
+    } else if (error instanceof Logic.AliasIsReserved) {
+      return new ErrorResponse(2, error.getMessage());
+    } else if (error instanceof Logic.InvalidUrl) {
+      return new ErrorResponse(4, error.getMessage());
+    } else if (error instanceof Logic.InvalidTtl) {
+      return new ErrorResponse(5, error.getMessage());
     }
+    throw new IllegalArgumentException("Not a shortening error", error);
   }
 }
@@ -1,5 +1,6 @@
 package edu.kpi.testcourse.rest;
 
+import edu.kpi.testcourse.BeanFactory;
 import edu.kpi.testcourse.logic.Logic;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import io.micronaut.http.HttpRequest;
@@ -12,22 +13,32 @@ import io.micronaut.security.authentication.UserDetails;
 import io.reactivex.BackpressureStrategy;
 import io.reactivex.Flowable;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 import org.reactivestreams.Publisher;
 
 /**
  * Micronaut authentication bean that contains authorization logic: ensures that a user is
  * registered in the system and password is right.
+ *
+ * <p>Password checks are done on a dedicated bounded executor, not on the event loop.
  */
 @Singleton
 public class AuthenticationProviderUserPassword implements AuthenticationProvider {
 
   private final Logic logic;
+  private final ExecutorService passwordHashingExecutor;
 
   @Inject
-  public AuthenticationProviderUserPassword(Logic logic) {
+  public AuthenticationProviderUserPassword(
+      Logic logic,
+      @Named(BeanFactory.PASSWORD_HASHING_EXECUTOR) ExecutorService passwordHashingExecutor
+  ) {
     this.logic = logic;
+    this.passwordHashingExecutor = passwordHashingExecutor;
   }
 
   @Override
@@ -38,11 +49,25 @@ public class AuthenticationProviderUserPassword implements AuthenticationProvide
     return Flowable.create(emitter -> {
       String email = (String) authenticationRequest.getIdentity();
       String password = (String) authenticationRequest.getSecret();
-      if (logic.isUserValid(email, password)) {
-        emitter
-          .onNext(new UserDetails(email, new ArrayList<>()));
-        emitter.onComplete();
-      } else {
+      try {
+        passwordHashingExecutor.execute(() -> {
+          boolean valid;
+          try {
+            valid = logic.isUserValid(email, password);
+          } catch (RuntimeException e) {
+            emitter.onError(e);
+            return;
+          }
+          if (valid) {
+            emitter
+              .onNext(new UserDetails(email, new ArrayList<>()));
+            emitter.onComplete();
+          } else {
+            emitter.onError(new AuthenticationException(new AuthenticationFailed()));
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // Too many password checks are waiting already, the login is refused instead of queued.
         emitter.onError(new AuthenticationException(new AuthenticationFailed()));
       }
     }, BackpressureStrategy.ERROR);
@@ -0,0 +1,212 @@
+package edu.kpi.testcourse.rest;
+
+import com.google.gson.reflect.TypeToken;
+import edu.kpi.testcourse.BeanFactory;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.Futures;
+import edu.kpi.testcourse.serialization.JsonTool;
+import edu.kpi.testcourse.storage.PeerUrlRepository;
+import edu.kpi.testcourse.storage.UrlRepository;
+import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
+import edu.kpi.testcourse.storage.UrlRepository.PermissionDenied;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.rules.SecurityRule;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * Internal API controller, which serves operations that other members of the cluster forward to
+ * the member that stores the alias.
+ *
+ * <p>The operations go straight to the aliases stored by this member, they are never forwarded
+ * again. The endpoints are protected by a secret shared by all members
+ * (<tt>url-shortener.cluster.token</tt>), which is sent in the
+ * {@value PeerUrlRepository#TOKEN_HEADER} header. Without the secret configured, the endpoints
+ * don't exist.
+ */
+@Secured(SecurityRule.IS_ANONYMOUS)
+@Controller("/cluster/aliases")
+public class ClusterController {
+  private final UrlRepository urls;
+  private final JsonTool json;
+  private final ExecutorService ioExecutor;
+  private final byte[] token;
+
+  /**
+   * Main constructor.
+   *
+   * @param urls URL aliases stored by this member
+   * @param json JSON serialization tool
+   * @param ioExecutor an executor for blocking repository work
+   * @param token the shared secret, an empty one disables the endpoints
+   */
+  @Inject
+  public ClusterController(
+      @Named(BeanFactory.LOCAL_URL_REPOSITORY) UrlRepository urls,
+      JsonTool json,
+      @Named(BeanFactory.REPOSITORY_IO_EXECUTOR) ExecutorService ioExecutor,
+      @Value("${url-shortener.cluster.token:}") String token) {
+    this.urls = urls;
+    this.json = json;
+    this.ioExecutor = ioExecutor;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Stores the URL alias, responds with <tt>409 Conflict</tt> if the alias is taken.
+   */
+  @Post(processes = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> create(
+      @Body String body,
+      @Header(PeerUrlRepository.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    UrlAlias urlAlias = json.fromJson(body, UrlAlias.class);
+    return urls.createUrlAliasAsync(urlAlias, ioExecutor)
+      .<HttpResponse<String>>thenApply(created -> HttpResponse.status(HttpStatus.CREATED))
+      .exceptionally(error -> {
+        if (Futures.unwrap(error) instanceof AliasAlreadyExist) {
+          return HttpResponse.status(HttpStatus.CONFLICT);
+        }
+        return failure(error);
+      });
+  }
+
+  /**
+   * Stores the URL aliases that are not taken, the response tells for every alias whether it was
+   * stored.
+   */
+  @Post(value = "/batch", processes = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> createBatch(
+      @Body String body,
+      @Header(PeerUrlRepository.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    List<UrlAlias> urlAliases =
+        json.fromJson(body, new TypeToken<List<UrlAlias>>(){}.getType());
+    return urls.createUrlAliasesAsync(urlAliases, ioExecutor)
+      .<HttpResponse<String>>thenApply(created -> HttpResponse.ok(json.toJson(created)))
+      .exceptionally(ClusterController::failure);
+  }
+
+  /**
+   * The URL alias or <tt>404 Not Found</tt> if there is no such alias.
+   */
+  @Get(value = "/{alias}", produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> find(
+      String alias,
+      @Header(PeerUrlRepository.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    return urls.findUrlAliasAsync(alias, ioExecutor)
+      .<HttpResponse<String>>thenApply(urlAlias -> urlAlias == null
+          ? HttpResponse.notFound()
+          : HttpResponse.ok(json.toJson(urlAlias)))
+      .exceptionally(ClusterController::failure);
+  }
+
+  /**
+   * Deletes the URL alias of the user. Responds with <tt>403 Forbidden</tt> if the alias belongs
+   * to another user and with <tt>404 Not Found</tt> if there is no such alias.
+   */
+  @Delete("/{alias}")
+  public CompletableFuture<HttpResponse<String>> delete(
+      String alias,
+      @QueryValue String email,
+      @Header(PeerUrlRepository.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    return supplyAsync(() -> {
+      try {
+        urls.deleteUrlAlias(email, alias);
+        return HttpResponse.noContent();
+      } catch (PermissionDenied e) {
+        return HttpResponse.status(HttpStatus.FORBIDDEN);
+      } catch (RuntimeException e) {
+        // Repositories don't have a dedicated error for a missing alias.
+        return urls.findUrlAlias(alias) == null ? HttpResponse.notFound() : failure(e);
+      }
+    });
+  }
+
+  /**
+   * URL aliases of the user stored by this member sorted by alias, all of them or a page if the
+   * limit is given.
+   */
+  @Get(produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> aliasesOf(
+      @QueryValue String email,
+      @QueryValue @Nullable String after,
+      @QueryValue @Nullable Integer limit,
+      @Header(PeerUrlRepository.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    return supplyAsync(() -> HttpResponse.ok(json.toJson(limit == null
+        ? urls.getAllAliasesForUser(email)
+        : urls.getAliasesForUser(email, after, limit))));
+  }
+
+  private CompletableFuture<HttpResponse<String>> supplyAsync(
+      Supplier<HttpResponse<String>> supplier
+  ) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, ioExecutor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+  }
+
+  private static HttpResponse<String> failure(Throwable error) {
+    Throwable cause = Futures.unwrap(error);
+    if (cause instanceof RejectedExecutionException) {
+      return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    throw new CompletionException(cause);
+  }
+
+  private @Nullable HttpResponse<String> checkToken(@Nullable String token) {
+    if (this.token.length == 0) {
+      return HttpResponse.notFound();
+    }
+    if (token == null
+        || !MessageDigest.isEqual(this.token, token.getBytes(StandardCharsets.UTF_8))) {
+      return HttpResponse.status(HttpStatus.FORBIDDEN);
+    }
+    return null;
+  }
+}
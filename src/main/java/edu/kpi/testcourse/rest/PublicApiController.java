@@ -2,9 +2,15 @@ package edu.kpi.testcourse.rest;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.kpi.testcourse.BeanFactory;
+import edu.kpi.testcourse.analytics.ClickAnalytics;
+import edu.kpi.testcourse.logic.Futures;
 import edu.kpi.testcourse.logic.Logic;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.rest.models.ErrorResponse;
 import edu.kpi.testcourse.rest.models.UserSignupRequest;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
@@ -13,8 +19,13 @@ import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.rules.SecurityRule;
-import java.net.URI;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
+import javax.inject.Named;
 
 /**
  * API controller for all REST API endpoints accessible without authentication.
@@ -22,45 +33,109 @@ import javax.inject.Inject;
 @Secured(SecurityRule.IS_ANONYMOUS)
 @Controller
 public class PublicApiController {
+  private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+  private static final Histogram REDIRECT_SECONDS = MetricsRegistry.global().timer(
+      "http_redirect_seconds", "Latency of redirects by alias");
 
   private final Logic logic;
   private final ObjectMapper objectMapper;
+  private final MetricsRegistry metrics;
+  private final ClickAnalytics clickAnalytics;
+  private final ExecutorService passwordHashingExecutor;
 
+  /**
+   * Main constructor.
+   *
+   * @param logic the business logic module
+   * @param objectMapper JSON serialization tool
+   * @param metrics the registry exported at <tt>/metrics</tt>
+   * @param clickAnalytics a counter of redirects
+   * @param passwordHashingExecutor an executor for password hashing
+   */
   @Inject
-  public PublicApiController(Logic logic, ObjectMapper objectMapper) {
+  public PublicApiController(Logic logic, ObjectMapper objectMapper, MetricsRegistry metrics,
+      ClickAnalytics clickAnalytics,
+      @Named(BeanFactory.PASSWORD_HASHING_EXECUTOR) ExecutorService passwordHashingExecutor) {
     this.logic = logic;
     this.objectMapper = objectMapper;
+    this.metrics = metrics;
+    this.clickAnalytics = clickAnalytics;
+    this.passwordHashingExecutor = passwordHashingExecutor;
   }
 
   /**
    * Sign-up (user creation) request.
    *
+   * <p>The password is hashed on the password hashing executor, like on login. When too many
+   * hashings are waiting already, the request is refused with <tt>503 Service Unavailable</tt>.
+   *
    * @param request request with email and password
    * @return nothing or error description
    */
   @Post(value = "/users/signup", produces = MediaType.APPLICATION_JSON)
-  public HttpResponse<String> signup(UserSignupRequest request) throws JsonProcessingException {
+  public CompletableFuture<HttpResponse<String>> signup(UserSignupRequest request) {
+    CompletableFuture<Void> created;
     try {
-      logic.createNewUser(request.email(), request.password());
-      return HttpResponse.status(HttpStatus.CREATED);
-    } catch (Logic.UserIsAlreadyCreated e) {
-      return HttpResponse.serverError(
-        objectMapper.writeValueAsString(new ErrorResponse(0, e.getMessage())));
+      created = CompletableFuture.runAsync(
+          () -> logic.createNewUser(request.email(), request.password()), passwordHashingExecutor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(
+        HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE));
     }
+    return created.<HttpResponse<String>>handle((nothing, error) -> {
+      if (error == null) {
+        return HttpResponse.status(HttpStatus.CREATED);
+      }
+      Throwable cause = Futures.unwrap(error);
+      if (cause instanceof Logic.UserIsAlreadyCreated) {
+        try {
+          return HttpResponse.serverError(
+            objectMapper.writeValueAsString(new ErrorResponse(0, cause.getMessage())));
+        } catch (JsonProcessingException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      throw new CompletionException(cause);
+    });
   }
 
   /**
    * Redirection to a full URL by alias.
    *
+   * <p>Aliases that are in memory are resolved right on the event loop, others are loaded off it.
+   * The stored full URL is written into the <tt>Location</tt> header as is, without parsing.
+   * The click is counted in memory and persisted later in background.
+   *
    * @param alias a short URL alias
    */
   @Get(value = "/r/{alias}")
-  public HttpResponse<?> redirect(String alias) {
-    String fullUrl = logic.findFullUrl(alias);
-    if (fullUrl != null) {
-      return HttpResponse.redirect(URI.create(fullUrl));
-    } else {
-      return HttpResponse.notFound();
-    }
+  public CompletableFuture<HttpResponse<?>> redirect(String alias) {
+    long start = System.nanoTime();
+    return logic.findFullUrlAsync(alias).<HttpResponse<?>>handle((fullUrl, error) -> {
+      REDIRECT_SECONDS.recordSince(start);
+      if (error != null) {
+        Throwable cause = Futures.unwrap(error);
+        if (cause instanceof RejectedExecutionException) {
+          return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        throw new CompletionException(cause);
+      }
+      if (fullUrl != null) {
+        clickAnalytics.recordClick(alias);
+        // The URL was validated and normalized when the alias was created.
+        return HttpResponse.status(HttpStatus.MOVED_PERMANENTLY)
+          .header(HttpHeaders.LOCATION, fullUrl);
+      } else {
+        return HttpResponse.notFound();
+      }
+    });
+  }
+
+  /**
+   * Metrics of the application in the Prometheus text format.
+   */
+  @Get(value = "/metrics", produces = PROMETHEUS_TEXT)
+  public String metrics() {
+    return metrics.scrape();
   }
 }
@@ -0,0 +1,103 @@
+package edu.kpi.testcourse.rest;
+
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import edu.kpi.testcourse.ratelimit.RateLimiter;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.security.filters.SecurityFilter;
+import io.reactivex.Flowable;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import org.reactivestreams.Publisher;
+
+/**
+ * Rate limits of the endpoints that do expensive work: URL shortening (a repository write) is
+ * limited per user, sign-up and login (password hashing) are limited per IP address. Redirects are
+ * not limited.
+ *
+ * <p>A request over the limit is rejected with <tt>429 Too Many Requests</tt> and a
+ * <tt>Retry-After</tt> header. A limit with a zero rate is disabled. The filter runs after the
+ * security filter, so unauthenticated shorten requests never reach it.
+ */
+@Filter(value = {"/urls/shorten", "/urls/shorten/batch", "/users/signup", "/login"},
+    methods = HttpMethod.POST)
+public class RateLimitFilter implements HttpServerFilter {
+  private static final Counter SHORTEN_REJECTIONS = MetricsRegistry.global().counter(
+      "http_rate_limited_total", "Requests rejected by rate limits", "limit", "shorten");
+  private static final Counter AUTH_REJECTIONS = MetricsRegistry.global().counter(
+      "http_rate_limited_total", "Requests rejected by rate limits", "limit", "auth");
+
+  private final @Nullable RateLimiter shortenLimiter;
+  private final @Nullable RateLimiter authLimiter;
+
+  /**
+   * Main constructor.
+   *
+   * @param shortenRate shorten requests per second of a user
+   * @param shortenBurst shorten requests a user can make at once
+   * @param authRate sign-up and login requests per second of an IP address
+   * @param authBurst sign-up and login requests an IP address can make at once
+   * @param maxClients number of users or IP addresses whose limits are tracked
+   */
+  @Inject
+  public RateLimitFilter(
+      @Value("${url-shortener.rate-limit.shorten-per-second:10}") double shortenRate,
+      @Value("${url-shortener.rate-limit.shorten-burst:20}") int shortenBurst,
+      @Value("${url-shortener.rate-limit.auth-per-second:1}") double authRate,
+      @Value("${url-shortener.rate-limit.auth-burst:10}") int authBurst,
+      @Value("${url-shortener.rate-limit.max-clients:65536}") int maxClients) {
+    this.shortenLimiter = shortenRate > 0
+        ? new RateLimiter(shortenRate, shortenBurst, maxClients)
+        : null;
+    this.authLimiter = authRate > 0 ? new RateLimiter(authRate, authBurst, maxClients) : null;
+  }
+
+  @Override
+  public int getOrder() {
+    return SecurityFilter.ORDER + 1;
+  }
+
+  @Override
+  public Publisher<MutableHttpResponse<?>> doFilter(
+      HttpRequest<?> request, ServerFilterChain chain
+  ) {
+    long wait;
+    if (request.getPath().startsWith("/urls/")) {
+      String user = request.getUserPrincipal().map(Principal::getName).orElse(null);
+      if (shortenLimiter == null || user == null) {
+        return chain.proceed(request);
+      }
+      wait = shortenLimiter.tryAcquire(user);
+      if (wait > 0) {
+        SHORTEN_REJECTIONS.increment();
+      }
+    } else {
+      if (authLimiter == null) {
+        return chain.proceed(request);
+      }
+      wait = authLimiter.tryAcquire(request.getRemoteAddress().getHostString());
+      if (wait > 0) {
+        AUTH_REJECTIONS.increment();
+      }
+    }
+    if (wait == 0) {
+      return chain.proceed(request);
+    }
+    // Rounded up, so that a client that waits as told gets a token.
+    long second = TimeUnit.SECONDS.toNanos(1);
+    long seconds = (wait + second - 1) / second;
+    return Flowable.<MutableHttpResponse<?>>just(HttpResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds)));
+  }
+}
@@ -0,0 +1,160 @@
+package edu.kpi.testcourse.rest;
+
+import edu.kpi.testcourse.BeanFactory;
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.AliasChanges;
+import edu.kpi.testcourse.entities.AliasSnapshot;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.serialization.JsonTool;
+import edu.kpi.testcourse.storage.ChangeFeed;
+import edu.kpi.testcourse.storage.ChangeFeed.SequenceExpired;
+import edu.kpi.testcourse.storage.HttpChangeSource;
+import edu.kpi.testcourse.storage.UrlRepository;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.rules.SecurityRule;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * API controller for replication of URL aliases to read-only followers.
+ *
+ * <p>The endpoints expose all aliases with emails of their owners, so they are protected by a
+ * secret shared by the leader and its followers (<tt>url-shortener.replication.token</tt>), which
+ * is sent in the {@value HttpChangeSource#TOKEN_HEADER} header. Without the secret configured, the
+ * endpoints don't exist.
+ */
+@Secured(SecurityRule.IS_ANONYMOUS)
+@Controller("/replication")
+public class ReplicationController {
+  private static final int DEFAULT_LIMIT = 1000;
+  private static final int MAX_LIMIT = 10_000;
+  private static final int DEFAULT_WAIT_SECONDS = 30;
+  private static final int MAX_WAIT_SECONDS = 60;
+
+  private final ChangeFeed feed;
+  private final UrlRepository urls;
+  private final JsonTool json;
+  private final ExecutorService ioExecutor;
+  private final byte[] token;
+
+  /**
+   * Main constructor.
+   *
+   * @param feed the feed of alias changes
+   * @param urls URL aliases stored by this instance, a snapshot of which is sent to followers
+   * @param json JSON serialization tool
+   * @param ioExecutor an executor for blocking repository work
+   * @param token the shared secret, an empty one disables replication
+   */
+  @Inject
+  public ReplicationController(
+      ChangeFeed feed,
+      @Named(BeanFactory.LOCAL_URL_REPOSITORY) UrlRepository urls,
+      JsonTool json,
+      @Named(BeanFactory.REPOSITORY_IO_EXECUTOR) ExecutorService ioExecutor,
+      @Value("${url-shortener.replication.token:}") String token) {
+    this.feed = feed;
+    this.urls = urls;
+    this.json = json;
+    this.ioExecutor = ioExecutor;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * All URL aliases with the position of the change feed they reflect.
+   *
+   * <p>All aliases are collected off the event loop.
+   */
+  @Get(value = "/snapshot", produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> snapshot(
+      @Header(HttpChangeSource.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        // Read before the aliases, so that no change made meanwhile is missed.
+        long sequence = feed.lastSequence();
+        List<UrlAlias> aliases = new ArrayList<>();
+        urls.forEachUrlAlias(aliases::add);
+        return HttpResponse.ok(json.toJson(new AliasSnapshot(feed.epoch(), sequence, aliases)));
+      }, ioExecutor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.completedFuture(HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+  }
+
+  /**
+   * Changes that follow the given one (long poll). If there are none yet, the response is sent
+   * when one is made or after the given number of seconds, whichever comes first.
+   *
+   * <p>Responds with <tt>410 Gone</tt> if the changes are no longer available, the follower has to
+   * bootstrap from a snapshot then.
+   */
+  @Get(value = "/changes", produces = MediaType.APPLICATION_JSON)
+  public CompletableFuture<HttpResponse<String>> changes(
+      @QueryValue long epoch,
+      @QueryValue long after,
+      @QueryValue @Nullable Integer limit,
+      @QueryValue @Nullable Integer wait,
+      @Header(HttpChangeSource.TOKEN_HEADER) @Nullable String token
+  ) {
+    HttpResponse<String> denied = checkToken(token);
+    if (denied != null) {
+      return CompletableFuture.completedFuture(denied);
+    }
+    int pageSize = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    int waitSeconds = wait == null
+        ? DEFAULT_WAIT_SECONDS
+        : Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+
+    HttpResponse<String> response = changesAfter(epoch, after, pageSize);
+    if (response.status() != HttpStatus.OK || waitSeconds == 0
+        || after < feed.lastSequence()) {
+      return CompletableFuture.completedFuture(response);
+    }
+    return feed.awaitChangeAfter(after)
+      .completeOnTimeout(null, waitSeconds, TimeUnit.SECONDS)
+      .thenApply(changed -> changesAfter(epoch, after, pageSize));
+  }
+
+  private HttpResponse<String> changesAfter(long epoch, long after, int limit) {
+    List<AliasChange> changes;
+    try {
+      changes = feed.changesAfter(epoch, after, limit);
+    } catch (SequenceExpired e) {
+      return HttpResponse.status(HttpStatus.GONE);
+    }
+    return HttpResponse.ok(json.toJson(new AliasChanges(changes)));
+  }
+
+  private @Nullable HttpResponse<String> checkToken(@Nullable String token) {
+    if (this.token.length == 0) {
+      return HttpResponse.notFound();
+    }
+    if (token == null
+        || !MessageDigest.isEqual(this.token, token.getBytes(StandardCharsets.UTF_8))) {
+      return HttpResponse.status(HttpStatus.FORBIDDEN);
+    }
+    return null;
+  }
+}
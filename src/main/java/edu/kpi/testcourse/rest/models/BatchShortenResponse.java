@@ -0,0 +1,14 @@
+package edu.kpi.testcourse.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Result of shortening of a single URL from a batch: either the shortened URL or an error.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchShortenResponse(
+    @JsonProperty("shortened_url") String shortenedUrl,
+    @JsonProperty("error") ErrorResponse error
+) {
+}
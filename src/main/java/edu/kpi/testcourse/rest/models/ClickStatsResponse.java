@@ -0,0 +1,18 @@
+package edu.kpi.testcourse.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Click statistics of a shortened URL.
+ *
+ * @param alias the short identifier of the URL
+ * @param clicks number of redirects by the alias
+ * @param lastAccess time of the latest redirect in ISO-8601 format, absent if there were none
+ */
+public record ClickStatsResponse(
+    @JsonProperty("alias") String alias,
+    @JsonProperty("clicks") long clicks,
+    @JsonProperty("last_access") @JsonInclude(JsonInclude.Include.NON_NULL) String lastAccess
+) {
+}
@@ -0,0 +1,18 @@
+package edu.kpi.testcourse.rest.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.List;
+
+/**
+ * A page of URL aliases of a user.
+ *
+ * @param urls URL aliases sorted by alias
+ * @param nextCursor an opaque cursor to get the next page with, absent on the last page
+ */
+public record UrlListResponse(
+    @JsonProperty("urls") List<UrlAlias> urls,
+    @JsonProperty("next_cursor") @JsonInclude(JsonInclude.Include.NON_NULL) String nextCursor
+) {
+}
@@ -1,14 +1,34 @@
 package edu.kpi.testcourse.rest.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Duration;
 
 /**
  * URL shorten request with long and short URLs.
  *
  * @param url a full version of URL
  * @param alias an alias ({base URL shortener URL}/{alias})
+ * @param ttl time to live of the alias in seconds, it never expires if the time is absent
+ * @param reuseExisting whether an existing alias of the user for the same URL may be returned
+ *     instead of a new one
  */
 public record UrlShortenRequest(
     @JsonProperty("url") String url,
-    @JsonProperty("alias") String alias) {
+    @JsonProperty("alias") String alias,
+    @JsonProperty("ttl") Long ttl,
+    @JsonProperty("reuse_existing") Boolean reuseExisting) {
+
+  /**
+   * Returns the time to live of the alias or <tt>null</tt> if it never expires.
+   */
+  public Duration ttlDuration() {
+    return ttl == null ? null : Duration.ofSeconds(ttl);
+  }
+
+  /**
+   * Tells whether an existing alias may be reused, which is not the case if the flag is absent.
+   */
+  public boolean shouldReuseExisting() {
+    return Boolean.TRUE.equals(reuseExisting);
+  }
 }
@@ -1,6 +1,8 @@
 package edu.kpi.testcourse.serialization;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
 
 /**
  * Wrapper for JSON serialization/deserialization tool.
@@ -30,6 +32,27 @@ public interface JsonTool {
    */
   <T> T fromJson(String jsonString, Class<T> clazz);
 
+  /**
+   * Create an object (with generics in type) from JSON read from the reader. Unlike
+   * {@link #fromJson(String, Type)} it does not need the whole JSON text in memory.
+   *
+   * @param reader a source of an object in JSON form, the caller is responsible for closing it
+   * @param type an object type. To get type you could use Jackson TypeReference or GSON TypeToken.
+   * @return a deserialized object
+   */
+  <T> T fromJson(Reader reader, Type type);
+
+  /**
+   * Read a JSON object entry by entry and pass every entry to the action as soon as it is read.
+   * This way a large map can be loaded straight into its final data structure, without building
+   * an intermediate one.
+   *
+   * @param reader a source of a JSON object, the caller is responsible for closing it
+   * @param valueClass a class of values of the object
+   * @param action a consumer of keys and deserialized values
+   */
+  <V> void readObjectEntries(Reader reader, Class<V> valueClass, BiConsumer<String, V> action);
+
   /**
    * Serialize object into JSON form.
    *
@@ -1,9 +1,16 @@
 package edu.kpi.testcourse.serialization;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
 
 /**
  * JSON serialization tool that uses Jackson as engine.
@@ -35,6 +42,46 @@ public class JsonToolJacksonImpl implements JsonTool {
     }
   }
 
+  @Override
+  public <T> T fromJson(Reader reader, Type type) {
+    try {
+      return mapper.readValue(reader, new TypeReference<T>() {
+        @Override
+        public Type getType() {
+          return type;
+        }
+      });
+    } catch (JsonProcessingException e) {
+      throw new JsonParsingError(e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public <V> void readObjectEntries(
+      Reader reader, Class<V> valueClass, BiConsumer<String, V> action
+  ) {
+    try {
+      JsonParser parser = mapper.getFactory().createParser(reader);
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParsingError(new JsonParseException(parser, "A JSON object is expected"));
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String key = parser.getCurrentName();
+        parser.nextToken();
+        action.accept(key, mapper.readValue(parser, valueClass));
+      }
+      if (parser.currentToken() != JsonToken.END_OBJECT) {
+        throw new JsonParsingError(new JsonParseException(parser, "The JSON object is not closed"));
+      }
+    } catch (JsonProcessingException e) {
+      throw new JsonParsingError(e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public String toJson(Object obj) {
     try {
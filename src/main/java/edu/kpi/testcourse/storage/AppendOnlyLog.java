@@ -0,0 +1,145 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A line-oriented append-only log file.
+ *
+ * <p>Every record is a single line of text (repositories store JSON there). Appending a record
+ * costs one small write at the end of the file, no matter how many records the log already has.
+ */
+class AppendOnlyLog implements AutoCloseable {
+  private final Path path;
+  private final FileChannel channel;
+  private final FileSync fileSync;
+
+  /**
+   * Opens the log at the given path, creating an empty one if it does not exist.
+   *
+   * @param path a log file
+   * @param appConfig configuration that defines when appended records are forced to the disk
+   */
+  AppendOnlyLog(Path path, UrlShortenerConfig appConfig) {
+    this.path = path;
+    this.fileSync = new FileSync(path, appConfig);
+    try {
+      this.channel = FileChannel.open(
+          path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.channel.position(completeRecordsLength(channel));
+      this.channel.truncate(this.channel.position());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Finds the length of the log without an incomplete record at its end, so that new records are
+   * never glued to the remains of a torn write.
+   */
+  private static long completeRecordsLength(FileChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    long end = channel.size();
+    while (end > 0) {
+      long start = Math.max(0, end - buffer.capacity());
+      buffer.clear().limit((int) (end - start));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, start + buffer.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = buffer.position() - 1; i >= 0; i--) {
+        if (buffer.get(i) == '\n') {
+          return start + i + 1;
+        }
+      }
+      end = start;
+    }
+    return 0;
+  }
+
+  /**
+   * Reads all complete records from the log.
+   *
+   * <p>A process might crash in the middle of an append, so the last line could be incomplete. Such
+   * a line is not terminated by a line break, it is dropped when the log is opened.
+   */
+  List<String> readRecords() {
+    byte[] content;
+    try {
+      content = Files.readAllBytes(path);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    // A line break byte never occurs inside a multibyte UTF-8 sequence, so splitting raw bytes is
+    // safe and does not choke on a torn character at the very end of the file.
+    List<String> records = new ArrayList<>();
+    int lineStart = 0;
+    for (int i = 0; i < content.length; i++) {
+      if (content[i] == '\n') {
+        if (i > lineStart) {
+          records.add(new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8));
+        }
+        lineStart = i + 1;
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Appends records to the end of the log with a single write.
+   *
+   * @param records single-line records
+   * @return number of written bytes
+   */
+  int append(List<String> records) {
+    StringBuilder content = new StringBuilder();
+    for (String record : records) {
+      if (record.indexOf('\n') >= 0) {
+        throw new IllegalArgumentException("Log record must not contain line breaks");
+      }
+      content.append(record).append('\n');
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      fileSync.afterWrite(channel);
+      return buffer.capacity();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Removes all records from the log. Used after the log content is compacted into a snapshot.
+   */
+  void truncate() {
+    try {
+      channel.truncate(0);
+      channel.position(0);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    fileSync.close();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,446 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.entities.User;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary format of repository snapshots.
+ *
+ * <p>A snapshot file consists of:
+ * <ul>
+ *   <li>a header: magic number, format version and kind of records (all ints);</li>
+ *   <li>blocks of records: flags (byte), raw length, stored length and CRC32 of the stored bytes
+ *   (ints), then the stored bytes. A block holds about {@link #BLOCK_SIZE} bytes of whole records
+ *   and is compressed with {@link Deflater} if it was requested and made the block smaller;</li>
+ *   <li>a footer: number of records (long) and magic number (int), so that a reader can presize
+ *   its data structures before reading the blocks.</li>
+ * </ul>
+ *
+ * <p>Strings are stored as a varint byte length followed by UTF-8 bytes. The owner email of a URL
+ * alias is interned: the first alias of an owner stores the email, the following ones store only
+ * its number. Loaded aliases of an owner share a single email string as well. Since version 2 a
+ * URL alias ends with its expiration time (a varint, a single zero byte if it never expires).
+ * Files of version 1 are still read.
+ *
+ * <p>Like {@link JsonSnapshots}, a snapshot split into several files is loaded in parallel.
+ */
+final class BinarySnapshots {
+  static final String EXTENSION = ".bin";
+
+  private static final int MAGIC = 0x55534E50; // "USNP"
+  private static final int VERSION = 2;
+  private static final int KIND_URL_ALIASES = 1;
+  private static final int KIND_USERS = 2;
+  private static final int HEADER_LENGTH = 12;
+  private static final int FOOTER_LENGTH = 12;
+  private static final int BLOCK_HEADER_LENGTH = 13;
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final byte BLOCK_COMPRESSED = 1;
+
+  private BinarySnapshots() {
+  }
+
+  /**
+   * Loads URL aliases from snapshot shards into a single map keyed by alias.
+   */
+  static ConcurrentHashMap<String, UrlAlias> loadUrlAliases(List<Path> shards) {
+    ConcurrentHashMap<String, UrlAlias> result = presizedMap(shards);
+    forEachShard(shards, shard -> readUrlAliases(shard, urlAlias ->
+        result.put(urlAlias.alias(), urlAlias)));
+    return result;
+  }
+
+  /**
+   * Loads users from a snapshot file into a map keyed by email.
+   */
+  static ConcurrentHashMap<String, User> loadUsers(Path path) {
+    ConcurrentHashMap<String, User> result = presizedMap(List.of(path));
+    forEachShard(List.of(path), shard -> readUsers(shard, user -> result.put(user.email(), user)));
+    return result;
+  }
+
+  /**
+   * Writes URL aliases into the channel, which should be positioned at the beginning of an empty
+   * file.
+   */
+  static void writeUrlAliases(FileChannel channel, Iterable<UrlAlias> urlAliases,
+      boolean compressed) throws IOException {
+    Output output = new Output(channel, KIND_URL_ALIASES, compressed);
+    Map<String, Integer> emails = new HashMap<>();
+    for (UrlAlias urlAlias : urlAliases) {
+      output.writeString(urlAlias.alias());
+      output.writeString(urlAlias.destinationUrl());
+      Integer email = emails.get(urlAlias.email());
+      if (email == null) {
+        emails.put(urlAlias.email(), emails.size());
+        output.writeVarInt(0);
+        output.writeString(urlAlias.email());
+      } else {
+        output.writeVarInt(email + 1);
+      }
+      output.writeVarLong(urlAlias.expiresAt());
+      output.endRecord();
+    }
+    output.finish();
+  }
+
+  /**
+   * Reads URL aliases from the file and passes them to the action one by one.
+   */
+  private static void readUrlAliases(Path path, Consumer<UrlAlias> action) throws IOException {
+    try (Input input = new Input(path, KIND_URL_ALIASES)) {
+      List<String> emails = new ArrayList<>();
+      while (input.nextRecord()) {
+        String alias = input.readString();
+        String destinationUrl = input.readString();
+        int emailReference = input.readVarInt();
+        String email;
+        if (emailReference == 0) {
+          email = input.readString();
+          emails.add(email);
+        } else {
+          email = emails.get(emailReference - 1);
+        }
+        long expiresAt = input.version >= 2 ? input.readVarLong() : 0;
+        action.accept(new UrlAlias(alias, destinationUrl, email, expiresAt));
+      }
+    }
+  }
+
+  /**
+   * Writes users into the channel, which should be positioned at the beginning of an empty file.
+   */
+  static void writeUsers(FileChannel channel, Iterable<User> users, boolean compressed)
+      throws IOException {
+    Output output = new Output(channel, KIND_USERS, compressed);
+    for (User user : users) {
+      output.writeString(user.email());
+      output.writeString(user.passwordHash());
+      output.endRecord();
+    }
+    output.finish();
+  }
+
+  /**
+   * Reads users from the file and passes them to the action one by one.
+   */
+  private static void readUsers(Path path, Consumer<User> action) throws IOException {
+    try (Input input = new Input(path, KIND_USERS)) {
+      while (input.nextRecord()) {
+        action.accept(new User(input.readString(), input.readString()));
+      }
+    }
+  }
+
+  private static <V> ConcurrentHashMap<String, V> presizedMap(List<Path> shards) {
+    long records = 0;
+    for (Path shard : shards) {
+      try (FileChannel channel = FileChannel.open(shard, StandardOpenOption.READ)) {
+        records += readFooter(channel);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    int expectedEntries = (int) Math.min(Integer.MAX_VALUE >> 1, records);
+    return new ConcurrentHashMap<>(
+        Math.max(16, expectedEntries), 0.75f, Math.max(1, shards.size()));
+  }
+
+  private static void forEachShard(List<Path> shards, ShardReader reader) {
+    if (shards.size() == 1) {
+      readShard(shards.get(0), reader);
+    } else {
+      shards.parallelStream().forEach(shard -> readShard(shard, reader));
+    }
+  }
+
+  private static void readShard(Path shard, ShardReader reader) {
+    try {
+      reader.read(shard);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long readFooter(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size < HEADER_LENGTH + FOOTER_LENGTH) {
+      throw new IllegalStateException("The snapshot file is truncated");
+    }
+    ByteBuffer footer = ByteBuffer.allocate(FOOTER_LENGTH);
+    readFully(channel, footer, size - FOOTER_LENGTH);
+    long records = footer.getLong(0);
+    if (footer.getInt(8) != MAGIC) {
+      throw new IllegalStateException("The snapshot file is truncated");
+    }
+    return records;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IllegalStateException("The snapshot file is truncated");
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ShardReader {
+    void read(Path shard) throws IOException;
+  }
+
+  /**
+   * Collects records into blocks and writes the blocks into the file.
+   */
+  private static class Output {
+    private final FileChannel channel;
+    private final boolean compressed;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final CRC32 crc = new CRC32();
+    private byte[] block = new byte[BLOCK_SIZE + 1024];
+    private byte[] compressedBlock = new byte[0];
+    private int length;
+    private long records;
+
+    Output(FileChannel channel, int kind, boolean compressed) throws IOException {
+      this.channel = channel;
+      this.compressed = compressed;
+      writeFully(channel, ByteBuffer.allocate(HEADER_LENGTH)
+          .putInt(MAGIC).putInt(VERSION).putInt(kind).flip());
+    }
+
+    void writeVarInt(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        block[length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      block[length++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+      ensureCapacity(10);
+      while ((value & ~0x7FL) != 0) {
+        block[length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      block[length++] = (byte) value;
+    }
+
+    void writeString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, block, length, bytes.length);
+      length += bytes.length;
+    }
+
+    void endRecord() throws IOException {
+      records++;
+      if (length >= BLOCK_SIZE) {
+        flushBlock();
+      }
+    }
+
+    void finish() throws IOException {
+      if (length > 0) {
+        flushBlock();
+      }
+      deflater.end();
+      writeFully(channel, ByteBuffer.allocate(FOOTER_LENGTH).putLong(records).putInt(MAGIC).flip());
+    }
+
+    private void ensureCapacity(int extra) {
+      if (length + extra > block.length) {
+        block = Arrays.copyOf(block, Math.max(block.length * 2, length + extra));
+      }
+    }
+
+    private void flushBlock() throws IOException {
+      byte flags = 0;
+      byte[] stored = block;
+      int storedLength = length;
+      if (compressed) {
+        if (compressedBlock.length < length) {
+          compressedBlock = new byte[length];
+        }
+        deflater.reset();
+        deflater.setInput(block, 0, length);
+        deflater.finish();
+        int compressedLength = deflater.deflate(compressedBlock, 0, length);
+        // Incompressible data is stored as is.
+        if (deflater.finished() && compressedLength < length) {
+          flags = BLOCK_COMPRESSED;
+          stored = compressedBlock;
+          storedLength = compressedLength;
+        }
+      }
+      crc.reset();
+      crc.update(stored, 0, storedLength);
+
+      ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_LENGTH)
+          .put(flags).putInt(length).putInt(storedLength).putInt((int) crc.getValue()).flip();
+      writeFully(channel, header);
+      writeFully(channel, ByteBuffer.wrap(stored, 0, storedLength));
+      length = 0;
+    }
+  }
+
+  /**
+   * Reads the file block by block and gives access to records of the current block.
+   */
+  private static class Input implements AutoCloseable {
+    private final FileChannel channel;
+    private final long end;
+    private final int version;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_LENGTH);
+    private long position = HEADER_LENGTH;
+    private byte[] stored = new byte[BLOCK_SIZE];
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private int offset;
+
+    Input(Path path, int kind) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      try {
+        readFooter(channel);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != MAGIC) {
+          throw new IllegalStateException("Not a repository snapshot: " + path);
+        }
+        this.version = header.getInt(4);
+        if (version < 1 || version > VERSION) {
+          throw new IllegalStateException("Unsupported snapshot version: " + version);
+        }
+        if (header.getInt(8) != kind) {
+          throw new IllegalStateException("Unexpected kind of snapshot: " + header.getInt(8));
+        }
+        this.end = channel.size() - FOOTER_LENGTH;
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Moves to the next record, reading the next block if needed.
+     *
+     * @return <tt>false</tt> if there are no more records
+     */
+    boolean nextRecord() throws IOException {
+      if (offset < blockLength) {
+        return true;
+      }
+      if (position >= end) {
+        return false;
+      }
+      readBlock();
+      return true;
+    }
+
+    int readVarInt() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = block[offset++];
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = block[offset++];
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    String readString() {
+      int length = readVarInt();
+      String value = new String(block, offset, length, StandardCharsets.UTF_8);
+      offset += length;
+      return value;
+    }
+
+    private void readBlock() throws IOException {
+      blockHeader.clear();
+      readFully(channel, blockHeader, position);
+      byte flags = blockHeader.get(0);
+      int rawLength = blockHeader.getInt(1);
+      int storedLength = blockHeader.getInt(5);
+      int checksum = blockHeader.getInt(9);
+      position += BLOCK_HEADER_LENGTH;
+
+      if (stored.length < storedLength) {
+        stored = new byte[storedLength];
+      }
+      readFully(channel, ByteBuffer.wrap(stored, 0, storedLength), position);
+      position += storedLength;
+      crc.reset();
+      crc.update(stored, 0, storedLength);
+      if ((int) crc.getValue() != checksum) {
+        throw new IllegalStateException("The snapshot file is corrupted");
+      }
+
+      if ((flags & BLOCK_COMPRESSED) == 0) {
+        byte[] raw = block;
+        block = stored;
+        stored = raw;
+      } else {
+        if (block.length < rawLength) {
+          block = new byte[rawLength];
+        }
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+          if (inflater.inflate(block, 0, rawLength) != rawLength) {
+            throw new IllegalStateException("The snapshot file is corrupted");
+          }
+        } catch (DataFormatException e) {
+          throw new IllegalStateException("The snapshot file is corrupted", e);
+        }
+      }
+      blockLength = rawLength;
+      offset = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      inflater.end();
+      channel.close();
+    }
+  }
+}
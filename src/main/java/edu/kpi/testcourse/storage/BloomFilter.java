@@ -0,0 +1,97 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free Bloom filter of strings.
+ *
+ * <p>{@link #mightContain(String)} never returns <tt>false</tt> for a string that was put into the
+ * filter, but it might return <tt>true</tt> for a string that wasn't. The bits are taken with the
+ * double hashing scheme: <tt>h1 + i * h2</tt> for the i-th hash function.
+ */
+class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final AtomicLong setBits = new AtomicLong();
+
+  private BloomFilter(long bitCount, int hashCount) {
+    this.bits = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+    this.bitCount = bitCount;
+    this.hashCount = hashCount;
+  }
+
+  /**
+   * Creates a filter with optimal number of bits and hash functions.
+   *
+   * @param expectedInsertions a number of strings the filter is sized for
+   * @param falsePositiveRate a desired probability of a false positive when the filter contains
+   *     <tt>expectedInsertions</tt> strings
+   */
+  static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long bitCount = (long) (-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    bitCount = Math.max(64, Math.min(bitCount, (long) Integer.MAX_VALUE * 64));
+    int hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    return new BloomFilter(bitCount, hashCount);
+  }
+
+  void put(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      setBit(Math.floorMod(hash1 + i * hash2, bitCount));
+    }
+  }
+
+  boolean mightContain(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Estimates the probability of a false positive from the share of bits that are set.
+   */
+  double expectedFalsePositiveRate() {
+    return Math.pow((double) setBits.get() / bitCount, hashCount);
+  }
+
+  private void setBit(long bit) {
+    int index = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    while (true) {
+      long word = bits.get(index);
+      if ((word & mask) != 0) {
+        return;
+      }
+      if (bits.compareAndSet(index, word, word | mask)) {
+        setBits.incrementAndGet();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Computes a 64-bit hash of the string, different seeds give independent hashes.
+   */
+  static long hash(String value, long seed) {
+    long h = seed ^ value.length();
+    for (int i = 0; i < value.length(); i++) {
+      h = (h ^ value.charAt(i)) * 0x100000001B3L;
+    }
+    // Final avalanche, so that all bits depend on every char.
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+}
@@ -0,0 +1,241 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link UrlRepository} decorator that rejects lookups of unknown aliases with a Bloom filter.
+ *
+ * <p>Most lookups of aliases that were never created (typos, scanners) are answered by the filter
+ * without touching the underlying repository. The filter is built from all aliases of the
+ * underlying repository on creation and every created alias is added to it.
+ *
+ * <p>A Bloom filter can't forget an alias, so deleted aliases become false positives. The filter is
+ * rebuilt when the number of aliases created or deleted since the last build exceeds its capacity,
+ * this keeps the false positive rate near the configured one. The rebuild runs in the background,
+ * so writers never wait for it.
+ */
+public class BloomFilteredUrlRepository implements UrlRepository {
+  private static final long MINIMAL_CAPACITY = 1024;
+  private static final ExecutorService defaultRebuildExecutor =
+      Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bloom-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final UrlRepository delegate;
+  private final double falsePositiveRate;
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder falsePositives = new LongAdder();
+  private final AtomicLong changesSinceRebuild = new AtomicLong();
+  private final Executor rebuildExecutor;
+  // Set while a rebuild is scheduled or running, so that only one is done at a time.
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+  private final Object rebuildLock = new Object();
+  private volatile BloomFilter filter;
+  private volatile long capacity;
+  // Receives created aliases while a rebuild is in progress.
+  private volatile @Nullable BloomFilter nextFilter;
+
+  /**
+   * Creates an instance and builds the filter from all aliases of the given repository.
+   *
+   * @param delegate a repository with all the data
+   * @param falsePositiveRate a desired share of lookups of unknown aliases that pass the filter
+   */
+  public BloomFilteredUrlRepository(UrlRepository delegate, double falsePositiveRate) {
+    this(delegate, falsePositiveRate, defaultRebuildExecutor);
+  }
+
+  /**
+   * Creates an instance and builds the filter from all aliases of the given repository.
+   *
+   * @param delegate a repository with all the data
+   * @param falsePositiveRate a desired share of lookups of unknown aliases that pass the filter
+   * @param rebuildExecutor an executor for rebuilds of the filter that are due to changes
+   */
+  public BloomFilteredUrlRepository(UrlRepository delegate, double falsePositiveRate,
+      Executor rebuildExecutor) {
+    this.delegate = delegate;
+    this.falsePositiveRate = falsePositiveRate;
+    this.rebuildExecutor = rebuildExecutor;
+    rebuild();
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    delegate.createUrlAlias(urlAlias);
+    onCreated(List.of(urlAlias), new boolean[] {true});
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    boolean[] created = delegate.createUrlAliases(urlAliases);
+    onCreated(urlAliases, created);
+    return created;
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    if (isRejected(alias)) {
+      return null;
+    }
+    return countFalsePositive(delegate.findUrlAlias(alias));
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    if (isRejected(alias)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return delegate.findUrlAliasAsync(alias, executor).thenApply(this::countFalsePositive);
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    delegate.deleteUrlAlias(email, alias);
+    onChange();
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return delegate.getAllAliasesForUser(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return delegate.getAliasesForUser(userEmail, after, limit);
+  }
+
+  @Override
+  public Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    return delegate.iterateAliasesForUser(userEmail);
+  }
+
+  @Override
+  public long size() {
+    return delegate.size();
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    delegate.forEachUrlAlias(action);
+  }
+
+  /**
+   * Builds a new filter from all aliases of the underlying repository. Lookups keep using the old
+   * filter until the new one is ready.
+   */
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      AtomicLong size = new AtomicLong();
+      delegate.forEachUrlAlias(urlAlias -> size.incrementAndGet());
+      long newCapacity = Math.max(MINIMAL_CAPACITY, 2 * size.get());
+
+      BloomFilter next = BloomFilter.create(newCapacity, falsePositiveRate);
+      nextFilter = next;
+      delegate.forEachUrlAlias(urlAlias -> next.put(urlAlias.alias()));
+      filter = next;
+      nextFilter = null;
+      capacity = newCapacity;
+      changesSinceRebuild.set(0);
+    }
+  }
+
+  /**
+   * Returns current statistics of the filter.
+   */
+  public FilterStats stats() {
+    long rejected = rejections.sum();
+    long passed = falsePositives.sum();
+    double observedRate = rejected + passed == 0 ? 0 : (double) passed / (rejected + passed);
+    return new FilterStats(lookups.sum(), rejected, passed, observedRate,
+        filter.expectedFalsePositiveRate());
+  }
+
+  private boolean isRejected(String alias) {
+    lookups.increment();
+    if (!filter.mightContain(alias)) {
+      rejections.increment();
+      return true;
+    }
+    return false;
+  }
+
+  @Nullable
+  private UrlAlias countFalsePositive(@Nullable UrlAlias urlAlias) {
+    if (urlAlias == null) {
+      falsePositives.increment();
+    }
+    return urlAlias;
+  }
+
+  private void onCreated(List<UrlAlias> urlAliases, boolean[] created) {
+    // A rebuild that starts after this point sees the aliases in the delegate. A rebuild in
+    // progress might have missed them, so they are put into the next filter as well. The next
+    // filter is read before the current one: if the rebuild has already finished, the current one
+    // is the new one.
+    BloomFilter next = nextFilter;
+    BloomFilter current = filter;
+    for (int i = 0; i < created.length; i++) {
+      if (created[i]) {
+        current.put(urlAliases.get(i).alias());
+        if (next != null) {
+          next.put(urlAliases.get(i).alias());
+        }
+        onChange();
+      }
+    }
+  }
+
+  private void onChange() {
+    // Only half of the capacity is filled by a rebuild, so this is when the filter gets full.
+    if (changesSinceRebuild.incrementAndGet() > capacity / 2
+        && rebuildScheduled.compareAndSet(false, true)) {
+      try {
+        rebuildExecutor.execute(() -> {
+          try {
+            rebuild();
+          } finally {
+            rebuildScheduled.set(false);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // The filter just stays fuller for a while, the rebuild is retried on the next change.
+        rebuildScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Statistics of the filter.
+   *
+   * @param lookups number of lookups
+   * @param rejections number of lookups answered by the filter alone
+   * @param falsePositives number of lookups that passed the filter, but found nothing
+   * @param observedFalsePositiveRate share of lookups of unknown aliases that passed the filter
+   * @param expectedFalsePositiveRate false positive rate estimated from the filter fill
+   */
+  public record FilterStats(
+      long lookups,
+      long rejections,
+      long falsePositives,
+      double observedFalsePositiveRate,
+      double expectedFalsePositiveRate
+  ) {}
+}
@@ -0,0 +1,262 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded in-process cache in front of another {@link UrlRepository}.
+ *
+ * <p>Only {@link #findUrlAlias(String)} results are cached. A cache hit is served from a
+ * {@link ConcurrentHashMap} without any locking, a lock is taken only to add or evict entries.
+ *
+ * <p>Eviction follows the W-TinyLFU scheme. New entries get into a small admission window (1% of
+ * the cache). An entry that leaves the window competes with the oldest entry of the main area and
+ * the one that was accessed more often recently (according to a {@link FrequencySketch}) stays in
+ * the cache. Thus a burst of one-off lookups can't flush out the hot aliases.
+ *
+ * <p>The cache is bounded both by the number of entries and by their approximate size in bytes.
+ */
+public class CachingUrlRepository implements UrlRepository {
+  private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  private final UrlRepository delegate;
+  private final long maximumEntries;
+  private final long maximumBytes;
+  private final long windowEntries;
+  private final ConcurrentHashMap<String, UrlAlias> entries = new ConcurrentHashMap<>();
+  private final FrequencySketch sketch;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  // Guards everything below, the eviction order in particular.
+  private final Object evictionLock = new Object();
+  private final LinkedHashSet<String> window = new LinkedHashSet<>();
+  private final LinkedHashSet<String> main = new LinkedHashSet<>();
+  private long bytes;
+  // Is read without the lock to detect deletions that happen while an alias is loaded.
+  private volatile long invalidations;
+
+  /**
+   * Creates an instance.
+   *
+   * @param delegate a repository with all the data
+   * @param maximumEntries maximal number of cached aliases
+   * @param maximumBytes maximal approximate size of cached aliases in bytes
+   */
+  public CachingUrlRepository(UrlRepository delegate, long maximumEntries, long maximumBytes) {
+    this.delegate = delegate;
+    this.maximumEntries = maximumEntries;
+    this.maximumBytes = maximumBytes;
+    this.windowEntries = Math.max(1, maximumEntries / 100);
+    this.sketch = new FrequencySketch(maximumEntries);
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    try {
+      delegate.createUrlAlias(urlAlias);
+    } catch (RuntimeException e) {
+      // A failed write may have been visible to a concurrent lookup before it was undone.
+      invalidate(urlAlias.alias());
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    try {
+      return delegate.createUrlAliases(urlAliases);
+    } catch (RuntimeException e) {
+      for (UrlAlias urlAlias : urlAliases) {
+        invalidate(urlAlias.alias());
+      }
+      throw e;
+    }
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    UrlAlias cached = lookUp(alias);
+    if (cached != null) {
+      return cached;
+    }
+
+    long invalidationsBeforeLoad = invalidations;
+    UrlAlias loaded = delegate.findUrlAlias(alias);
+    if (loaded != null) {
+      admit(loaded, invalidationsBeforeLoad);
+    }
+    return loaded;
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    UrlAlias cached = lookUp(alias);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    long invalidationsBeforeLoad = invalidations;
+    return delegate.findUrlAliasAsync(alias, executor).thenApply(loaded -> {
+      if (loaded != null) {
+        admit(loaded, invalidationsBeforeLoad);
+      }
+      return loaded;
+    });
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    delegate.deleteUrlAlias(email, alias);
+    invalidate(alias);
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return delegate.getAllAliasesForUser(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return delegate.getAliasesForUser(userEmail, after, limit);
+  }
+
+  @Override
+  public Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    return delegate.iterateAliasesForUser(userEmail);
+  }
+
+  @Override
+  public long size() {
+    return delegate.size();
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    delegate.forEachUrlAlias(action);
+  }
+
+  /**
+   * Returns current statistics of the cache.
+   */
+  public CacheStats stats() {
+    synchronized (evictionLock) {
+      return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes);
+    }
+  }
+
+  /**
+   * Returns the cached alias and records the lookup.
+   */
+  @Nullable
+  private UrlAlias lookUp(String alias) {
+    sketch.increment(alias);
+    UrlAlias cached = entries.get(alias);
+    if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+      // A new alias might take its name, so it is dropped rather than just skipped.
+      invalidate(alias);
+      cached = null;
+    }
+    if (cached != null) {
+      hits.increment();
+    } else {
+      misses.increment();
+    }
+    return cached;
+  }
+
+  private void admit(UrlAlias urlAlias, long invalidationsBeforeLoad) {
+    synchronized (evictionLock) {
+      // The alias might have been deleted while it was loaded, don't cache a stale value then.
+      if (invalidations != invalidationsBeforeLoad || entries.containsKey(urlAlias.alias())) {
+        return;
+      }
+      entries.put(urlAlias.alias(), urlAlias);
+      window.add(urlAlias.alias());
+      bytes += weigh(urlAlias);
+
+      while (window.size() > windowEntries) {
+        String candidate = pollFirst(window);
+        if (isOverCapacity() && !main.isEmpty()) {
+          compete(candidate, pollFirst(main));
+        } else {
+          main.add(candidate);
+        }
+      }
+      while (isOverCapacity()) {
+        evict(pollFirst(main.isEmpty() ? window : main));
+      }
+    }
+  }
+
+  /**
+   * Keeps the entry that left the window or the oldest entry of the main area, whichever was
+   * accessed more often recently, and evicts the other one.
+   */
+  private void compete(String candidate, String victim) {
+    if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+      evict(victim);
+      main.add(candidate);
+    } else {
+      evict(candidate);
+      // The victim has proved to be popular, it goes to the end of the queue.
+      main.add(victim);
+    }
+  }
+
+  private boolean isOverCapacity() {
+    return entries.size() > maximumEntries || bytes > maximumBytes;
+  }
+
+  private void evict(String alias) {
+    UrlAlias evicted = entries.remove(alias);
+    bytes -= weigh(evicted);
+    evictions.increment();
+  }
+
+  private void invalidate(String alias) {
+    synchronized (evictionLock) {
+      invalidations++;
+      UrlAlias removed = entries.remove(alias);
+      if (removed != null) {
+        if (!window.remove(alias)) {
+          main.remove(alias);
+        }
+        bytes -= weigh(removed);
+      }
+    }
+  }
+
+  private static String pollFirst(LinkedHashSet<String> set) {
+    Iterator<String> iterator = set.iterator();
+    String first = iterator.next();
+    iterator.remove();
+    return first;
+  }
+
+  private static long weigh(UrlAlias urlAlias) {
+    return ENTRY_OVERHEAD_BYTES + 2L * (urlAlias.alias().length()
+        + urlAlias.destinationUrl().length() + urlAlias.email().length());
+  }
+
+  /**
+   * Statistics of the cache.
+   *
+   * @param hits number of lookups served from the cache
+   * @param misses number of lookups that went to the underlying repository
+   * @param evictions number of entries evicted to keep the cache bounded
+   * @param entries current number of cached entries
+   * @param bytes current approximate size of cached entries
+   */
+  public record CacheStats(long hits, long misses, long evictions, long entries, long bytes) {}
+}
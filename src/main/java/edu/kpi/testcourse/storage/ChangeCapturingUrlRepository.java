@@ -0,0 +1,139 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link UrlRepository} decorator that records every created and deleted alias in a
+ * {@link ChangeFeed}.
+ *
+ * <p>A change is recorded after the underlying repository has made it, so a follower that reads
+ * the feed position first and all aliases next never misses a change. Changes of the same alias
+ * must reach the feed in the order they are made, thus the change and its recording are done
+ * under a lock of the alias. The locks are striped: aliases share {@link #STRIPES} locks, and
+ * changes of aliases with different locks don't wait for each other.
+ *
+ * <p>Expired aliases removed by the underlying repository itself are not recorded, followers hide
+ * them on lookup anyway.
+ */
+public class ChangeCapturingUrlRepository implements UrlRepository {
+  private static final int STRIPES = 64;
+
+  private final UrlRepository delegate;
+  private final ChangeFeed feed;
+  private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+  /**
+   * Creates an instance.
+   *
+   * @param delegate a repository with all the data
+   * @param feed a feed the changes are recorded in
+   */
+  public ChangeCapturingUrlRepository(UrlRepository delegate, ChangeFeed feed) {
+    this.delegate = delegate;
+    this.feed = feed;
+    for (int i = 0; i < STRIPES; i++) {
+      locks[i] = new ReentrantLock();
+    }
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    ReentrantLock lock = lockOf(urlAlias.alias());
+    lock.lock();
+    try {
+      delegate.createUrlAlias(urlAlias);
+      feed.created(urlAlias);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    // Locks are taken in the order of stripes, so that two batches can't deadlock.
+    boolean[] taken = new boolean[STRIPES];
+    for (UrlAlias urlAlias : urlAliases) {
+      taken[stripeOf(urlAlias.alias())] = true;
+    }
+    for (int i = 0; i < STRIPES; i++) {
+      if (taken[i]) {
+        locks[i].lock();
+      }
+    }
+    try {
+      boolean[] created = delegate.createUrlAliases(urlAliases);
+      feed.created(urlAliases, created);
+      return created;
+    } finally {
+      for (int i = STRIPES - 1; i >= 0; i--) {
+        if (taken[i]) {
+          locks[i].unlock();
+        }
+      }
+    }
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    return delegate.findUrlAlias(alias);
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return delegate.findUrlAliasAsync(alias, executor);
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    ReentrantLock lock = lockOf(alias);
+    lock.lock();
+    try {
+      delegate.deleteUrlAlias(email, alias);
+      feed.deleted(alias);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return delegate.getAllAliasesForUser(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return delegate.getAliasesForUser(userEmail, after, limit);
+  }
+
+  @Override
+  public Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    return delegate.iterateAliasesForUser(userEmail);
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    delegate.forEachUrlAlias(action);
+  }
+
+  @Override
+  public long size() {
+    return delegate.size();
+  }
+
+  private ReentrantLock lockOf(String alias) {
+    return locks[stripeOf(alias)];
+  }
+
+  private static int stripeOf(String alias) {
+    int h = alias.hashCode();
+    return (h ^ (h >>> 16)) & (STRIPES - 1);
+  }
+}
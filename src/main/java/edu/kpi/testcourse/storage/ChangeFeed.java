@@ -0,0 +1,168 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The latest changes of URL aliases (change data capture), which read-only followers tail to keep
+ * their copies of the aliases current.
+ *
+ * <p>Changes are numbered one by one starting from <tt>1</tt> and kept in a ring buffer, so only
+ * the latest ones are available. A follower that falls behind the buffer, or that follows another
+ * epoch (the feed of the leader before a restart, since sequences are not persisted), gets
+ * {@link SequenceExpired} and has to bootstrap from a snapshot again.
+ *
+ * <p>Changes of the same alias are recorded in the order they are made, see
+ * {@link ChangeCapturingUrlRepository}. The feed is thread-safe.
+ */
+public class ChangeFeed {
+  private static final SecureRandom random = new SecureRandom();
+
+  private final long epoch = random.nextLong();
+  private final AliasChange[] changes;
+  // Guarded by the feed monitor.
+  private long lastSequence;
+  private CompletableFuture<Void> nextChange = new CompletableFuture<>();
+  private boolean awaited;
+
+  /**
+   * Creates an empty feed.
+   *
+   * @param capacity number of the latest changes kept in the feed
+   */
+  public ChangeFeed(int capacity) {
+    this.changes = new AliasChange[capacity];
+  }
+
+  /**
+   * Returns the identifier of the feed, which changes on every restart.
+   */
+  public long epoch() {
+    return epoch;
+  }
+
+  /**
+   * Returns the number of the latest change or <tt>0</tt> if there were no changes.
+   */
+  public synchronized long lastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Records creation of the URL alias.
+   */
+  public void created(UrlAlias urlAlias) {
+    CompletableFuture<Void> waiting;
+    synchronized (this) {
+      append(AliasChange.Type.CREATE, urlAlias.alias(), urlAlias);
+      waiting = takeWaiting();
+    }
+    notifyWaiting(waiting);
+  }
+
+  /**
+   * Records creation of the URL aliases that were actually created.
+   *
+   * @param urlAliases URL aliases of a batch
+   * @param created whether every URL alias of the batch was created
+   */
+  public void created(List<UrlAlias> urlAliases, boolean[] created) {
+    CompletableFuture<Void> waiting;
+    synchronized (this) {
+      for (int i = 0; i < created.length; i++) {
+        if (created[i]) {
+          append(AliasChange.Type.CREATE, urlAliases.get(i).alias(), urlAliases.get(i));
+        }
+      }
+      waiting = takeWaiting();
+    }
+    notifyWaiting(waiting);
+  }
+
+  /**
+   * Records deletion of the alias.
+   */
+  public void deleted(String alias) {
+    CompletableFuture<Void> waiting;
+    synchronized (this) {
+      append(AliasChange.Type.DELETE, alias, null);
+      waiting = takeWaiting();
+    }
+    notifyWaiting(waiting);
+  }
+
+  /**
+   * Returns changes that follow the given one.
+   *
+   * @param epoch the epoch the sequence belongs to
+   * @param sequence number of the last change the caller knows about
+   * @param limit maximal number of changes to return
+   * @return up to <tt>limit</tt> changes ordered by sequence, empty if there are no newer changes
+   * @throws SequenceExpired if the feed no longer has the changes that follow the given one
+   */
+  public synchronized List<AliasChange> changesAfter(long epoch, long sequence, int limit)
+      throws SequenceExpired {
+    long firstKept = Math.max(1, lastSequence - changes.length + 1);
+    if (epoch != this.epoch || sequence < firstKept - 1 || sequence > lastSequence) {
+      throw new SequenceExpired();
+    }
+    long end = Math.min(lastSequence, sequence + limit);
+    List<AliasChange> result = new ArrayList<>((int) (end - sequence));
+    for (long s = sequence + 1; s <= end; s++) {
+      result.add(changes[index(s)]);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a future that completes when there is a change after the given one. The future is
+   * completed by a thread of the common pool, never by the thread that makes the change.
+   */
+  public synchronized CompletableFuture<Void> awaitChangeAfter(long sequence) {
+    if (sequence < lastSequence) {
+      return CompletableFuture.completedFuture(null);
+    }
+    awaited = true;
+    // A copy, so that a waiter that gives up can't complete the future of other waiters.
+    return nextChange.copy();
+  }
+
+  private void append(AliasChange.Type type, String alias, UrlAlias urlAlias) {
+    lastSequence++;
+    changes[index(lastSequence)] = new AliasChange(lastSequence, type, alias, urlAlias);
+  }
+
+  private CompletableFuture<Void> takeWaiting() {
+    if (!awaited) {
+      return null;
+    }
+    CompletableFuture<Void> waiting = nextChange;
+    nextChange = new CompletableFuture<>();
+    awaited = false;
+    return waiting;
+  }
+
+  private static void notifyWaiting(CompletableFuture<Void> waiting) {
+    if (waiting != null) {
+      // The writer may hold a lock of the alias, waiters must not run their callbacks under it.
+      waiting.completeAsync(() -> null);
+    }
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % changes.length);
+  }
+
+  /**
+   * Error for a case when a follower asks for changes that are no longer in the feed.
+   */
+  public static class SequenceExpired extends IllegalStateException {
+    public SequenceExpired() {
+      super("Changes after this sequence are no longer available");
+    }
+  }
+}
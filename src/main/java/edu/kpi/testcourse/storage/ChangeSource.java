@@ -0,0 +1,29 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.AliasSnapshot;
+import edu.kpi.testcourse.storage.ChangeFeed.SequenceExpired;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Where a follower gets URL aliases of its leader from.
+ */
+public interface ChangeSource {
+  /**
+   * Returns all URL aliases of the leader together with the position of its change feed.
+   */
+  AliasSnapshot snapshot();
+
+  /**
+   * Returns changes that follow the given one, waiting for them if there are none yet.
+   *
+   * @param epoch the epoch the sequence belongs to
+   * @param sequence number of the last change the caller knows about
+   * @param limit maximal number of changes to return
+   * @param wait how long to wait for a change, an empty list is returned after that
+   * @throws SequenceExpired if the leader no longer has the changes that follow the given one
+   */
+  List<AliasChange> changesAfter(long epoch, long sequence, int limit, Duration wait)
+      throws SequenceExpired;
+}
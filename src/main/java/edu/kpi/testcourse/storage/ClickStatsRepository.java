@@ -0,0 +1,33 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Stores click statistics of shortened URLs.
+ */
+public interface ClickStatsRepository {
+  /**
+   * Adds clicks to the stored statistics: click counts are summed up, the latest access time is
+   * kept. All the given statistics are persisted at once.
+   *
+   * @param clicks clicks counted since the previous call, an alias may occur several times
+   */
+  void addClicks(List<ClickStats> clicks);
+
+  /**
+   * Drops click statistics of the aliases, so that their clicks are counted from zero again. All
+   * of them are persisted at once.
+   *
+   * @param aliases aliases whose statistics are dropped, aliases without statistics are ignored
+   */
+  void resetClickStats(List<String> aliases);
+
+  /**
+   * Finds click statistics of the given alias.
+   *
+   * @return the statistics or <tt>null</tt> if there were no clicks on the alias
+   */
+  @Nullable ClickStats findClickStats(String alias);
+}
@@ -0,0 +1,33 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * An in-memory fake implementation of {@link ClickStatsRepository}.
+ */
+public class ClickStatsRepositoryFakeImpl implements ClickStatsRepository {
+  private final Map<String, ClickStats> statsByAlias = new ConcurrentHashMap<>();
+
+  @Override
+  public void addClicks(List<ClickStats> clicks) {
+    for (ClickStats stats : clicks) {
+      statsByAlias.merge(stats.alias(), stats, ClickStats::plus);
+    }
+  }
+
+  @Override
+  public void resetClickStats(List<String> aliases) {
+    for (String alias : aliases) {
+      statsByAlias.remove(alias);
+    }
+  }
+
+  @Override
+  public @Nullable ClickStats findClickStats(String alias) {
+    return statsByAlias.get(alias);
+  }
+}
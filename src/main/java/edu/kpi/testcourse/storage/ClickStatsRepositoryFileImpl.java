@@ -0,0 +1,186 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import edu.kpi.testcourse.serialization.JsonTool;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * A file-backed implementation of {@link ClickStatsRepository} suitable for use in production.
+ *
+ * <p>Like {@link UrlRepositoryFileImpl}, the state is persisted as a JSON snapshot
+ * (<tt>click-stats.json</tt>) plus an append-only log (<tt>click-stats.log</tt>), which is
+ * compacted into the snapshot after {@link UrlShortenerConfig#logCompactionThreshold()} records.
+ * Log records hold the updated totals of aliases rather than the added clicks, so replaying a
+ * record that is already in the snapshot does not count its clicks twice. A record without clicks
+ * drops the statistics of its alias.
+ *
+ * <p>Statistics are kept in a {@link ConcurrentHashMap}, reads take no lock.
+ */
+public class ClickStatsRepositoryFileImpl implements ClickStatsRepository {
+  private static final int AVERAGE_SNAPSHOT_ENTRY_BYTES = 64;
+  private static final Histogram WRITE_BYTES = MetricsRegistry.global().sizes(
+      "repository_write_bytes", "Size of repository writes", "repository", "clicks");
+  private static final Histogram WRITE_SECONDS = MetricsRegistry.global().timer(
+      "repository_write_seconds", "Duration of repository writes", "repository", "clicks");
+  private static final Histogram COMPACTION_SECONDS = MetricsRegistry.global().timer(
+      "repository_compaction_seconds", "Duration of repository log compactions",
+      "repository", "clicks");
+  private static final Counter COMPACTION_FAILURES = MetricsRegistry.global().counter(
+      "repository_compaction_failures_total", "Number of failed repository log compactions",
+      "repository", "clicks");
+
+  // Statistics, keyed by alias. Written under the repository monitor, read without any locking.
+  private final ConcurrentHashMap<String, ClickStats> statsByAlias;
+
+  private final JsonTool jsonTool;
+  private final Path snapshotFilePath;
+  private final AppendOnlyLog log;
+  private final int logCompactionThreshold;
+  // Guarded by the repository monitor.
+  private int logSize;
+
+  /**
+   * Creates an instance.
+   */
+  @Inject
+  public ClickStatsRepositoryFileImpl(JsonTool jsonTool, UrlShortenerConfig appConfig) {
+    this.jsonTool = jsonTool;
+    this.snapshotFilePath = appConfig.storageRoot().resolve("click-stats.json");
+    this.statsByAlias = JsonSnapshots.load(jsonTool,
+      Files.exists(snapshotFilePath) ? List.of(snapshotFilePath) : List.of(),
+      ClickStats.class, AVERAGE_SNAPSHOT_ENTRY_BYTES);
+    this.log = new AppendOnlyLog(appConfig.storageRoot().resolve("click-stats.log"), appConfig);
+    this.logCompactionThreshold = appConfig.logCompactionThreshold();
+    this.logSize = replayLog(jsonTool, log, statsByAlias);
+  }
+
+  @Override
+  public synchronized void addClicks(List<ClickStats> clicks) {
+    Map<String, ClickStats> updated = new LinkedHashMap<>();
+    for (ClickStats added : clicks) {
+      ClickStats current = updated.get(added.alias());
+      if (current == null) {
+        current = statsByAlias.get(added.alias());
+      }
+      updated.put(added.alias(), current == null ? added : current.plus(added));
+    }
+    if (updated.isEmpty()) {
+      return;
+    }
+
+    // The map is changed only after the log is written, so a failed write can be retried.
+    List<String> lines = new ArrayList<>(updated.size());
+    for (ClickStats stats : updated.values()) {
+      lines.add(jsonTool.toJson(stats));
+    }
+    long start = System.nanoTime();
+    WRITE_BYTES.record(log.append(lines));
+    WRITE_SECONDS.recordSince(start);
+    statsByAlias.putAll(updated);
+    logged(lines.size());
+  }
+
+  @Override
+  public synchronized void resetClickStats(List<String> aliases) {
+    List<String> lines = new ArrayList<>(aliases.size());
+    for (String alias : aliases) {
+      if (statsByAlias.containsKey(alias)) {
+        lines.add(jsonTool.toJson(new ClickStats(alias, 0, 0)));
+      }
+    }
+    if (lines.isEmpty()) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    WRITE_BYTES.record(log.append(lines));
+    WRITE_SECONDS.recordSince(start);
+    for (String alias : aliases) {
+      statsByAlias.remove(alias);
+    }
+    logged(lines.size());
+  }
+
+  @Override
+  public @Nullable ClickStats findClickStats(String alias) {
+    return statsByAlias.get(alias);
+  }
+
+  /**
+   * Counts records appended to the log and compacts the log when there are enough of them.
+   */
+  private void logged(int records) {
+    logSize += records;
+    if (logSize >= logCompactionThreshold) {
+      try {
+        compact();
+      } catch (RuntimeException e) {
+        // The records are already in the log, compaction is retried after the next write.
+        COMPACTION_FAILURES.increment();
+      }
+    }
+  }
+
+  private static int replayLog(
+      JsonTool jsonTool, AppendOnlyLog log, Map<String, ClickStats> statsByAlias
+  ) {
+    List<String> records = log.readRecords();
+    for (String json : records) {
+      ClickStats stats = jsonTool.fromJson(json, ClickStats.class);
+      if (stats.clicks() == 0) {
+        statsByAlias.remove(stats.alias());
+      } else {
+        statsByAlias.put(stats.alias(), stats);
+      }
+    }
+    return records.size();
+  }
+
+  /**
+   * Writes all statistics into a new snapshot and clears the log. The snapshot is written into a
+   * temporary file first and then atomically moved in place.
+   */
+  private void compact() {
+    long start = System.nanoTime();
+    Path tmpFilePath = snapshotFilePath.resolveSibling(snapshotFilePath.getFileName() + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmpFilePath, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        String json = jsonTool.toJson(statsByAlias);
+        ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        // The log is truncated after this, so the snapshot must be durable regardless of the
+        // fsync policy.
+        channel.force(false);
+      }
+      Files.move(tmpFilePath, snapshotFilePath,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    log.truncate();
+    logSize = 0;
+    COMPACTION_SECONDS.recordSince(start);
+  }
+}
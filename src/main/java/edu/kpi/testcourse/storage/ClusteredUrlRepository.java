@@ -0,0 +1,223 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link UrlRepository} of a cluster member: every member stores the aliases of its own
+ * consistent-hash ranges (see {@link HashRing}), and operations on aliases of other members are
+ * forwarded to them.
+ *
+ * <p>Aliases of a user are spread over all members, so user queries ask all members at once and
+ * merge the answers. {@link #forEachUrlAlias(Consumer)} and {@link #size()} cover only the aliases
+ * stored here: they feed indexes and metrics of this member, and walking the whole cluster on
+ * every start would not scale.
+ *
+ * <p>All members must be configured with the same member list. Aliases are not moved when the
+ * list changes, so the aliases of the ranges that change owners are not found until they are
+ * copied to their new owners.
+ */
+public class ClusteredUrlRepository implements UrlRepository {
+  private static final int VIRTUAL_NODES = 128;
+  private static final Counter FORWARDED = MetricsRegistry.global().counter(
+      "cluster_forwarded_operations_total", "Alias operations forwarded to other cluster members");
+
+  private final String self;
+  private final Map<String, UrlRepository> members;
+  private final HashRing ring;
+
+  /**
+   * Creates an instance.
+   *
+   * @param self the name of this member
+   * @param members repositories of all members by their names, the repository of this member
+   *     stores its aliases, the others forward to other members
+   */
+  public ClusteredUrlRepository(String self, Map<String, UrlRepository> members) {
+    if (!members.containsKey(self)) {
+      throw new IllegalArgumentException("Members don't include " + self);
+    }
+    this.self = self;
+    this.members = new LinkedHashMap<>(members);
+    this.ring = new HashRing(new ArrayList<>(members.keySet()), VIRTUAL_NODES);
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    ownerOf(urlAlias.alias()).createUrlAlias(urlAlias);
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    // The batch of this member is written by the calling thread.
+    return join(createUrlAliasesAsync(urlAliases, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<boolean[]> createUrlAliasesAsync(
+      List<UrlAlias> urlAliases, Executor executor
+  ) {
+    Map<String, List<Integer>> indexes = new LinkedHashMap<>();
+    for (int i = 0; i < urlAliases.size(); i++) {
+      indexes.computeIfAbsent(ring.ownerOf(urlAliases.get(i).alias()), member -> new ArrayList<>())
+          .add(i);
+    }
+    // Every member gets a single batch. Requests to other members don't block a thread, so they
+    // are sent first, and the members write their batches while this member writes its own.
+    List<String> order = new ArrayList<>(indexes.keySet());
+    if (order.remove(self)) {
+      order.add(self);
+    }
+
+    boolean[] created = new boolean[urlAliases.size()];
+    CompletableFuture<?>[] written = new CompletableFuture<?>[order.size()];
+    for (int m = 0; m < written.length; m++) {
+      List<Integer> memberIndexes = indexes.get(order.get(m));
+      List<UrlAlias> batch = new ArrayList<>(memberIndexes.size());
+      for (int i : memberIndexes) {
+        batch.add(urlAliases.get(i));
+      }
+      written[m] = member(order.get(m)).createUrlAliasesAsync(batch, executor)
+        .thenAccept(batchCreated -> {
+          // Every member writes its own positions, and allOf() publishes the writes.
+          for (int i = 0; i < batchCreated.length; i++) {
+            created[memberIndexes.get(i)] = batchCreated[i];
+          }
+        });
+    }
+    return CompletableFuture.allOf(written).thenApply(all -> created);
+  }
+
+  @Override
+  public CompletableFuture<Void> createUrlAliasAsync(UrlAlias urlAlias, Executor executor) {
+    return ownerOf(urlAlias.alias()).createUrlAliasAsync(urlAlias, executor);
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    return ownerOf(alias).findUrlAlias(alias);
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return ownerOf(alias).findUrlAliasAsync(alias, executor);
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    ownerOf(alias).deleteUrlAlias(email, alias);
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteUrlAliasAsync(
+      String email, String alias, Executor executor
+  ) {
+    return ownerOf(alias).deleteUrlAliasAsync(email, alias, executor);
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    // The aliases of this member are read by the calling thread.
+    return join(getAllAliasesForUserAsync(userEmail, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<List<UrlAlias>> getAllAliasesForUserAsync(
+      String userEmail, Executor executor
+  ) {
+    return askAll(member -> member.getAllAliasesForUserAsync(userEmail, executor))
+      .thenApply(List::copyOf);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    // The aliases of this member are read by the calling thread.
+    return join(getAliasesForUserAsync(userEmail, after, limit, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<List<UrlAlias>> getAliasesForUserAsync(
+      String userEmail, @Nullable String after, int limit, Executor executor
+  ) {
+    // Every member returns its first aliases in order, the first ones of all of them are the
+    // first ones of the merged list.
+    return askAll(member -> member.getAliasesForUserAsync(userEmail, after, limit, executor))
+      .thenApply(result -> {
+        result.sort(Comparator.comparing(UrlAlias::alias));
+        return List.copyOf(result.subList(0, Math.min(limit, result.size())));
+      });
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    members.get(self).forEachUrlAlias(action);
+  }
+
+  @Override
+  public long size() {
+    return members.get(self).size();
+  }
+
+  /**
+   * Sends the query to all members and concatenates their answers. Requests to other members don't
+   * block a thread, so they are sent first, and this member is queried while they respond.
+   */
+  private CompletableFuture<List<UrlAlias>> askAll(
+      Function<UrlRepository, CompletableFuture<List<UrlAlias>>> query
+  ) {
+    List<String> order = new ArrayList<>(members.keySet());
+    order.remove(self);
+    order.add(self);
+
+    List<CompletableFuture<List<UrlAlias>>> answers = new ArrayList<>(order.size());
+    for (String member : order) {
+      answers.add(query.apply(members.get(member)));
+    }
+    return CompletableFuture.allOf(answers.toArray(CompletableFuture<?>[]::new))
+      .thenApply(all -> {
+        List<UrlAlias> result = new ArrayList<>();
+        for (CompletableFuture<List<UrlAlias>> answer : answers) {
+          result.addAll(answer.join());
+        }
+        return result;
+      });
+  }
+
+  private UrlRepository ownerOf(String alias) {
+    return member(ring.ownerOf(alias));
+  }
+
+  private UrlRepository member(String name) {
+    if (!name.equals(self)) {
+      FORWARDED.increment();
+    }
+    return members.get(name);
+  }
+
+  /**
+   * Waits for the future, rethrowing its failure as it is.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
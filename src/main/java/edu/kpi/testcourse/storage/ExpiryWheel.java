@@ -0,0 +1,128 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timer wheel of alias expirations.
+ *
+ * <p>Time is split into ticks. There are {@link #LEVELS} wheels of {@link #SLOTS} slots each: a
+ * slot of the first wheel covers one tick, a slot of the next wheel covers all slots of the
+ * previous one, and so on, so four wheels of 64 slots cover 2<sup>24</sup> ticks (194 days with
+ * one-second ticks). An alias is put into the slot of the lowest wheel that reaches its expiration
+ * tick, which takes <tt>O(1)</tt>. When the first wheel completes a turn, the current slot of the
+ * next wheel is cascaded: its aliases are spread over the lower wheels, closer to their ticks.
+ * Expirations further than the highest wheel reaches just make another turn there.
+ *
+ * <p>Thus advancing the wheel by a tick touches only the aliases that expire at that tick (plus
+ * rare cascades), no matter how many aliases are scheduled.
+ *
+ * <p>The wheel is not thread-safe.
+ */
+final class ExpiryWheel {
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = 4;
+
+  private final long tickMillis;
+  private final List<List<Timer>> slots = new ArrayList<>(LEVELS * SLOTS);
+  // Aliases scheduled to expire at a tick that has already passed.
+  private List<String> overdue = new ArrayList<>();
+  private long currentTick;
+  private int size;
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param tickMillis duration of a tick, which is the precision of the wheel
+   * @param now current time in milliseconds since the epoch
+   */
+  ExpiryWheel(long tickMillis, long now) {
+    this.tickMillis = tickMillis;
+    this.currentTick = Math.floorDiv(now, tickMillis);
+    for (int i = 0; i < LEVELS * SLOTS; i++) {
+      slots.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * Schedules expiration of the alias. It is returned by {@link #advance(long)} at the first tick
+   * that starts at or after the expiration time.
+   *
+   * @param alias a short name of the alias
+   * @param expiresAt expiration time in milliseconds since the epoch
+   */
+  void schedule(String alias, long expiresAt) {
+    // Rounded up, so that an alias never expires early.
+    long tick = Math.floorDiv(expiresAt - 1, tickMillis) + 1;
+    if (tick <= currentTick) {
+      overdue.add(alias);
+    } else {
+      place(new Timer(alias, tick));
+    }
+  }
+
+  /**
+   * Moves the wheel to the given time.
+   *
+   * @param now current time in milliseconds since the epoch
+   * @return aliases that expired since the previous call
+   */
+  List<String> advance(long now) {
+    List<String> expired = overdue;
+    overdue = new ArrayList<>();
+    long targetTick = Math.floorDiv(now, tickMillis);
+    if (size == 0 && currentTick < targetTick) {
+      currentTick = targetTick;
+    }
+    while (currentTick < targetTick) {
+      currentTick++;
+      // Higher wheels first, a cascaded alias can land in the current slot of a lower wheel.
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+          for (Timer timer : takeSlot(level)) {
+            place(timer);
+          }
+        }
+      }
+      for (Timer timer : takeSlot(0)) {
+        expired.add(timer.alias);
+      }
+    }
+    return expired;
+  }
+
+  /**
+   * Returns the number of aliases in the wheel.
+   */
+  int size() {
+    return size + overdue.size();
+  }
+
+  private void place(Timer timer) {
+    long delta = timer.tick - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+      level++;
+    }
+    slots.get(slotIndex(level, timer.tick)).add(timer);
+    size++;
+  }
+
+  private List<Timer> takeSlot(int level) {
+    int index = slotIndex(level, currentTick);
+    List<Timer> timers = slots.get(index);
+    if (timers.isEmpty()) {
+      return timers;
+    }
+    slots.set(index, new ArrayList<>());
+    size -= timers.size();
+    return timers;
+  }
+
+  private static int slotIndex(int level, long tick) {
+    return level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+  }
+
+  private record Timer(String alias, long tick) {}
+}
@@ -0,0 +1,83 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forces writes of a repository file to the disk according to the configured
+ * {@link FsyncPolicy}.
+ */
+class FileSync implements AutoCloseable {
+  private static final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "repository-fsync");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private final Path path;
+  private final FsyncPolicy policy;
+  private final AtomicBoolean dirty = new AtomicBoolean();
+  private final ScheduledFuture<?> periodicSync;
+
+  /**
+   * Creates an instance.
+   *
+   * @param path a file that is synced
+   * @param appConfig configuration with the fsync policy
+   */
+  FileSync(Path path, UrlShortenerConfig appConfig) {
+    this.path = path;
+    this.policy = appConfig.fsyncPolicy();
+    if (policy == FsyncPolicy.INTERVAL) {
+      long interval = appConfig.fsyncIntervalMillis();
+      periodicSync = scheduler.scheduleWithFixedDelay(this::syncIfDirty, interval, interval,
+          TimeUnit.MILLISECONDS);
+    } else {
+      periodicSync = null;
+    }
+  }
+
+  /**
+   * Must be called after the data is written into the file through the given channel.
+   */
+  void afterWrite(FileChannel channel) throws IOException {
+    if (policy == FsyncPolicy.ALWAYS) {
+      channel.force(false);
+    } else if (policy == FsyncPolicy.INTERVAL) {
+      dirty.set(true);
+    }
+  }
+
+  /**
+   * Stops periodic syncing, pending writes are synced right away.
+   */
+  @Override
+  public void close() {
+    if (periodicSync != null) {
+      periodicSync.cancel(false);
+      syncIfDirty();
+    }
+  }
+
+  private void syncIfDirty() {
+    if (!dirty.getAndSet(false)) {
+      return;
+    }
+    // Forcing through any descriptor of the file flushes all its dirty pages.
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.force(false);
+    } catch (IOException e) {
+      dirty.set(true);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch of 4-bit counters that estimates how often keys were seen recently.
+ *
+ * <p>It is the "TinyLFU" part of a cache admission policy: a compact approximate history of
+ * accesses, including the keys that are not in the cache. All counters are halved after a number
+ * of increments (aging), so the history follows changes of popularity.
+ *
+ * <p>The sketch is lock-free, concurrent updates might be lost occasionally, which is fine for an
+ * estimate.
+ */
+class FrequencySketch {
+  private static final int DEPTH = 4;
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long[] SEEDS = {
+      0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+  };
+
+  private final AtomicLongArray table;
+  private final int tableMask;
+  private final int sampleSize;
+  private final AtomicInteger additions = new AtomicInteger();
+
+  /**
+   * Creates a sketch sized for the given number of entries of the cache.
+   */
+  FrequencySketch(long maximumEntries) {
+    int entries = (int) Math.min(1 << 30, Math.max(16, maximumEntries));
+    int size = Integer.highestOneBit(entries - 1) << 1;
+    this.table = new AtomicLongArray(size);
+    this.tableMask = size - 1;
+    this.sampleSize = 10 * size;
+  }
+
+  /**
+   * Returns the estimated number of times the key was seen, up to 15.
+   */
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < DEPTH; i++) {
+      frequency = Math.min(frequency, counter(hash, i));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access to the key.
+   */
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < DEPTH; i++) {
+      added |= incrementCounter(hash, i);
+    }
+    if (added && additions.incrementAndGet() >= sampleSize) {
+      reset();
+    }
+  }
+
+  private int counter(int hash, int depth) {
+    int index = index(hash, depth);
+    int offset = offset(hash, depth);
+    return (int) ((table.get(index) >>> offset) & 0xFL);
+  }
+
+  private boolean incrementCounter(int hash, int depth) {
+    int index = index(hash, depth);
+    int offset = offset(hash, depth);
+    long mask = 0xFL << offset;
+    while (true) {
+      long value = table.get(index);
+      if ((value & mask) == mask) {
+        return false;
+      }
+      if (table.compareAndSet(index, value, value + (1L << offset))) {
+        return true;
+      }
+    }
+  }
+
+  private void reset() {
+    additions.set(0);
+    for (int i = 0; i < table.length(); i++) {
+      table.set(i, (table.get(i) >>> 1) & RESET_MASK);
+    }
+  }
+
+  private int index(int hash, int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    return (int) (h >>> 32) & tableMask;
+  }
+
+  private int offset(int hash, int depth) {
+    // Each long holds 16 counters, every row of the sketch uses its own quarter of them.
+    return ((depth << 2) + ((hash >>> (depth << 3)) & 3)) << 2;
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
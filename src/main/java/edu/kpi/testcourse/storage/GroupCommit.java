@@ -0,0 +1,125 @@
+package edu.kpi.testcourse.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Group commit of repository writes.
+ *
+ * <p>Writers enqueue their records and then wait until the records are flushed. The first waiting
+ * writer becomes a leader: it takes all records enqueued so far and flushes them at once, while
+ * records of writers that come during the flush are collected into the next batch. This way many
+ * concurrent writes turn into a few larger disk writes (and fsyncs), yet every writer returns only
+ * after its own record is flushed.
+ *
+ * <p>Records are flushed in the order they were enqueued, so enqueue them under the same lock that
+ * protects the in-memory state they describe.
+ *
+ * @param <T> a type of records
+ */
+class GroupCommit<T> {
+  private final Flusher<T> flusher;
+  private final Object lock = new Object();
+  private Batch<T> openBatch = new Batch<>();
+  private boolean flushing;
+
+  GroupCommit(Flusher<T> flusher) {
+    this.flusher = flusher;
+  }
+
+  /**
+   * Enqueues the record and waits until it is flushed.
+   */
+  void commit(T record) {
+    await(enqueue(record));
+  }
+
+  /**
+   * Adds the record to the batch that is going to be flushed next.
+   *
+   * @return the batch the record belongs to, pass it to {@link #await(Batch)}
+   */
+  Batch<T> enqueue(T record) {
+    synchronized (lock) {
+      openBatch.records.add(record);
+      return openBatch;
+    }
+  }
+
+  /**
+   * Adds all the records to the batch that is going to be flushed next, keeping their order.
+   *
+   * @return the batch the records belong to, pass it to {@link #await(Batch)}
+   */
+  Batch<T> enqueueAll(List<T> records) {
+    synchronized (lock) {
+      openBatch.records.addAll(records);
+      return openBatch;
+    }
+  }
+
+  /**
+   * Waits until the batch is flushed, flushing it by itself if nobody else does.
+   *
+   * @throws RuntimeException if the batch could not be flushed
+   */
+  void await(Batch<T> batch) {
+    boolean interrupted = false;
+    while (true) {
+      Batch<T> leading;
+      synchronized (lock) {
+        while (flushing && !batch.flushed) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            // The record is already visible in memory, so we have to wait for the flush anyway.
+            interrupted = true;
+          }
+        }
+        if (batch.flushed) {
+          break;
+        }
+        flushing = true;
+        leading = openBatch;
+        openBatch = new Batch<>();
+      }
+
+      try {
+        flusher.flush(leading.records);
+      } catch (IOException | RuntimeException e) {
+        leading.error = e;
+      }
+
+      synchronized (lock) {
+        leading.flushed = true;
+        flushing = false;
+        lock.notifyAll();
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (batch.error != null) {
+      throw new RuntimeException("Could not persist the repository change", batch.error);
+    }
+  }
+
+  /**
+   * Writes a batch of records to the disk.
+   */
+  @FunctionalInterface
+  interface Flusher<T> {
+    void flush(List<T> records) throws IOException;
+  }
+
+  /**
+   * Records that are flushed together.
+   */
+  static class Batch<T> {
+    private final List<T> records = new ArrayList<>();
+    private boolean flushed;
+    private Exception error;
+  }
+}
@@ -0,0 +1,69 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A consistent-hash ring that splits aliases between members of a cluster.
+ *
+ * <p>Every member is placed on the ring at several points (virtual nodes), and an alias belongs
+ * to the member of the first point at or after the hash of the alias. With many points per member
+ * the ranges are balanced, and adding or removing a member moves only the aliases of its own
+ * ranges. The ring is immutable.
+ */
+final class HashRing {
+  private static final long MEMBER_SEED = 0x5851F42D4C957F2DL;
+  private static final long KEY_SEED = 0x9E3779B97F4A7C15L;
+
+  private final List<String> members;
+  // Points sorted by hash, with the index of the member of every point.
+  private final long[] points;
+  private final int[] owners;
+
+  /**
+   * Creates a ring.
+   *
+   * @param members distinct names of the members, every member must use the same names
+   * @param virtualNodes number of points of every member
+   */
+  HashRing(List<String> members, int virtualNodes) {
+    if (members.isEmpty()) {
+      throw new IllegalArgumentException("A ring needs at least one member");
+    }
+    this.members = List.copyOf(members);
+    long[][] entries = new long[members.size() * virtualNodes][];
+    for (int member = 0; member < members.size(); member++) {
+      for (int node = 0; node < virtualNodes; node++) {
+        long point = BloomFilter.hash(members.get(member) + "#" + node, MEMBER_SEED);
+        entries[member * virtualNodes + node] = new long[] {point, member};
+      }
+    }
+    // Ties are broken by the member name, so that every instance builds the same ring.
+    Arrays.sort(entries, (a, b) -> a[0] != b[0]
+        ? Long.compare(a[0], b[0])
+        : members.get((int) a[1]).compareTo(members.get((int) b[1])));
+    this.points = new long[entries.length];
+    this.owners = new int[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      points[i] = entries[i][0];
+      owners[i] = (int) entries[i][1];
+    }
+  }
+
+  /**
+   * Returns the member the key belongs to.
+   */
+  String ownerOf(String key) {
+    long hash = BloomFilter.hash(key, KEY_SEED);
+    int index = Arrays.binarySearch(points, hash);
+    if (index < 0) {
+      index = -index - 1;
+    }
+    // Past the last point the ring wraps around to the first one.
+    return members.get(owners[index == points.length ? 0 : index]);
+  }
+
+  List<String> members() {
+    return members;
+  }
+}
@@ -0,0 +1,94 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.AliasChanges;
+import edu.kpi.testcourse.entities.AliasSnapshot;
+import edu.kpi.testcourse.serialization.JsonTool;
+import edu.kpi.testcourse.storage.ChangeFeed.SequenceExpired;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A {@link ChangeSource} that reads the replication endpoints of a leader over HTTP.
+ */
+public class HttpChangeSource implements ChangeSource {
+  /**
+   * Header with the shared secret of the leader and its followers.
+   */
+  public static final String TOKEN_HEADER = "X-Replication-Token";
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  // How much longer than the long poll itself a response may take.
+  private static final Duration RESPONSE_MARGIN = Duration.ofSeconds(10);
+
+  private final HttpClient client =
+      HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+  private final String leaderUrl;
+  private final String token;
+  private final JsonTool jsonTool;
+
+  /**
+   * Creates an instance.
+   *
+   * @param leaderUrl base URL of the leader, like <tt>http://10.0.0.1:8080</tt>
+   * @param token the shared secret configured on the leader
+   * @param jsonTool JSON serialization tool
+   */
+  public HttpChangeSource(String leaderUrl, String token, JsonTool jsonTool) {
+    this.leaderUrl = leaderUrl.endsWith("/")
+        ? leaderUrl.substring(0, leaderUrl.length() - 1)
+        : leaderUrl;
+    this.token = token;
+    this.jsonTool = jsonTool;
+  }
+
+  @Override
+  public AliasSnapshot snapshot() {
+    // A snapshot of a large repository takes a while to build and to transfer.
+    HttpResponse<String> response = get("/replication/snapshot", Duration.ofMinutes(5));
+    checkStatus(response);
+    return jsonTool.fromJson(response.body(), AliasSnapshot.class);
+  }
+
+  @Override
+  public List<AliasChange> changesAfter(long epoch, long sequence, int limit, Duration wait)
+      throws SequenceExpired {
+    HttpResponse<String> response = get("/replication/changes?epoch=" + epoch
+        + "&after=" + sequence + "&limit=" + limit + "&wait=" + wait.toSeconds(),
+        wait.plus(RESPONSE_MARGIN));
+    if (response.statusCode() == 410) {
+      throw new SequenceExpired();
+    }
+    checkStatus(response);
+    return jsonTool.fromJson(response.body(), AliasChanges.class).changes();
+  }
+
+  private HttpResponse<String> get(String path, Duration timeout) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(leaderUrl + path))
+        .header(TOKEN_HEADER, token)
+        .timeout(timeout)
+        .GET()
+        .build();
+    try {
+      return client.send(request, HttpResponse.BodyHandlers.ofString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the leader", e);
+    }
+  }
+
+  private static void checkStatus(HttpResponse<String> response) {
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException(
+          "Leader responded to " + response.uri() + " with " + response.statusCode());
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.serialization.JsonTool;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads repository snapshots stored as JSON objects.
+ *
+ * <p>A snapshot is streamed from the file entry by entry straight into the resulting map, so the
+ * file content is never held in memory as a whole. The map is presized from the file size, so it
+ * is not rehashed while it grows. A snapshot split into several files (shards) is loaded in
+ * parallel, one file per thread.
+ */
+final class JsonSnapshots {
+  private JsonSnapshots() {
+  }
+
+  /**
+   * Loads snapshot shards into a single map.
+   *
+   * @param jsonTool JSON serialization tool
+   * @param shards files of the snapshot, each one contains a JSON object
+   * @param valueClass a class of values of the snapshot
+   * @param averageEntryBytes an estimate of the size of a single entry in a file
+   * @throws IllegalStateException if an entry of a snapshot is <tt>null</tt>
+   */
+  static <V> ConcurrentHashMap<String, V> load(
+      JsonTool jsonTool, List<Path> shards, Class<V> valueClass, int averageEntryBytes
+  ) {
+    long totalBytes = 0;
+    for (Path shard : shards) {
+      totalBytes += size(shard);
+    }
+    int expectedEntries = (int) Math.min(Integer.MAX_VALUE >> 1, totalBytes / averageEntryBytes);
+    ConcurrentHashMap<String, V> result =
+        new ConcurrentHashMap<>(Math.max(16, expectedEntries), 0.75f, Math.max(1, shards.size()));
+
+    if (shards.size() == 1) {
+      load(jsonTool, shards.get(0), valueClass, result);
+    } else {
+      shards.parallelStream().forEach(shard -> load(jsonTool, shard, valueClass, result));
+    }
+    return result;
+  }
+
+  private static <V> void load(
+      JsonTool jsonTool, Path shard, Class<V> valueClass, ConcurrentHashMap<String, V> result
+  ) {
+    try (Reader reader = Files.newBufferedReader(shard, StandardCharsets.UTF_8)) {
+      jsonTool.readObjectEntries(reader, valueClass, (key, value) -> {
+        if (value == null) {
+          // Snapshots are never written with nulls, the file was damaged or edited.
+          throw new IllegalStateException("Corrupted snapshot " + shard + ": " + key + " is null");
+        }
+        result.put(key, value);
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.FsyncPolicy;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file that is memory-mapped by fixed-size segments and addressed by <tt>long</tt> offsets.
+ *
+ * <p>A single {@link MappedByteBuffer} can't be larger than 2 GB, so the file is split into
+ * segments of <tt>2^segmentBits</tt> bytes. A value read or written by a single call must not
+ * cross a segment boundary, keeping that is a responsibility of the caller.
+ *
+ * <p>Reads are safe to be done concurrently with each other, writes and {@link #ensureLength(long)}
+ * must be guarded by the caller.
+ */
+class MappedFile implements AutoCloseable {
+  private final FileChannel channel;
+  private final int segmentBits;
+  private final long segmentMask;
+  private final FsyncPolicy fsyncPolicy;
+  private final FileSync fileSync;
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private long length;
+
+  /**
+   * Opens (or creates) the file and maps at least <tt>minLength</tt> bytes of it.
+   *
+   * @param path a file to map
+   * @param minLength a minimal length of the mapped region, the file is extended if needed
+   * @param segmentBits a base-2 logarithm of a segment size
+   * @param appConfig configuration that defines when the written data is forced to the disk
+   */
+  MappedFile(Path path, long minLength, int segmentBits, UrlShortenerConfig appConfig) {
+    this.segmentBits = segmentBits;
+    this.segmentMask = (1L << segmentBits) - 1;
+    this.fsyncPolicy = appConfig.fsyncPolicy();
+    this.fileSync = new FileSync(path, appConfig);
+    try {
+      this.channel = FileChannel.open(
+          path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      ensureLength(Math.max(minLength, channel.size()));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  long length() {
+    return length;
+  }
+
+  long segmentSize() {
+    return 1L << segmentBits;
+  }
+
+  /**
+   * Extends the file and its mapping, so that it is at least the given number of bytes long.
+   */
+  void ensureLength(long newLength) {
+    if (newLength <= length) {
+      return;
+    }
+    MappedByteBuffer[] newSegments = Arrays.copyOf(
+        segments, (int) ((newLength + segmentMask) >>> segmentBits));
+    // The last segment might be mapped partially, so it is mapped again.
+    int firstToMap = Math.max(0, segments.length - 1);
+    try {
+      for (int i = firstToMap; i < newSegments.length; i++) {
+        long start = (long) i << segmentBits;
+        long size = Math.min(segmentSize(), newLength - start);
+        newSegments[i] = channel.map(MapMode.READ_WRITE, start, size);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    segments = newSegments;
+    length = newLength;
+  }
+
+  byte getByte(long position) {
+    return segment(position).get(offset(position));
+  }
+
+  char getChar(long position) {
+    return segment(position).getChar(offset(position));
+  }
+
+  int getInt(long position) {
+    return segment(position).getInt(offset(position));
+  }
+
+  long getLong(long position) {
+    return segment(position).getLong(offset(position));
+  }
+
+  void getBytes(long position, byte[] destination) {
+    segment(position).get(offset(position), destination);
+  }
+
+  void putByte(long position, byte value) {
+    segment(position).put(offset(position), value);
+  }
+
+  void putChar(long position, char value) {
+    segment(position).putChar(offset(position), value);
+  }
+
+  void putInt(long position, int value) {
+    segment(position).putInt(offset(position), value);
+  }
+
+  void putLong(long position, long value) {
+    segment(position).putLong(offset(position), value);
+  }
+
+  void putBytes(long position, byte[] source) {
+    segment(position).put(offset(position), source);
+  }
+
+  /**
+   * Must be called after a region of the file is written, forces it to the disk according to the
+   * fsync policy.
+   */
+  void afterWrite(long position, int size) {
+    if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+      segment(position).force(offset(position), size);
+    } else {
+      try {
+        fileSync.afterWrite(channel);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * Forces the whole file to the disk regardless of the fsync policy.
+   */
+  void force() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+  }
+
+  private MappedByteBuffer segment(long position) {
+    return segments[(int) (position >>> segmentBits)];
+  }
+
+  private int offset(long position) {
+    return (int) (position & segmentMask);
+  }
+
+  /**
+   * Closes the file. The mapped memory is released by the garbage collector later.
+   */
+  @Override
+  public void close() {
+    fileSync.close();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
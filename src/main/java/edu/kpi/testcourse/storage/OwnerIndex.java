@@ -0,0 +1,80 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * Secondary index of URL aliases by the email of their owner.
+ *
+ * <p>Aliases of every owner are kept in a {@link ConcurrentSkipListMap} sorted by alias, so adding
+ * or removing an alias takes <tt>O(log k)</tt> for an owner with <tt>k</tt> aliases, and listings
+ * are taken without locking. The order also gives a stable position to continue a listing from.
+ *
+ * <p>Listings are weakly consistent, like iteration of the skip list: every alias that stays in
+ * the index while it is listed is listed, but aliases added or removed meanwhile may or may not
+ * be. Listings are copies, so they don't change afterwards.
+ *
+ * <p>The index is thread-safe. Callers are responsible for not adding an alias that is already
+ * indexed for another owner.
+ */
+class OwnerIndex {
+  private final ConcurrentHashMap<String, ConcurrentNavigableMap<String, UrlAlias>> owners =
+      new ConcurrentHashMap<>();
+
+  void add(UrlAlias urlAlias) {
+    owners.compute(urlAlias.email(), (email, aliases) -> {
+      if (aliases == null) {
+        aliases = new ConcurrentSkipListMap<>();
+      }
+      aliases.put(urlAlias.alias(), urlAlias);
+      return aliases;
+    });
+  }
+
+  void remove(UrlAlias urlAlias) {
+    // Done in compute, so an owner can't lose an alias added while its empty map is removed.
+    owners.computeIfPresent(urlAlias.email(), (email, aliases) -> {
+      aliases.remove(urlAlias.alias());
+      return aliases.isEmpty() ? null : aliases;
+    });
+  }
+
+  /**
+   * Returns an immutable copy of all aliases of the owner sorted by alias.
+   */
+  List<UrlAlias> aliasesOf(String email) {
+    ConcurrentNavigableMap<String, UrlAlias> aliases = owners.get(email);
+    return aliases == null ? List.of() : List.copyOf(aliases.values());
+  }
+
+  /**
+   * Returns an immutable copy of a page of aliases of the owner sorted by alias.
+   *
+   * @param email an email of the owner
+   * @param after an alias to start after or <tt>null</tt> to start from the first one
+   * @param limit maximal number of aliases in the page
+   */
+  List<UrlAlias> aliasesOf(String email, @Nullable String after, int limit) {
+    ConcurrentNavigableMap<String, UrlAlias> aliases = owners.get(email);
+    if (aliases == null) {
+      return List.of();
+    }
+    if (after != null) {
+      aliases = aliases.tailMap(after, false);
+    }
+    List<UrlAlias> page = new ArrayList<>(Math.min(limit, 1024));
+    for (UrlAlias urlAlias : aliases.values()) {
+      if (page.size() == limit) {
+        break;
+      }
+      page.add(urlAlias);
+    }
+    return Collections.unmodifiableList(page);
+  }
+}
@@ -0,0 +1,239 @@
+package edu.kpi.testcourse.storage;
+
+import com.google.gson.reflect.TypeToken;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.serialization.JsonTool;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.client.DefaultHttpClientConfiguration;
+import io.micronaut.http.client.RxHttpClient;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.uri.UriBuilder;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link UrlRepository} that forwards every operation to another member of the cluster, which
+ * stores the aliases on its side.
+ *
+ * <p>Requests are sent with the Micronaut HTTP client to the internal cluster endpoints of the
+ * member. Asynchronous variants of the operations don't block a thread while the member responds,
+ * the others wait for the response.
+ *
+ * <p>A member only walks its own aliases, so {@link #forEachUrlAlias(Consumer)} and
+ * {@link #size()} are not supported.
+ */
+public class PeerUrlRepository implements UrlRepository, AutoCloseable {
+  /**
+   * Header with the shared secret of the cluster members.
+   */
+  public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
+
+  private final RxHttpClient client;
+  private final String token;
+  private final JsonTool jsonTool;
+
+  /**
+   * Creates an instance.
+   *
+   * @param memberUrl base URL of the member, like <tt>http://10.0.0.2:8080</tt>
+   * @param token the shared secret of the cluster
+   * @param jsonTool JSON serialization tool
+   */
+  public PeerUrlRepository(String memberUrl, String token, JsonTool jsonTool) {
+    DefaultHttpClientConfiguration configuration = new DefaultHttpClientConfiguration();
+    configuration.setConnectTimeout(CONNECT_TIMEOUT);
+    configuration.setReadTimeout(READ_TIMEOUT);
+    try {
+      this.client = RxHttpClient.create(new URL(memberUrl), configuration);
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException("Invalid URL of a cluster member: " + memberUrl, e);
+    }
+    this.token = token;
+    this.jsonTool = jsonTool;
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    join(createUrlAliasAsync(urlAlias, Runnable::run));
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    return join(createUrlAliasesAsync(urlAliases, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<boolean[]> createUrlAliasesAsync(
+      List<UrlAlias> urlAliases, Executor executor
+  ) {
+    return send(HttpRequest.POST("/cluster/aliases/batch", jsonTool.toJson(urlAliases))
+        .contentType(MediaType.APPLICATION_JSON_TYPE))
+      .thenApply(response -> {
+        checkStatus(response, HttpStatus.OK);
+        return jsonTool.fromJson(response.body(), boolean[].class);
+      });
+  }
+
+  @Override
+  public CompletableFuture<Void> createUrlAliasAsync(UrlAlias urlAlias, Executor executor) {
+    return send(HttpRequest.POST("/cluster/aliases", jsonTool.toJson(urlAlias))
+        .contentType(MediaType.APPLICATION_JSON_TYPE))
+      .thenApply(response -> {
+        if (response.status() == HttpStatus.CONFLICT) {
+          throw new AliasAlreadyExist();
+        }
+        checkStatus(response, HttpStatus.CREATED);
+        return null;
+      });
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    return join(findUrlAliasAsync(alias, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return send(HttpRequest.GET(aliasPath(alias).toString()))
+      .thenApply(response -> {
+        if (response.status() == HttpStatus.NOT_FOUND) {
+          return null;
+        }
+        checkStatus(response, HttpStatus.OK);
+        return jsonTool.fromJson(response.body(), UrlAlias.class);
+      });
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    join(deleteUrlAliasAsync(email, alias, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<Void> deleteUrlAliasAsync(
+      String email, String alias, Executor executor
+  ) {
+    return send(HttpRequest.DELETE(aliasPath(alias).queryParam("email", email).toString()))
+      .thenApply(response -> {
+        if (response.status() == HttpStatus.NOT_FOUND) {
+          throw new RuntimeException("UrlAlias record not found!");
+        } else if (response.status() == HttpStatus.FORBIDDEN) {
+          throw new PermissionDenied();
+        }
+        checkStatus(response, HttpStatus.NO_CONTENT);
+        return null;
+      });
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return join(getAllAliasesForUserAsync(userEmail, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<List<UrlAlias>> getAllAliasesForUserAsync(
+      String userEmail, Executor executor
+  ) {
+    return getAliases(UriBuilder.of("/cluster/aliases").queryParam("email", userEmail));
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return join(getAliasesForUserAsync(userEmail, after, limit, Runnable::run));
+  }
+
+  @Override
+  public CompletableFuture<List<UrlAlias>> getAliasesForUserAsync(
+      String userEmail, @Nullable String after, int limit, Executor executor
+  ) {
+    UriBuilder uri = UriBuilder.of("/cluster/aliases")
+        .queryParam("email", userEmail)
+        .queryParam("limit", limit);
+    if (after != null) {
+      uri.queryParam("after", after);
+    }
+    return getAliases(uri);
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    throw new UnsupportedOperationException("Aliases of another member can't be walked");
+  }
+
+  @Override
+  public long size() {
+    throw new UnsupportedOperationException("Aliases of another member can't be counted");
+  }
+
+  @Override
+  public void close() {
+    client.close();
+  }
+
+  private CompletableFuture<List<UrlAlias>> getAliases(UriBuilder uri) {
+    return send(HttpRequest.GET(uri.toString()))
+      .thenApply(response -> {
+        checkStatus(response, HttpStatus.OK);
+        return List.copyOf(jsonTool.<List<UrlAlias>>fromJson(response.body(),
+            new TypeToken<List<UrlAlias>>(){}.getType()));
+      });
+  }
+
+  /**
+   * Sends the request with the cluster secret. Error statuses complete the future as responses
+   * too, so that callers can tell them apart.
+   */
+  private CompletableFuture<HttpResponse<String>> send(MutableHttpRequest<?> request) {
+    CompletableFuture<HttpResponse<String>> response = new CompletableFuture<>();
+    client.exchange(request.header(TOKEN_HEADER, token), String.class)
+      .firstOrError()
+      .subscribe(response::complete, error -> {
+        if (error instanceof HttpClientResponseException e) {
+          response.complete(HttpResponse.<String>status(e.getStatus())
+              .body(e.getResponse().getBody(String.class).orElse(null)));
+        } else {
+          response.completeExceptionally(error);
+        }
+      });
+    return response;
+  }
+
+  private static UriBuilder aliasPath(String alias) {
+    return UriBuilder.of("/cluster/aliases").path(alias);
+  }
+
+  private static void checkStatus(HttpResponse<String> response, HttpStatus expected) {
+    if (response.status() != expected) {
+      throw new IllegalStateException("Cluster member responded with " + response.status());
+    }
+  }
+
+  /**
+   * Waits for the future, rethrowing its failure as it is.
+   */
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
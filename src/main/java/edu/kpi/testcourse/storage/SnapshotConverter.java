@@ -0,0 +1,99 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.entities.User;
+import edu.kpi.testcourse.serialization.JsonTool;
+import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts JSON snapshots of the repositories into the {@link BinarySnapshots binary format}.
+ *
+ * <p>Usage: <tt>SnapshotConverter &lt;storage root&gt; [--compress]</tt>. Run it while the
+ * application is stopped. Each JSON file (<tt>url-repository.json</tt>, its shards and
+ * <tt>user-repository.json</tt>) is replaced with a <tt>.bin</tt> file of the same name, the log
+ * of URL aliases is left as is.
+ */
+public final class SnapshotConverter {
+  private static final int AVERAGE_ENTRY_BYTES = 128;
+
+  private SnapshotConverter() {
+  }
+
+  /**
+   * Runs the conversion from the command line.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2
+        || (args.length == 2 && !args[1].equals("--compress"))) {
+      System.err.println("Usage: SnapshotConverter <storage root> [--compress]");
+      System.exit(2);
+    }
+    convert(new JsonToolJacksonImpl(), Paths.get(args[0]), args.length == 2);
+  }
+
+  /**
+   * Converts all JSON snapshots in the storage root.
+   *
+   * @param jsonTool JSON serialization tool
+   * @param storageRoot a directory with the repository files
+   * @param compressed whether blocks of the binary files should be compressed
+   */
+  public static void convert(JsonTool jsonTool, Path storageRoot, boolean compressed)
+      throws IOException {
+    try (DirectoryStream<Path> files =
+        Files.newDirectoryStream(storageRoot, "url-repository*.json")) {
+      for (Path file : files) {
+        Map<String, UrlAlias> urlAliases =
+            JsonSnapshots.load(jsonTool, List.of(file), UrlAlias.class, AVERAGE_ENTRY_BYTES);
+        Path target = writeBinaryFile(file, channel ->
+            BinarySnapshots.writeUrlAliases(channel, urlAliases.values(), compressed));
+        System.out.println(file + " -> " + target + ": " + urlAliases.size() + " aliases");
+      }
+    }
+
+    Path usersFile = storageRoot.resolve("user-repository.json");
+    if (Files.exists(usersFile)) {
+      Map<String, User> users =
+          JsonSnapshots.load(jsonTool, List.of(usersFile), User.class, AVERAGE_ENTRY_BYTES);
+      Path target = writeBinaryFile(usersFile, channel ->
+          BinarySnapshots.writeUsers(channel, users.values(), compressed));
+      System.out.println(usersFile + " -> " + target + ": " + users.size() + " users");
+    }
+  }
+
+  /**
+   * Writes a binary file next to the JSON one and deletes the JSON file.
+   *
+   * @return the binary file
+   */
+  private static Path writeBinaryFile(Path jsonFile, BinaryWriter writer) throws IOException {
+    String name = jsonFile.getFileName().toString();
+    Path target = jsonFile.resolveSibling(
+        name.substring(0, name.length() - ".json".length()) + BinarySnapshots.EXTENSION);
+    Path tmpFile = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      writer.write(channel);
+      channel.force(false);
+    }
+    Files.move(tmpFile, target,
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    Files.delete(jsonFile);
+    return target;
+  }
+
+  @FunctionalInterface
+  private interface BinaryWriter {
+    void write(FileChannel channel) throws IOException;
+  }
+}
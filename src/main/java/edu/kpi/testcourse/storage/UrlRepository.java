@@ -2,11 +2,24 @@ package edu.kpi.testcourse.storage;
 
 import edu.kpi.testcourse.entities.UrlAlias;
 import edu.kpi.testcourse.entities.User;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
  * Stores shortened URLs.
+ *
+ * <p>Methods may block on the disk I/O. Their asynchronous variants run the blocking work on the
+ * given executor, so they are safe to call from event loop threads. Implementations that can
+ * answer without blocking override them to complete on the calling thread.
  */
 public interface UrlRepository {
   /**
@@ -17,11 +30,68 @@ public interface UrlRepository {
    */
   void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist;
 
+  /**
+   * Stores all the given URL aliases that do not already exist. Implementations persist the whole
+   * batch at once when they can, which is much cheaper than storing aliases one by one.
+   *
+   * @param urlAliases pairs of full and shortened URLs
+   * @return for every URL alias whether it was stored: <tt>false</tt> means that the repository
+   *     (or an earlier element of the batch) already contains a URL alias with this short name
+   */
+  default boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    boolean[] created = new boolean[urlAliases.size()];
+    for (int i = 0; i < created.length; i++) {
+      try {
+        createUrlAlias(urlAliases.get(i));
+        created[i] = true;
+      } catch (AliasAlreadyExist e) {
+        created[i] = false;
+      }
+    }
+    return created;
+  }
+
+  /**
+   * Asynchronous variant of {@link #createUrlAlias(UrlAlias)}.
+   *
+   * @param executor an executor for blocking work
+   * @return a future that fails with {@link AliasAlreadyExist} if the alias is already taken, or
+   *     with {@link RejectedExecutionException} if the executor is overloaded
+   */
+  default CompletableFuture<Void> createUrlAliasAsync(UrlAlias urlAlias, Executor executor) {
+    return supplyAsync(() -> {
+      createUrlAlias(urlAlias);
+      return null;
+    }, executor);
+  }
+
+  /**
+   * Asynchronous variant of {@link #createUrlAliases(List)}.
+   *
+   * @param executor an executor for blocking work
+   */
+  default CompletableFuture<boolean[]> createUrlAliasesAsync(
+      List<UrlAlias> urlAliases, Executor executor
+  ) {
+    return supplyAsync(() -> createUrlAliases(urlAliases), executor);
+  }
+
   /**
    * Returns complete information about the URL alias with the given short name.
    */
   @Nullable UrlAlias findUrlAlias(String alias);
 
+  /**
+   * Asynchronous variant of {@link #findUrlAlias(String)}.
+   *
+   * @param executor an executor for blocking work
+   * @return a future of the URL alias, which is completed with <tt>null</tt> if there is no such
+   *     alias
+   */
+  default CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return supplyAsync(() -> findUrlAlias(alias), executor);
+  }
+
   /**
    * Deletes the URL alias with the given short name.
    *
@@ -29,11 +99,106 @@ public interface UrlRepository {
    */
   void deleteUrlAlias(String email, String alias) throws PermissionDenied;
 
+  /**
+   * Asynchronous variant of {@link #deleteUrlAlias(String, String)}.
+   *
+   * @param executor an executor for blocking work
+   */
+  default CompletableFuture<Void> deleteUrlAliasAsync(
+      String email, String alias, Executor executor
+  ) {
+    return supplyAsync(() -> {
+      deleteUrlAlias(email, alias);
+      return null;
+    }, executor);
+  }
+
   /**
    * Finds all URLs that belong to the user with the given email.
+   *
+   * @return an immutable list, which does not change with the repository
    */
   List<UrlAlias> getAllAliasesForUser(String userEmail);
 
+  /**
+   * Asynchronous variant of {@link #getAllAliasesForUser(String)}.
+   *
+   * @param executor an executor for blocking work
+   */
+  default CompletableFuture<List<UrlAlias>> getAllAliasesForUserAsync(
+      String userEmail, Executor executor
+  ) {
+    return supplyAsync(() -> getAllAliasesForUser(userEmail), executor);
+  }
+
+  /**
+   * Finds a page of URLs that belong to the user with the given email. Pages are sorted by alias,
+   * so the last alias of a page is where the next page starts.
+   *
+   * @param userEmail an email of the user
+   * @param after an alias to start after or <tt>null</tt> to get the first page
+   * @param limit maximal number of aliases in the page
+   * @return an immutable list, which does not change with the repository
+   */
+  default List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return getAllAliasesForUser(userEmail).stream()
+      .filter(urlAlias -> after == null || urlAlias.alias().compareTo(after) > 0)
+      .sorted(Comparator.comparing(UrlAlias::alias))
+      .limit(limit)
+      .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * Iterates over URLs that belong to the user with the given email sorted by alias. Aliases are
+   * read as the iteration proceeds, so they are never held in memory all at once. Aliases created
+   * or deleted during the iteration may or may not be seen.
+   *
+   * <p>The default implementation reads the aliases page by page with
+   * {@link #getAliasesForUser(String, String, int)}, implementations that can list all aliases of
+   * the user more cheaply override it.
+   */
+  default Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    return new UserAliasPages(this, userEmail);
+  }
+
+  /**
+   * Asynchronous variant of {@link #getAliasesForUser(String, String, int)}.
+   *
+   * @param executor an executor for blocking work
+   */
+  default CompletableFuture<List<UrlAlias>> getAliasesForUserAsync(
+      String userEmail, @Nullable String after, int limit, Executor executor
+  ) {
+    return supplyAsync(() -> getAliasesForUser(userEmail, after, limit), executor);
+  }
+
+  /**
+   * Passes every URL alias in the repository to the given action. Aliases created or deleted
+   * concurrently may or may not be seen.
+   */
+  void forEachUrlAlias(Consumer<UrlAlias> action);
+
+  /**
+   * Returns the number of URL aliases in the repository. The default implementation counts them
+   * one by one, so implementations that know the number override it.
+   */
+  default long size() {
+    LongAdder size = new LongAdder();
+    forEachUrlAlias(urlAlias -> size.increment());
+    return size.sum();
+  }
+
+  /**
+   * Runs the supplier on the executor, turning a rejection of the task into a failed future.
+   */
+  private static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, executor);
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   /**
    * Error for a case when we try to create a shortened URL that is already exist.
    */
@@ -2,31 +2,40 @@ package edu.kpi.testcourse.storage;
 
 import edu.kpi.testcourse.entities.UrlAlias;
 import io.micronaut.context.annotation.Aliases;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 
 /**
  * An in-memory fake implementation of {@link UrlRepository}.
+ *
+ * <p>Expired aliases are hidden on lookup and can be replaced, but they are never removed.
  */
 public class UrlRepositoryFakeImpl implements UrlRepository {
 
   private final HashMap<String, UrlAlias> aliases = new HashMap<>();
+  private final OwnerIndex ownerIndex = new OwnerIndex();
 
   @Override
   public void createUrlAlias(UrlAlias urlAlias) {
-    if (aliases.containsKey(urlAlias.alias())) {
-      throw new UrlRepository.AliasAlreadyExist();
+    UrlAlias existing = aliases.get(urlAlias.alias());
+    if (existing != null) {
+      if (!existing.isExpired(System.currentTimeMillis())) {
+        throw new UrlRepository.AliasAlreadyExist();
+      }
+      ownerIndex.remove(existing);
     }
 
     aliases.put(urlAlias.alias(), urlAlias);
+    ownerIndex.add(urlAlias);
   }
 
   @Override
   public @Nullable UrlAlias findUrlAlias(String alias) {
-    return aliases.get(alias);
+    UrlAlias urlAlias = aliases.get(alias);
+    return urlAlias == null || urlAlias.isExpired(System.currentTimeMillis()) ? null : urlAlias;
   }
 
   /**
@@ -42,7 +51,7 @@ public class UrlRepositoryFakeImpl implements UrlRepository {
 
   @Override
   public void deleteUrlAlias(String email, String alias) {
-    UrlAlias foundUrlAlias = findUrlAlias(alias);
+    UrlAlias foundUrlAlias = aliases.get(alias);
 
     if (foundUrlAlias == null) {
       throw new RuntimeException();
@@ -50,6 +59,7 @@ public class UrlRepositoryFakeImpl implements UrlRepository {
 
     if (foundUrlAlias.email().equals(email)) {
       aliases.remove(alias);
+      ownerIndex.remove(foundUrlAlias);
     } else {
       throw new PermissionDenied();
     }
@@ -59,18 +69,25 @@ public class UrlRepositoryFakeImpl implements UrlRepository {
    * Create a list of UrlAlias objects by email.
    *
    * @param userEmail gets user email
-   * @return list of UrlAlias objects
-   * @throws edu.kpi.testcourse.storage.UrlRepository.PermissionDenied
-   *         error if emails are not equal
+   * @return immutable list of UrlAlias objects
    */
   @Override
   public List<UrlAlias> getAllAliasesForUser(String userEmail) {
-    List<UrlAlias> aliasesList = new ArrayList<>();
-    for (UrlAlias urlAlias : aliases.values()) {
-      if (urlAlias.email().equals(userEmail)) {
-        aliasesList.add(urlAlias);
-      }
-    }
-    return aliasesList;
+    return ownerIndex.aliasesOf(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return ownerIndex.aliasesOf(userEmail, after, limit);
+  }
+
+  @Override
+  public long size() {
+    return aliases.size();
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    aliases.values().forEach(action);
   }
 }
@@ -1,33 +1,114 @@
 package edu.kpi.testcourse.storage;
 
-import com.google.gson.reflect.TypeToken;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.kpi.testcourse.entities.UrlAlias;
 import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.SnapshotFormat;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.serialization.JsonTool;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 /**
  * A file-backed implementation of {@link UrlRepository} suitable for use in production.
+ *
+ * <p>The state is persisted as a snapshot plus an append-only log of changes made after the
+ * snapshot was taken. Every change appends one small record to the log, and once the log grows
+ * past {@link UrlShortenerConfig#logCompactionThreshold()} records it is compacted into a fresh
+ * snapshot. On startup the snapshot is loaded and the log is replayed on top of it.
+ *
+ * <p>The snapshot is streamed from the disk straight into the alias map. It can be split into
+ * {@link UrlShortenerConfig#snapshotShards()} files (<tt>url-repository.json</tt>,
+ * <tt>url-repository.1.json</tt> and so on), which are loaded in parallel. Snapshots are written
+ * in {@link UrlShortenerConfig#snapshotFormat()}, either JSON or {@link BinarySnapshots binary}
+ * (<tt>url-repository.bin</tt> and so on). If there is no snapshot of that format, a snapshot of
+ * the other one is loaded, and it is replaced on the next compaction.
+ *
+ * <p>Log appends go through a {@link GroupCommit}: changes made concurrently are written to the
+ * log (and forced to the disk according to {@link UrlShortenerConfig#fsyncPolicy()}) as a single
+ * batch. Each writer returns only after its own change is persisted. If the batch can't be
+ * written, every writer undoes its own change in memory and fails, so that a failed creation is
+ * not found and a failed deletion is found as before. The records might have reached the log in
+ * part, though, and then the changes show up after a restart.
+ *
+ * <p>Aliases are kept in a {@link ConcurrentHashMap}, so {@link #findUrlAlias(String)} (the
+ * redirect hot path) never blocks: it takes no lock and does not wait for writers.
+ *
+ * <p>Expired aliases are not found from the moment they expire, and a new alias can take the name
+ * of an expired one. They are removed from memory and the log by a background reaper, which
+ * tracks expirations in an {@link ExpiryWheel} and removes all aliases expired since its previous
+ * run with a single log append. Until then they are still listed among aliases of their owners.
  */
 public class UrlRepositoryFileImpl implements UrlRepository {
+  private static final int AVERAGE_SNAPSHOT_ENTRY_BYTES = 128;
+  private static final Histogram WRITE_BYTES = MetricsRegistry.global().sizes(
+      "repository_write_bytes", "Size of repository writes", "repository", "urls");
+  private static final Histogram WRITE_SECONDS = MetricsRegistry.global().timer(
+      "repository_write_seconds", "Duration of repository writes", "repository", "urls");
+  private static final Histogram COMPACTION_SECONDS = MetricsRegistry.global().timer(
+      "repository_compaction_seconds", "Duration of repository log compactions",
+      "repository", "urls");
+  private static final Counter COMPACTION_FAILURES = MetricsRegistry.global().counter(
+      "repository_compaction_failures_total", "Number of failed repository log compactions",
+      "repository", "urls");
+  private static final Counter EXPIRED_ALIASES = MetricsRegistry.global().counter(
+      "expired_aliases_removed_total", "Number of expired URL aliases removed by the reaper");
+  private static final Counter REAPER_FAILURES = MetricsRegistry.global().counter(
+      "expired_alias_reaper_failures_total", "Number of failed runs of the expired alias reaper");
+  private static final long EXPIRY_TICK_MILLIS = 1000;
+  private static final ScheduledExecutorService reaperScheduler =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "url-alias-reaper");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private static final String SNAPSHOT_FILE_PREFIX = "url-repository";
+  private static final Pattern SHARD_FILE_NAME =
+      Pattern.compile("url-repository\\.(\\d+)\\.(json|bin)");
 
-  // Urls, keyed by alias.
-  private final Map<String, UrlAlias> urlMapByAlias;
-  // All User urls, keyed by email
-  private final Map<String, List<UrlAlias>> urlsMapByEmail;
+  // Urls, keyed by alias. Written under the repository monitor, read without any locking.
+  private final ConcurrentHashMap<String, UrlAlias> urlMapByAlias;
+  // Urls by the owner email, also read without any locking.
+  private final OwnerIndex ownerIndex;
 
   private final JsonTool jsonTool;
-  private final Path jsonFilePath;
+  private final Path storageRoot;
+  private final SnapshotFormat snapshotFormat;
+  private final AppendOnlyLog log;
+  private final GroupCommit<LogRecord> logCommits;
+  private final int logCompactionThreshold;
+  private final int snapshotShards;
+  // Accessed only by the thread that flushes the log.
+  private int logSize;
+  // Expirations of aliases, guarded by the repository monitor.
+  private final ExpiryWheel expiryWheel;
+  // Started when the first expiring alias appears, guarded by the repository monitor.
+  private ScheduledFuture<?> reaper;
 
   /**
    * Creates an instance.
@@ -35,99 +116,456 @@ public class UrlRepositoryFileImpl implements UrlRepository {
   @Inject
   public UrlRepositoryFileImpl(JsonTool jsonTool, UrlShortenerConfig appConfig) {
     this.jsonTool = jsonTool;
-    this.jsonFilePath = makeJsonFilePath(appConfig.storageRoot());
-    this.urlMapByAlias = readUrlsFromJsonDatabaseFile(jsonTool, this.jsonFilePath);
-    this.urlsMapByEmail = makeUrlsMapByEmail(urlMapByAlias);
+    this.storageRoot = appConfig.storageRoot();
+    this.snapshotFormat = appConfig.snapshotFormat();
+    this.urlMapByAlias = readSnapshot(jsonTool, storageRoot, snapshotFormat);
+    this.log = new AppendOnlyLog(makeLogFilePath(appConfig.storageRoot()), appConfig);
+    this.logCommits = new GroupCommit<>(this::appendToLog);
+    this.logCompactionThreshold = appConfig.logCompactionThreshold();
+    this.snapshotShards = appConfig.snapshotShards();
+    this.logSize = replayLog(jsonTool, log, urlMapByAlias);
+    this.ownerIndex = makeOwnerIndex(urlMapByAlias);
+    this.expiryWheel = new ExpiryWheel(EXPIRY_TICK_MILLIS, System.currentTimeMillis());
+    synchronized (this) {
+      for (UrlAlias urlAlias : urlMapByAlias.values()) {
+        scheduleExpiration(urlAlias);
+      }
+    }
   }
 
   @Override
-  public synchronized void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
-    if (urlMapByAlias.containsKey(urlAlias.alias())) {
-      throw new AliasAlreadyExist();
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    GroupCommit.Batch<LogRecord> batch;
+    synchronized (this) {
+      if (!putIfAbsentOrExpired(urlAlias, System.currentTimeMillis())) {
+        throw new AliasAlreadyExist();
+      }
+
+      batch = logCommits.enqueue(LogRecord.create(urlAlias));
+    }
+    try {
+      logCommits.await(batch);
+    } catch (RuntimeException e) {
+      undoCreation(List.of(urlAlias));
+      throw e;
     }
+  }
 
-    urlMapByAlias.put(urlAlias.alias(), urlAlias);
-    putInMapByEmail(urlsMapByEmail, urlAlias);
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    return awaitCreation(enqueueCreation(urlAliases));
+  }
 
-    syncUrlsWithJsonDatabaseFile();
+  /**
+   * Puts the aliases that are not taken into memory and enqueues their log records, but does not
+   * wait until the records are written. The creation must be finished with
+   * {@link #awaitCreation(PendingCreation)}.
+   */
+  PendingCreation enqueueCreation(List<UrlAlias> urlAliases) {
+    boolean[] created = new boolean[urlAliases.size()];
+    List<UrlAlias> put = new ArrayList<>(urlAliases.size());
+    List<LogRecord> records = new ArrayList<>(urlAliases.size());
+    long now = System.currentTimeMillis();
+    synchronized (this) {
+      for (int i = 0; i < created.length; i++) {
+        UrlAlias urlAlias = urlAliases.get(i);
+        if (putIfAbsentOrExpired(urlAlias, now)) {
+          put.add(urlAlias);
+          records.add(LogRecord.create(urlAlias));
+          created[i] = true;
+        }
+      }
+      if (records.isEmpty()) {
+        return new PendingCreation(created, put, null);
+      }
+      return new PendingCreation(created, put, logCommits.enqueueAll(records));
+    }
+  }
+
+  /**
+   * Waits until the log records of the creation are written.
+   *
+   * @return whether every alias was created, in the order of the enqueued aliases
+   * @throws RuntimeException if the records could not be written, the aliases are removed then
+   */
+  boolean[] awaitCreation(PendingCreation creation) {
+    if (creation.batch() != null) {
+      try {
+        logCommits.await(creation.batch());
+      } catch (RuntimeException e) {
+        undoCreation(creation.put());
+        throw e;
+      }
+    }
+    return creation.created();
   }
 
   @Nullable
   @Override
-  public synchronized UrlAlias findUrlAlias(String alias) {
-    return urlMapByAlias.get(alias);
+  public UrlAlias findUrlAlias(String alias) {
+    UrlAlias urlAlias = urlMapByAlias.get(alias);
+    // Expired aliases are hidden right away, even if the reaper has not removed them yet.
+    return urlAlias == null || urlAlias.isExpired(System.currentTimeMillis()) ? null : urlAlias;
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    // Lookups never block, there is no need to switch threads.
+    return CompletableFuture.completedFuture(findUrlAlias(alias));
   }
 
   @Override
   public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
-    UrlAlias urlAlias = urlMapByAlias.get(alias);
+    GroupCommit.Batch<LogRecord> batch;
+    UrlAlias urlAlias;
+    synchronized (this) {
+      urlAlias = urlMapByAlias.get(alias);
 
-    if (urlAlias == null) {
-      throw new RuntimeException("UrlAlias record not found!");
-    }
+      if (urlAlias == null) {
+        throw new RuntimeException("UrlAlias record not found!");
+      }
+
+      if (!urlAlias.email().equals(email)) {
+        throw new PermissionDenied();
+      }
 
-    if (!urlAlias.email().equals(email)) {
-      throw new PermissionDenied();
+      urlMapByAlias.remove(alias);
+      ownerIndex.remove(urlAlias);
+
+      batch = logCommits.enqueue(LogRecord.delete(alias));
     }
+    try {
+      logCommits.await(batch);
+    } catch (RuntimeException e) {
+      undoDeletion(urlAlias);
+      throw e;
+    }
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return ownerIndex.aliasesOf(userEmail);
+  }
 
-    urlMapByAlias.remove(alias);
-    List<UrlAlias> userUrls = urlsMapByEmail.get(email);
-    userUrls.remove(urlAlias);
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return ownerIndex.aliasesOf(userEmail, after, limit);
+  }
 
-    syncUrlsWithJsonDatabaseFile();
+  @Override
+  public long size() {
+    return urlMapByAlias.size();
   }
 
   @Override
-  public synchronized List<UrlAlias> getAllAliasesForUser(String userEmail) {
-    return urlsMapByEmail.getOrDefault(userEmail, new ArrayList<>());
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    urlMapByAlias.values().forEach(action);
   }
 
-  private static Map<String, List<UrlAlias>> makeUrlsMapByEmail(
-      Map<String, UrlAlias> urlMapByAlias
-  ) {
-    Map<String, List<UrlAlias>> urlsMapByEmail = new HashMap<>();
+  /**
+   * Removes all aliases expired since the previous call from memory and appends their deletions
+   * to the log at once.
+   */
+  void removeExpiredAliases() {
+    long now = System.currentTimeMillis();
+    List<LogRecord> records = new ArrayList<>();
+    GroupCommit.Batch<LogRecord> batch;
+    synchronized (this) {
+      for (String alias : expiryWheel.advance(now)) {
+        UrlAlias urlAlias = urlMapByAlias.get(alias);
+        // The alias might have been deleted or taken by a new alias since it was scheduled.
+        if (urlAlias != null && urlAlias.isExpired(now)) {
+          urlMapByAlias.remove(alias);
+          ownerIndex.remove(urlAlias);
+          records.add(LogRecord.delete(alias));
+        }
+      }
+      if (records.isEmpty()) {
+        return;
+      }
+      batch = logCommits.enqueueAll(records);
+    }
+    logCommits.await(batch);
+    EXPIRED_ALIASES.increment(records.size());
+  }
 
-    for (UrlAlias urlAlias : urlMapByAlias.values()) {
-      putInMapByEmail(urlsMapByEmail, urlAlias);
+  /**
+   * Puts the alias into memory unless there is an alias with the same name that has not expired.
+   * Must be called under the repository monitor.
+   *
+   * @return whether the alias was put
+   */
+  private boolean putIfAbsentOrExpired(UrlAlias urlAlias, long now) {
+    UrlAlias existing = urlMapByAlias.get(urlAlias.alias());
+    if (existing != null) {
+      if (!existing.isExpired(now)) {
+        return false;
+      }
+      ownerIndex.remove(existing);
     }
-    return urlsMapByEmail;
+    urlMapByAlias.put(urlAlias.alias(), urlAlias);
+    ownerIndex.add(urlAlias);
+    scheduleExpiration(urlAlias);
+    return true;
   }
 
-  private static void putInMapByEmail(
-      Map<String, List<UrlAlias>> urlsMapByEmail, UrlAlias urlAlias
-  ) {
-    List<UrlAlias> urlsByEmailList = urlsMapByEmail.computeIfAbsent(urlAlias.email(),
-        s -> new ArrayList<>());
-    urlsByEmailList.add(urlAlias);
+  /**
+   * Removes the aliases whose creation could not be persisted. An alias that was changed since
+   * then is left alone. An expired alias the created one replaced is not restored, it would not be
+   * found anyway.
+   */
+  private synchronized void undoCreation(List<UrlAlias> urlAliases) {
+    for (UrlAlias urlAlias : urlAliases) {
+      if (urlMapByAlias.remove(urlAlias.alias(), urlAlias)) {
+        ownerIndex.remove(urlAlias);
+      }
+    }
   }
 
-  private static Path makeJsonFilePath(Path storageRoot) {
-    return storageRoot.resolve("url-repository.json");
+  /**
+   * Puts back the alias whose deletion could not be persisted, unless its name was taken since
+   * then.
+   */
+  private synchronized void undoDeletion(UrlAlias urlAlias) {
+    if (urlMapByAlias.putIfAbsent(urlAlias.alias(), urlAlias) == null) {
+      ownerIndex.add(urlAlias);
+    }
   }
 
-  private static Map<String, UrlAlias> readUrlsFromJsonDatabaseFile(
-      JsonTool jsonTool, Path sourceFilePath
-  ) {
-    String json;
-    try {
-      json = Files.readString(sourceFilePath, StandardCharsets.UTF_8);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * Adds the alias to the expiry wheel if it expires. Must be called under the repository monitor.
+   */
+  private void scheduleExpiration(UrlAlias urlAlias) {
+    if (urlAlias.expiresAt() == 0) {
+      return;
     }
-    Type type = new TypeToken<HashMap<String, UrlAlias>>(){}.getType();
-    Map<String, UrlAlias> result = jsonTool.fromJson(json, type);
-    if (result == null) {
-      throw new RuntimeException("Could not deserialize the aliases repository");
+    expiryWheel.schedule(urlAlias.alias(), urlAlias.expiresAt());
+    if (reaper == null) {
+      reaper = reaperScheduler.scheduleWithFixedDelay(this::removeExpiredAliasesInBackground,
+          EXPIRY_TICK_MILLIS, EXPIRY_TICK_MILLIS, TimeUnit.MILLISECONDS);
     }
-    return result;
   }
 
-  private void syncUrlsWithJsonDatabaseFile() {
-    String json = jsonTool.toJson(urlMapByAlias);
+  private void removeExpiredAliasesInBackground() {
     try {
-      Files.writeString(jsonFilePath, json);
+      removeExpiredAliases();
+    } catch (RuntimeException e) {
+      // An exception would cancel the periodic removal. Aliases that were removed from memory
+      // but not from the log are removed again after a restart.
+      REAPER_FAILURES.increment();
+    }
+  }
+
+  /**
+   * Aliases put into memory whose log records are not written yet.
+   *
+   * @param created whether every alias was created
+   * @param put the created aliases
+   * @param batch the batch of their log records or <tt>null</tt> if nothing was created
+   */
+  record PendingCreation(
+      boolean[] created, List<UrlAlias> put, @Nullable GroupCommit.Batch<LogRecord> batch
+  ) {}
+
+  private static OwnerIndex makeOwnerIndex(Map<String, UrlAlias> urlMapByAlias) {
+    OwnerIndex ownerIndex = new OwnerIndex();
+    urlMapByAlias.values().forEach(ownerIndex::add);
+    return ownerIndex;
+  }
+
+  private static Path makeLogFilePath(Path storageRoot) {
+    return storageRoot.resolve("url-repository.log");
+  }
+
+  /**
+   * Finds all files of the snapshot of the given format: the main one and additional shards, if
+   * any.
+   */
+  private static List<Path> findSnapshotFiles(Path storageRoot, SnapshotFormat format) {
+    List<Path> files = new ArrayList<>();
+    Path mainFile = makeSnapshotFilePath(storageRoot, format, 0);
+    if (Files.exists(mainFile)) {
+      files.add(mainFile);
+    }
+    try (DirectoryStream<Path> shards = Files.newDirectoryStream(
+        storageRoot, SNAPSHOT_FILE_PREFIX + ".*" + fileExtension(format))) {
+      for (Path shard : shards) {
+        if (shardNumber(shard) > 0) {
+          files.add(shard);
+        }
+      }
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
+    return files;
+  }
+
+  private static Path makeSnapshotFilePath(Path storageRoot, SnapshotFormat format, int shard) {
+    String name = shard == 0 ? SNAPSHOT_FILE_PREFIX : SNAPSHOT_FILE_PREFIX + "." + shard;
+    return storageRoot.resolve(name + fileExtension(format));
+  }
+
+  private static String fileExtension(SnapshotFormat format) {
+    return format == SnapshotFormat.JSON ? ".json" : BinarySnapshots.EXTENSION;
+  }
+
+  private static SnapshotFormat otherFormat(SnapshotFormat format) {
+    return format == SnapshotFormat.JSON ? SnapshotFormat.BINARY : SnapshotFormat.JSON;
+  }
+
+  /**
+   * Returns the number of the snapshot shard or <tt>-1</tt> if it is not an additional shard.
+   */
+  private static int shardNumber(Path file) {
+    Matcher matcher = SHARD_FILE_NAME.matcher(file.getFileName().toString());
+    return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+  }
+
+  private static ConcurrentHashMap<String, UrlAlias> readSnapshot(
+      JsonTool jsonTool, Path storageRoot, SnapshotFormat format
+  ) {
+    List<Path> files = findSnapshotFiles(storageRoot, format);
+    if (files.isEmpty()) {
+      // The format was changed since the last compaction.
+      format = otherFormat(format);
+      files = findSnapshotFiles(storageRoot, format);
+    }
+    if (format == SnapshotFormat.JSON) {
+      return JsonSnapshots.load(jsonTool, files, UrlAlias.class, AVERAGE_SNAPSHOT_ENTRY_BYTES);
+    }
+    return BinarySnapshots.loadUrlAliases(files);
+  }
+
+  /**
+   * Applies all changes from the log to the snapshot content.
+   *
+   * @return number of records in the log
+   */
+  private static int replayLog(JsonTool jsonTool, AppendOnlyLog log, Map<String, UrlAlias> urls) {
+    List<String> records = log.readRecords();
+    for (String json : records) {
+      LogRecord record = jsonTool.fromJson(json, LogRecord.class);
+      switch (record.operation()) {
+        case LogRecord.CREATE -> urls.put(record.urlAlias().alias(), record.urlAlias());
+        case LogRecord.DELETE -> urls.remove(record.alias());
+        default -> throw new RuntimeException("Unknown log operation: " + record.operation());
+      }
+    }
+    return records.size();
+  }
+
+  private void appendToLog(List<LogRecord> records) throws IOException {
+    List<String> lines = new ArrayList<>(records.size());
+    for (LogRecord record : records) {
+      lines.add(jsonTool.toJson(record));
+    }
+    long start = System.nanoTime();
+    WRITE_BYTES.record(log.append(lines));
+    WRITE_SECONDS.recordSince(start);
+    logSize += records.size();
+    if (logSize >= logCompactionThreshold) {
+      try {
+        compact();
+      } catch (IOException | RuntimeException e) {
+        // The records are already in the log, so the commit succeeded. The log stays over the
+        // threshold, and compaction is retried after the next write.
+        COMPACTION_FAILURES.increment();
+      }
+    }
+  }
+
+  /**
+   * Writes the current state into a new snapshot and clears the log.
+   *
+   * <p>Every snapshot file is written into a temporary file first and then atomically moved in
+   * place. The log is truncated only after all files are replaced, so a crash during compaction
+   * leaves a mix of old and new snapshot files with the full log, and replaying the log on top of
+   * them gives the right state.
+   *
+   * <p>Snapshot files of the other format are deleted, so that they are not loaded instead of the
+   * new ones after the format is switched back.
+   *
+   * <p>The map is serialized without blocking writers, so the snapshot might already contain
+   * changes that are still waiting for the next log flush. This is fine, because replaying them on
+   * top of the snapshot is idempotent.
+   */
+  private void compact() throws IOException {
+    long start = System.nanoTime();
+    if (snapshotShards == 1) {
+      writeSnapshotFile(makeSnapshotFilePath(storageRoot, snapshotFormat, 0), urlMapByAlias);
+    } else {
+      List<Map<String, UrlAlias>> shards = new ArrayList<>(snapshotShards);
+      for (int i = 0; i < snapshotShards; i++) {
+        shards.add(new HashMap<>());
+      }
+      for (UrlAlias urlAlias : urlMapByAlias.values()) {
+        shards.get(Math.floorMod(urlAlias.alias().hashCode(), snapshotShards))
+            .put(urlAlias.alias(), urlAlias);
+      }
+      for (int i = 0; i < snapshotShards; i++) {
+        writeSnapshotFile(makeSnapshotFilePath(storageRoot, snapshotFormat, i), shards.get(i));
+      }
+    }
+    // Shards left from a configuration with more of them.
+    for (Path file : findSnapshotFiles(storageRoot, snapshotFormat)) {
+      if (shardNumber(file) >= snapshotShards) {
+        Files.delete(file);
+      }
+    }
+    for (Path file : findSnapshotFiles(storageRoot, otherFormat(snapshotFormat))) {
+      Files.delete(file);
+    }
+
+    log.truncate();
+    logSize = 0;
+    COMPACTION_SECONDS.recordSince(start);
+  }
+
+  private void writeSnapshotFile(Path path, Map<String, UrlAlias> content) throws IOException {
+    Path tmpFilePath = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmpFilePath, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      switch (snapshotFormat) {
+        case JSON -> {
+          String json = jsonTool.toJson(content);
+          ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+        case BINARY -> BinarySnapshots.writeUrlAliases(channel, content.values(), false);
+        case COMPRESSED_BINARY -> BinarySnapshots.writeUrlAliases(channel, content.values(), true);
+        default -> throw new IllegalStateException("Unknown snapshot format: " + snapshotFormat);
+      }
+      // The log is truncated after this, so the snapshot must be durable regardless of the fsync
+      // policy.
+      channel.force(false);
+    }
+    Files.move(tmpFilePath, path,
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * A single change of the repository state stored in the log.
+   *
+   * @param operation {@link #CREATE} or {@link #DELETE}
+   * @param alias a short name of the affected alias
+   * @param urlAlias a created URL alias, <tt>null</tt> for deletions
+   */
+  record LogRecord(
+      @JsonProperty("op") String operation,
+      @JsonProperty("alias") String alias,
+      @JsonProperty("urlAlias") @Nullable UrlAlias urlAlias
+  ) {
+    static final String CREATE = "create";
+    static final String DELETE = "delete";
+
+    static LogRecord create(UrlAlias urlAlias) {
+      return new LogRecord(CREATE, urlAlias.alias(), urlAlias);
+    }
+
+    static LogRecord delete(String alias) {
+      return new LogRecord(DELETE, alias, null);
+    }
   }
 }
@@ -0,0 +1,216 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.AliasSnapshot;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
+import edu.kpi.testcourse.storage.ChangeFeed.SequenceExpired;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A read-only in-memory implementation of {@link UrlRepository} that replicates the URL aliases of
+ * a leader instance, so that redirects can be served by several instances.
+ *
+ * <p>A background thread bootstraps the aliases from a snapshot of the leader and then tails its
+ * change feed with long polls, applying the changes in order. If the leader no longer has the
+ * changes the follower needs (the follower fell behind, or the leader restarted), the follower
+ * bootstraps again and swaps the whole copy at once. Until the first snapshot is loaded, the
+ * repository is empty. Failed requests to the leader are retried after a delay.
+ *
+ * <p>Lookups read the current copy without any locking. All changes are rejected with
+ * {@link UnsupportedOperationException}.
+ *
+ * <p>Aliases reaped by the leader are not in the change feed, so the follower removes expired
+ * aliases by itself: it tracks expirations in an {@link ExpiryWheel} and removes the expired
+ * aliases after every poll. Expired aliases are hidden from lookups right away.
+ */
+public class UrlRepositoryFollowerImpl implements UrlRepository, AutoCloseable {
+  private static final int CHANGES_PER_POLL = 1000;
+  private static final Duration POLL_WAIT = Duration.ofSeconds(30);
+  private static final long RETRY_DELAY_MILLIS = 1000;
+  private static final long EXPIRY_TICK_MILLIS = 1000;
+  private static final Counter FAILURES = MetricsRegistry.global().counter(
+      "replication_failures_total", "Number of failed requests of a follower to its leader");
+
+  private final ChangeSource source;
+  private final Thread follower;
+  // Replaced as a whole by a bootstrap, changed in place by the follower thread otherwise.
+  private volatile Copy copy = new Copy();
+  private volatile long sequence;
+  private volatile boolean closed;
+  // Accessed only by the follower thread.
+  private long epoch;
+  private boolean bootstrapped;
+
+  /**
+   * Creates an empty instance and starts following the leader.
+   *
+   * @param source where the aliases of the leader come from
+   */
+  public UrlRepositoryFollowerImpl(ChangeSource source) {
+    this.source = source;
+    this.follower = new Thread(this::follow, "url-repository-follower");
+    follower.setDaemon(true);
+    follower.start();
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) {
+    throw readOnly();
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    throw readOnly();
+  }
+
+  @Override
+  public @Nullable UrlAlias findUrlAlias(String alias) {
+    UrlAlias urlAlias = copy.aliases.get(alias);
+    // Expired aliases reaped by the leader are not in the feed.
+    return urlAlias == null || urlAlias.isExpired(System.currentTimeMillis()) ? null : urlAlias;
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return CompletableFuture.completedFuture(findUrlAlias(alias));
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) {
+    throw readOnly();
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return copy.ownerIndex.aliasesOf(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return copy.ownerIndex.aliasesOf(userEmail, after, limit);
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    copy.aliases.values().forEach(action);
+  }
+
+  @Override
+  public long size() {
+    return copy.aliases.mappingCount();
+  }
+
+  /**
+   * Returns the number of the latest change of the leader applied here.
+   */
+  public long sequence() {
+    return sequence;
+  }
+
+  /**
+   * Stops following the leader, the aliases replicated so far are still served.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    follower.interrupt();
+  }
+
+  private void follow() {
+    while (!closed) {
+      try {
+        if (!bootstrapped) {
+          bootstrap(source.snapshot());
+        }
+        apply(source.changesAfter(epoch, sequence, CHANGES_PER_POLL, POLL_WAIT));
+        copy.removeExpired(System.currentTimeMillis());
+      } catch (SequenceExpired e) {
+        bootstrapped = false;
+      } catch (RuntimeException e) {
+        if (closed) {
+          return;
+        }
+        FAILURES.increment();
+        try {
+          Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void bootstrap(AliasSnapshot snapshot) {
+    Copy loaded = new Copy();
+    for (UrlAlias urlAlias : snapshot.aliases()) {
+      loaded.put(urlAlias);
+    }
+    copy = loaded;
+    epoch = snapshot.epoch();
+    sequence = snapshot.sequence();
+    bootstrapped = true;
+  }
+
+  private void apply(List<AliasChange> changes) {
+    Copy current = copy;
+    for (AliasChange change : changes) {
+      switch (change.type()) {
+        case CREATE -> current.put(change.urlAlias());
+        case DELETE -> current.remove(change.alias());
+        default -> throw new IllegalStateException("Unknown change " + change.type());
+      }
+      sequence = change.sequence();
+    }
+  }
+
+  private static UnsupportedOperationException readOnly() {
+    return new UnsupportedOperationException("Aliases can't be changed on a follower");
+  }
+
+  /**
+   * A copy of the aliases of the leader. Changed only by the follower thread.
+   */
+  private static final class Copy {
+    private final ConcurrentHashMap<String, UrlAlias> aliases = new ConcurrentHashMap<>();
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private final ExpiryWheel expiryWheel =
+        new ExpiryWheel(EXPIRY_TICK_MILLIS, System.currentTimeMillis());
+
+    void put(UrlAlias urlAlias) {
+      // A snapshot may already have the alias of a change that follows it.
+      UrlAlias replaced = aliases.put(urlAlias.alias(), urlAlias);
+      if (replaced != null) {
+        ownerIndex.remove(replaced);
+      }
+      ownerIndex.add(urlAlias);
+      if (urlAlias.expiresAt() != 0) {
+        expiryWheel.schedule(urlAlias.alias(), urlAlias.expiresAt());
+      }
+    }
+
+    void removeExpired(long now) {
+      for (String alias : expiryWheel.advance(now)) {
+        UrlAlias urlAlias = aliases.get(alias);
+        // The alias might have been deleted or taken by a new alias since it was scheduled.
+        if (urlAlias != null && urlAlias.isExpired(now) && aliases.remove(alias, urlAlias)) {
+          ownerIndex.remove(urlAlias);
+        }
+      }
+    }
+
+    void remove(String alias) {
+      UrlAlias removed = aliases.remove(alias);
+      if (removed != null) {
+        ownerIndex.remove(removed);
+      }
+    }
+  }
+}
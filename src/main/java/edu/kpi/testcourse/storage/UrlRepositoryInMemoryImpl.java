@@ -0,0 +1,144 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * A thread-safe in-memory implementation of {@link UrlRepository} for servers that do not need to
+ * keep aliases across restarts.
+ *
+ * <p>There is no repository-wide lock. Aliases are kept in a {@link ConcurrentHashMap}: lookups
+ * take no lock at all, and a change locks only the bin of its alias, so reads and writes of
+ * different aliases scale with the number of cores. The owner index is updated under the same
+ * bin lock, so concurrent changes of an alias can't leave the index out of sync with the map.
+ *
+ * <p>Expired aliases are hidden on lookup and removed by the lookup that finds them, a new alias
+ * with the same name replaces them.
+ */
+public class UrlRepositoryInMemoryImpl implements UrlRepository {
+  private final ConcurrentHashMap<String, UrlAlias> aliases = new ConcurrentHashMap<>();
+  private final OwnerIndex ownerIndex = new OwnerIndex();
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    if (!putIfAbsentOrExpired(urlAlias, System.currentTimeMillis())) {
+      throw new AliasAlreadyExist();
+    }
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    long now = System.currentTimeMillis();
+    boolean[] created = new boolean[urlAliases.size()];
+    for (int i = 0; i < created.length; i++) {
+      created[i] = putIfAbsentOrExpired(urlAliases.get(i), now);
+    }
+    return created;
+  }
+
+  @Override
+  public CompletableFuture<Void> createUrlAliasAsync(UrlAlias urlAlias, Executor executor) {
+    // Nothing here blocks, there is no need to switch threads.
+    try {
+      createUrlAlias(urlAlias);
+      return CompletableFuture.completedFuture(null);
+    } catch (AliasAlreadyExist e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public CompletableFuture<boolean[]> createUrlAliasesAsync(
+      List<UrlAlias> urlAliases, Executor executor
+  ) {
+    return CompletableFuture.completedFuture(createUrlAliases(urlAliases));
+  }
+
+  @Override
+  public @Nullable UrlAlias findUrlAlias(String alias) {
+    UrlAlias urlAlias = aliases.get(alias);
+    if (urlAlias != null && urlAlias.isExpired(System.currentTimeMillis())) {
+      removeIfSame(urlAlias);
+      return null;
+    }
+    return urlAlias;
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    return CompletableFuture.completedFuture(findUrlAlias(alias));
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    aliases.compute(alias, (key, urlAlias) -> {
+      if (urlAlias == null) {
+        throw new RuntimeException("UrlAlias record not found!");
+      }
+      if (!urlAlias.email().equals(email)) {
+        throw new PermissionDenied();
+      }
+      ownerIndex.remove(urlAlias);
+      return null;
+    });
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    return ownerIndex.aliasesOf(userEmail);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    return ownerIndex.aliasesOf(userEmail, after, limit);
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    aliases.values().forEach(action);
+  }
+
+  @Override
+  public long size() {
+    return aliases.mappingCount();
+  }
+
+  /**
+   * Stores the alias unless a live alias with the same name exists.
+   *
+   * @return whether the alias was stored
+   */
+  private boolean putIfAbsentOrExpired(UrlAlias urlAlias, long now) {
+    boolean[] stored = new boolean[1];
+    aliases.compute(urlAlias.alias(), (key, existing) -> {
+      if (existing != null) {
+        if (!existing.isExpired(now)) {
+          return existing;
+        }
+        ownerIndex.remove(existing);
+      }
+      ownerIndex.add(urlAlias);
+      stored[0] = true;
+      return urlAlias;
+    });
+    return stored[0];
+  }
+
+  /**
+   * Removes the alias unless it has been replaced by another one.
+   */
+  private void removeIfSame(UrlAlias urlAlias) {
+    aliases.computeIfPresent(urlAlias.alias(), (key, existing) -> {
+      if (existing != urlAlias) {
+        return existing;
+      }
+      ownerIndex.remove(existing);
+      return null;
+    });
+  }
+}
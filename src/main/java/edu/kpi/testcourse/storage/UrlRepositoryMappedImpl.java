@@ -0,0 +1,603 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * An implementation of {@link UrlRepository} that keeps all aliases off-heap in memory-mapped
+ * files.
+ *
+ * <p>There are two files in the storage root:
+ * <ul>
+ *   <li><tt>url-repository.data</tt> - all URL aliases one after another. A record is never moved
+ *   once written, deleted records are only marked as such.</li>
+ *   <li><tt>url-repository.index</tt> - an open-addressing hash table (linear probing) that maps
+ *   an alias to the offset of its record in the data file.</li>
+ * </ul>
+ *
+ * <p>Both files are used as is, so the repository is ready right after the files are mapped, no
+ * matter how many aliases they contain. {@link #findUrlAlias(String)} probes the index without
+ * allocating anything on the heap: aliases are stored as UTF-16 chars and compared in place. Only
+ * the found record is materialized into a {@link UrlAlias}.
+ *
+ * <p>{@link #getAllAliasesForUser(String)} scans the whole data file, so it is not meant to be
+ * used on a hot path. So does every page of {@link #getAliasesForUser(String, String, int)}, but
+ * the page is selected during the scan: emails are compared in place, and only the aliases of the
+ * page are materialized and sorted, rather than all aliases of the user for every page.
+ * {@link #iterateAliasesForUser(String)} scans the file once: it keeps only the names and the
+ * offsets of the aliases of the user, and reads their records as the iteration proceeds.
+ *
+ * <p>Expired aliases are hidden on lookup, and a new alias with the same name replaces them. They
+ * are not removed in background: they take no heap, and records are never moved anyway.
+ */
+public class UrlRepositoryMappedImpl implements UrlRepository, AutoCloseable {
+  private static final int DEFAULT_SEGMENT_BITS = 30;
+
+  private static final int INDEX_MAGIC = 0x55494458; // "UIDX"
+  private static final int DATA_MAGIC = 0x55444154; // "UDAT"
+  private static final int VERSION = 1;
+
+  // Index header: magic, version, capacity, size, tombstones, (padding), data end.
+  private static final int INDEX_CAPACITY = 8;
+  private static final int INDEX_SIZE = 12;
+  private static final int INDEX_TOMBSTONES = 16;
+  private static final int INDEX_DATA_END = 24;
+  private static final int INDEX_HEADER_LENGTH = 64;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final double MAX_LOAD_FACTOR = 0.7;
+
+  // Slot: alias hash (int), padding (int), record reference (long).
+  private static final int SLOT_LENGTH = 16;
+  private static final int SLOT_REFERENCE = 8;
+  private static final long EMPTY = 0;
+  private static final long TOMBSTONE = -1;
+
+  // Record: length (int), state (byte), alias length in chars (int), alias chars,
+  // destination URL length in bytes (int), destination URL, email length in bytes (int), email,
+  // expiration time (long, only if the alias expires).
+  private static final int DATA_HEADER_LENGTH = 16;
+  private static final int RECORD_STATE = 4;
+  private static final int RECORD_ALIAS = 5;
+  private static final byte LIVE = 1;
+  private static final byte DELETED = 2;
+  private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+  private final Path indexPath;
+  private final UrlShortenerConfig appConfig;
+  private final int segmentBits;
+  private final StampedLock lock = new StampedLock();
+  private final MappedFile data;
+  private MappedFile index;
+  private int capacity;
+  private int size;
+  private int tombstones;
+  private long dataEnd;
+
+  /**
+   * Creates an instance.
+   */
+  @Inject
+  public UrlRepositoryMappedImpl(UrlShortenerConfig appConfig) {
+    this(appConfig, DEFAULT_SEGMENT_BITS);
+  }
+
+  /**
+   * Creates an instance with the given size of mapped segments. Small segments are useful for
+   * testing of records placement across segment boundaries.
+   */
+  UrlRepositoryMappedImpl(UrlShortenerConfig appConfig, int segmentBits) {
+    this.appConfig = appConfig;
+    this.segmentBits = segmentBits;
+    this.indexPath = appConfig.storageRoot().resolve("url-repository.index");
+    Path dataPath = appConfig.storageRoot().resolve("url-repository.data");
+    boolean exists = Files.exists(indexPath);
+
+    this.data = new MappedFile(dataPath, DATA_HEADER_LENGTH, segmentBits, appConfig);
+    if (exists) {
+      this.index = new MappedFile(indexPath, INDEX_HEADER_LENGTH, segmentBits, appConfig);
+      checkHeader(index, INDEX_MAGIC);
+      checkHeader(data, DATA_MAGIC);
+      this.capacity = index.getInt(INDEX_CAPACITY);
+      this.size = index.getInt(INDEX_SIZE);
+      this.tombstones = index.getInt(INDEX_TOMBSTONES);
+      this.dataEnd = index.getLong(INDEX_DATA_END);
+    } else {
+      data.putInt(0, DATA_MAGIC);
+      data.putInt(4, VERSION);
+      data.afterWrite(0, DATA_HEADER_LENGTH);
+      this.dataEnd = DATA_HEADER_LENGTH;
+      this.index = createIndex(indexPath, INITIAL_CAPACITY);
+      this.capacity = INITIAL_CAPACITY;
+    }
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    String alias = urlAlias.alias();
+    byte[] destinationUrl = urlAlias.destinationUrl().getBytes(StandardCharsets.UTF_8);
+    byte[] email = urlAlias.email().getBytes(StandardCharsets.UTF_8);
+    long recordLength = RECORD_ALIAS + 4 + 2L * alias.length()
+        + 4 + destinationUrl.length + 4 + email.length + (urlAlias.expiresAt() == 0 ? 0 : 8);
+    if (recordLength > MAX_RECORD_LENGTH || recordLength > data.segmentSize()) {
+      throw new IllegalArgumentException("URL alias is too long to be stored");
+    }
+
+    int hash = hash(alias);
+    long stamp = lock.writeLock();
+    try {
+      int existingSlot = findSlot(alias, hash);
+      if (existingSlot >= 0) {
+        long existing = index.getLong(slotPosition(existingSlot) + SLOT_REFERENCE) - 1;
+        if (!readRecord(existing).isExpired(System.currentTimeMillis())) {
+          throw new AliasAlreadyExist();
+        }
+        removeRecord(existingSlot, existing);
+      }
+      if (size + tombstones + 1 > capacity * MAX_LOAD_FACTOR) {
+        resizeIndex(size + 1 > capacity * MAX_LOAD_FACTOR / 2 ? capacity * 2 : capacity);
+      }
+
+      long record = writeRecord(
+          (int) recordLength, alias, destinationUrl, email, urlAlias.expiresAt());
+      int slot = freeSlot(hash);
+      if (index.getLong(slotPosition(slot) + SLOT_REFERENCE) == TOMBSTONE) {
+        tombstones--;
+      }
+      index.putInt(slotPosition(slot), hash);
+      index.putLong(slotPosition(slot) + SLOT_REFERENCE, record + 1);
+      index.afterWrite(slotPosition(slot), SLOT_LENGTH);
+      size++;
+      writeIndexHeader();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    int hash = hash(alias);
+    long stamp = lock.readLock();
+    try {
+      long record = findRecord(alias, hash);
+      if (record < 0) {
+        return null;
+      }
+      UrlAlias urlAlias = readRecord(record);
+      return urlAlias.isExpired(System.currentTimeMillis()) ? null : urlAlias;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    int hash = hash(alias);
+    long stamp = lock.writeLock();
+    try {
+      int slot = findSlot(alias, hash);
+      if (slot < 0) {
+        throw new RuntimeException("UrlAlias record not found!");
+      }
+      long record = index.getLong(slotPosition(slot) + SLOT_REFERENCE) - 1;
+      if (!readRecord(record).email().equals(email)) {
+        throw new PermissionDenied();
+      }
+
+      removeRecord(slot, record);
+      writeIndexHeader();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    List<UrlAlias> result = new ArrayList<>();
+    forEachUrlAlias(urlAlias -> {
+      if (urlAlias.email().equals(userEmail)) {
+        result.add(urlAlias);
+      }
+    });
+    return List.copyOf(result);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    byte[] email = userEmail.getBytes(StandardCharsets.UTF_8);
+    // The first aliases after the cursor found so far, the last one of them on top.
+    PriorityQueue<UrlAlias> page =
+        new PriorityQueue<>(limit + 1, Comparator.comparing(UrlAlias::alias).reversed());
+    forEachRecord(record -> {
+      if (!emailEquals(record, email)) {
+        return;
+      }
+      String alias = readAlias(record);
+      if (after != null && alias.compareTo(after) <= 0) {
+        return;
+      }
+      if (page.size() == limit && alias.compareTo(page.peek().alias()) > 0) {
+        return;
+      }
+      page.add(readRecord(record));
+      if (page.size() > limit) {
+        page.poll();
+      }
+    });
+    List<UrlAlias> result = new ArrayList<>(page);
+    result.sort(Comparator.comparing(UrlAlias::alias));
+    return List.copyOf(result);
+  }
+
+  @Override
+  public Iterator<UrlAlias> iterateAliasesForUser(String userEmail) {
+    byte[] email = userEmail.getBytes(StandardCharsets.UTF_8);
+    List<AliasRecord> records = new ArrayList<>();
+    forEachRecord(record -> {
+      if (emailEquals(record, email)) {
+        records.add(new AliasRecord(readAlias(record), record));
+      }
+    });
+    records.sort(Comparator.comparing(AliasRecord::alias));
+
+    Iterator<AliasRecord> remaining = records.iterator();
+    return new Iterator<>() {
+      private @Nullable UrlAlias next = advance();
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public UrlAlias next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        UrlAlias current = next;
+        next = advance();
+        return current;
+      }
+
+      private @Nullable UrlAlias advance() {
+        while (remaining.hasNext()) {
+          UrlAlias urlAlias = readLiveRecord(remaining.next().record());
+          if (urlAlias != null) {
+            return urlAlias;
+          }
+        }
+        return null;
+      }
+    };
+  }
+
+  @Override
+  public long size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    forEachRecord(record -> action.accept(readRecord(record)));
+  }
+
+  /**
+   * Closes the underlying files.
+   */
+  @Override
+  public void close() {
+    long stamp = lock.writeLock();
+    try {
+      index.close();
+      data.close();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private static int hash(String alias) {
+    int h = alias.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static long slotPosition(int slot) {
+    return INDEX_HEADER_LENGTH + (long) slot * SLOT_LENGTH;
+  }
+
+  /**
+   * Finds the data record of the alias.
+   *
+   * @return an offset of the record in the data file or <tt>-1</tt> if there is no such alias
+   */
+  private long findRecord(String alias, int hash) {
+    int slot = findSlot(alias, hash);
+    return slot < 0 ? -1 : index.getLong(slotPosition(slot) + SLOT_REFERENCE) - 1;
+  }
+
+  private int findSlot(String alias, int hash) {
+    int mask = capacity - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      long position = slotPosition(slot);
+      long reference = index.getLong(position + SLOT_REFERENCE);
+      if (reference == EMPTY) {
+        return -1;
+      }
+      if (reference != TOMBSTONE && index.getInt(position) == hash
+          && aliasEquals(reference - 1, alias)) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Marks the record as deleted and replaces its index slot with a tombstone. The index header is
+   * not written.
+   */
+  private void removeRecord(int slot, long record) {
+    data.putByte(record + RECORD_STATE, DELETED);
+    data.afterWrite(record + RECORD_STATE, 1);
+    index.putLong(slotPosition(slot) + SLOT_REFERENCE, TOMBSTONE);
+    index.afterWrite(slotPosition(slot), SLOT_LENGTH);
+    size--;
+    tombstones++;
+  }
+
+  private int freeSlot(int hash) {
+    int mask = capacity - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      long reference = index.getLong(slotPosition(slot) + SLOT_REFERENCE);
+      if (reference == EMPTY || reference == TOMBSTONE) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Passes positions of all live records to the action under the read lock.
+   */
+  private void forEachRecord(LongConsumer action) {
+    long stamp = lock.readLock();
+    try {
+      long position = DATA_HEADER_LENGTH;
+      while (position < dataEnd) {
+        if (!fitsInSegment(position, 4) || data.getInt(position) == 0) {
+          position = nextSegment(position);
+          continue;
+        }
+        if (data.getByte(position + RECORD_STATE) == LIVE) {
+          action.accept(position);
+        }
+        position += data.getInt(position);
+      }
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Reads the record under the read lock, unless it has been deleted since it was found.
+   */
+  private @Nullable UrlAlias readLiveRecord(long record) {
+    long stamp = lock.readLock();
+    try {
+      return data.getByte(record + RECORD_STATE) == LIVE ? readRecord(record) : null;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private boolean aliasEquals(long record, String alias) {
+    long position = record + RECORD_ALIAS;
+    if (data.getInt(position) != alias.length()) {
+      return false;
+    }
+    position += 4;
+    for (int i = 0; i < alias.length(); i++, position += 2) {
+      if (data.getChar(position) != alias.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean emailEquals(long record, byte[] email) {
+    long position = record + RECORD_ALIAS;
+    position += 4 + 2L * data.getInt(position);
+    position += 4 + data.getInt(position);
+    if (data.getInt(position) != email.length) {
+      return false;
+    }
+    position += 4;
+    for (int i = 0; i < email.length; i++, position++) {
+      if (data.getByte(position) != email[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String readAlias(long record) {
+    long position = record + RECORD_ALIAS;
+    char[] alias = new char[data.getInt(position)];
+    position += 4;
+    for (int i = 0; i < alias.length; i++, position += 2) {
+      alias[i] = data.getChar(position);
+    }
+    return new String(alias);
+  }
+
+  private UrlAlias readRecord(long record) {
+    long position = record + RECORD_ALIAS;
+    int aliasLength = data.getInt(position);
+    position += 4;
+    char[] alias = new char[aliasLength];
+    for (int i = 0; i < aliasLength; i++, position += 2) {
+      alias[i] = data.getChar(position);
+    }
+    byte[] destinationUrl = new byte[data.getInt(position)];
+    data.getBytes(position + 4, destinationUrl);
+    position += 4 + destinationUrl.length;
+    byte[] email = new byte[data.getInt(position)];
+    data.getBytes(position + 4, email);
+    position += 4 + email.length;
+    // Records of aliases that never expire end right after the email.
+    long expiresAt = position < record + data.getInt(record) ? data.getLong(position) : 0;
+    return new UrlAlias(
+        new String(alias),
+        new String(destinationUrl, StandardCharsets.UTF_8),
+        new String(email, StandardCharsets.UTF_8),
+        expiresAt);
+  }
+
+  private long writeRecord(
+      int recordLength, String alias, byte[] destinationUrl, byte[] email, long expiresAt
+  ) {
+    long record = dataEnd;
+    if (!fitsInSegment(record, recordLength)) {
+      // Records never cross a segment boundary, the rest of the segment is skipped.
+      if (fitsInSegment(record, 4)) {
+        data.putInt(record, 0);
+      }
+      record = nextSegment(record);
+    }
+    ensureDataLength(record + recordLength);
+
+    long position = record + RECORD_ALIAS;
+    data.putInt(position, alias.length());
+    position += 4;
+    for (int i = 0; i < alias.length(); i++, position += 2) {
+      data.putChar(position, alias.charAt(i));
+    }
+    data.putInt(position, destinationUrl.length);
+    data.putBytes(position + 4, destinationUrl);
+    position += 4 + destinationUrl.length;
+    data.putInt(position, email.length);
+    data.putBytes(position + 4, email);
+    if (expiresAt != 0) {
+      data.putLong(position + 4 + email.length, expiresAt);
+    }
+    data.putByte(record + RECORD_STATE, LIVE);
+    data.putInt(record, recordLength);
+    data.afterWrite(record, recordLength);
+
+    dataEnd = record + recordLength;
+    return record;
+  }
+
+  private void ensureDataLength(long requiredLength) {
+    if (requiredLength <= data.length()) {
+      return;
+    }
+    // Grow geometrically to keep the number of remappings small.
+    long newLength = Math.max(requiredLength, Math.min(data.length() * 2,
+        data.length() + data.segmentSize()));
+    data.ensureLength(newLength);
+  }
+
+  private boolean fitsInSegment(long position, int length) {
+    return (position & (data.segmentSize() - 1)) + length <= data.segmentSize();
+  }
+
+  private long nextSegment(long position) {
+    return (position | (data.segmentSize() - 1)) + 1;
+  }
+
+  private void writeIndexHeader() {
+    index.putInt(INDEX_SIZE, size);
+    index.putInt(INDEX_TOMBSTONES, tombstones);
+    index.putLong(INDEX_DATA_END, dataEnd);
+    index.afterWrite(0, INDEX_HEADER_LENGTH);
+  }
+
+  private MappedFile createIndex(Path path, int capacity) {
+    MappedFile newIndex = new MappedFile(
+        path, INDEX_HEADER_LENGTH + (long) capacity * SLOT_LENGTH, segmentBits, appConfig);
+    newIndex.putInt(0, INDEX_MAGIC);
+    newIndex.putInt(4, VERSION);
+    newIndex.putInt(INDEX_CAPACITY, capacity);
+    newIndex.putInt(INDEX_SIZE, 0);
+    newIndex.putInt(INDEX_TOMBSTONES, 0);
+    newIndex.putLong(INDEX_DATA_END, dataEnd);
+    newIndex.afterWrite(0, INDEX_HEADER_LENGTH);
+    return newIndex;
+  }
+
+  /**
+   * Rebuilds the index with the given capacity, dropping all tombstones.
+   *
+   * <p>The new index is built in a temporary file and then atomically moved in place of the old
+   * one.
+   */
+  private void resizeIndex(int newCapacity) {
+    Path tmpPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+    try {
+      Files.deleteIfExists(tmpPath);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    MappedFile newIndex = createIndex(tmpPath, newCapacity);
+    int mask = newCapacity - 1;
+    for (int slot = 0; slot < capacity; slot++) {
+      long reference = index.getLong(slotPosition(slot) + SLOT_REFERENCE);
+      if (reference == EMPTY || reference == TOMBSTONE) {
+        continue;
+      }
+      int hash = index.getInt(slotPosition(slot));
+      int newSlot = hash & mask;
+      while (newIndex.getLong(slotPosition(newSlot) + SLOT_REFERENCE) != EMPTY) {
+        newSlot = (newSlot + 1) & mask;
+      }
+      newIndex.putInt(slotPosition(newSlot), hash);
+      newIndex.putLong(slotPosition(newSlot) + SLOT_REFERENCE, reference);
+    }
+    newIndex.putInt(INDEX_SIZE, size);
+    newIndex.force();
+    newIndex.close();
+    index.close();
+
+    try {
+      Files.move(tmpPath, indexPath,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    index = new MappedFile(indexPath, INDEX_HEADER_LENGTH, segmentBits, appConfig);
+    capacity = newCapacity;
+    tombstones = 0;
+  }
+
+  private static void checkHeader(MappedFile file, int magic) {
+    if (file.getInt(0) != magic || file.getInt(4) != VERSION) {
+      throw new RuntimeException("Unsupported format of the mapped URL repository");
+    }
+  }
+
+  /**
+   * An alias and the offset of its record in the data file.
+   */
+  private record AliasRecord(String alias, long record) {}
+}
@@ -0,0 +1,199 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.serialization.JsonTool;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * A file-backed implementation of {@link UrlRepository} that splits aliases into
+ * {@link UrlShortenerConfig#repositoryPartitions()} independent partitions by the hash of an alias.
+ *
+ * <p>Every partition is a {@link UrlRepositoryFileImpl} in its own directory
+ * (<tt>partition-0</tt>, <tt>partition-1</tt> and so on) with its own lock, map, log and snapshot.
+ * Thus changes of aliases from different partitions are made and persisted in parallel, and every
+ * snapshot and log is just a fraction of the whole repository.
+ *
+ * <p>Queries by the owner email are answered by all partitions and their results are merged.
+ *
+ * <p>The number of partitions is stored next to them, and the repository refuses to open the data
+ * with another number of partitions, because aliases would be looked for in wrong partitions.
+ */
+public class UrlRepositoryPartitionedImpl implements UrlRepository {
+  private static final String PARTITIONS_FILE_NAME = "partitions";
+
+  private final UrlRepositoryFileImpl[] partitions;
+
+  /**
+   * Creates an instance.
+   */
+  @Inject
+  public UrlRepositoryPartitionedImpl(JsonTool jsonTool, UrlShortenerConfig appConfig) {
+    int count = appConfig.repositoryPartitions();
+    checkPartitionCount(appConfig.storageRoot(), count);
+    this.partitions = new UrlRepositoryFileImpl[count];
+    for (int i = 0; i < count; i++) {
+      Path partitionRoot = appConfig.storageRoot().resolve("partition-" + i);
+      try {
+        Files.createDirectories(partitionRoot);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      partitions[i] = new UrlRepositoryFileImpl(
+          jsonTool, appConfig.toBuilder().storageRoot(partitionRoot).build());
+    }
+  }
+
+  @Override
+  public void createUrlAlias(UrlAlias urlAlias) throws AliasAlreadyExist {
+    partitionOf(urlAlias.alias()).createUrlAlias(urlAlias);
+  }
+
+  @Override
+  public boolean[] createUrlAliases(List<UrlAlias> urlAliases) {
+    List<List<Integer>> indexes = new ArrayList<>(partitions.length);
+    for (int i = 0; i < partitions.length; i++) {
+      indexes.add(new ArrayList<>());
+    }
+    for (int i = 0; i < urlAliases.size(); i++) {
+      indexes.get(partitionIndex(urlAliases.get(i).alias())).add(i);
+    }
+
+    // Every partition gets a single batch. All of them are enqueued before waiting for any, so a
+    // partition that is being flushed by another writer takes its batch in the next flush instead
+    // of waiting until the previous partitions are written.
+    UrlRepositoryFileImpl.PendingCreation[] pending =
+        new UrlRepositoryFileImpl.PendingCreation[partitions.length];
+    for (int p = 0; p < partitions.length; p++) {
+      List<Integer> partitionIndexes = indexes.get(p);
+      if (!partitionIndexes.isEmpty()) {
+        List<UrlAlias> batch = new ArrayList<>(partitionIndexes.size());
+        for (int i : partitionIndexes) {
+          batch.add(urlAliases.get(i));
+        }
+        pending[p] = partitions[p].enqueueCreation(batch);
+      }
+    }
+
+    // Every batch is awaited even if an earlier one fails, so that all failed aliases are undone.
+    boolean[] created = new boolean[urlAliases.size()];
+    RuntimeException failure = null;
+    for (int p = 0; p < partitions.length; p++) {
+      if (pending[p] == null) {
+        continue;
+      }
+      try {
+        boolean[] batchCreated = partitions[p].awaitCreation(pending[p]);
+        for (int i = 0; i < batchCreated.length; i++) {
+          created[indexes.get(p).get(i)] = batchCreated[i];
+        }
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return created;
+  }
+
+  @Nullable
+  @Override
+  public UrlAlias findUrlAlias(String alias) {
+    return partitionOf(alias).findUrlAlias(alias);
+  }
+
+  @Override
+  public CompletableFuture<UrlAlias> findUrlAliasAsync(String alias, Executor executor) {
+    // Lookups never block, there is no need to switch threads.
+    return CompletableFuture.completedFuture(findUrlAlias(alias));
+  }
+
+  @Override
+  public void deleteUrlAlias(String email, String alias) throws PermissionDenied {
+    partitionOf(alias).deleteUrlAlias(email, alias);
+  }
+
+  @Override
+  public List<UrlAlias> getAllAliasesForUser(String userEmail) {
+    List<UrlAlias> result = new ArrayList<>();
+    for (UrlRepositoryFileImpl partition : partitions) {
+      result.addAll(partition.getAllAliasesForUser(userEmail));
+    }
+    return List.copyOf(result);
+  }
+
+  @Override
+  public List<UrlAlias> getAliasesForUser(String userEmail, @Nullable String after, int limit) {
+    // Every partition returns its first aliases in order, the first ones of all of them are the
+    // first ones of the merged list.
+    List<UrlAlias> result = new ArrayList<>();
+    for (UrlRepositoryFileImpl partition : partitions) {
+      result.addAll(partition.getAliasesForUser(userEmail, after, limit));
+    }
+    result.sort(Comparator.comparing(UrlAlias::alias));
+    return List.copyOf(result.subList(0, Math.min(limit, result.size())));
+  }
+
+  @Override
+  public void forEachUrlAlias(Consumer<UrlAlias> action) {
+    for (UrlRepositoryFileImpl partition : partitions) {
+      partition.forEachUrlAlias(action);
+    }
+  }
+
+  @Override
+  public long size() {
+    long size = 0;
+    for (UrlRepositoryFileImpl partition : partitions) {
+      size += partition.size();
+    }
+    return size;
+  }
+
+  private UrlRepositoryFileImpl partitionOf(String alias) {
+    return partitions[partitionIndex(alias)];
+  }
+
+  private int partitionIndex(String alias) {
+    // Partitions split their snapshots by the plain hash code, so spread it to keep those balanced.
+    int h = alias.hashCode() * 0x9E3779B9;
+    return Math.floorMod(h ^ (h >>> 16), partitions.length);
+  }
+
+  /**
+   * Stores the number of partitions on the first start and checks it on the next ones.
+   */
+  private static void checkPartitionCount(Path storageRoot, int count) {
+    Path partitionsFile = storageRoot.resolve(PARTITIONS_FILE_NAME);
+    try {
+      if (!Files.exists(partitionsFile)) {
+        Files.writeString(partitionsFile, Integer.toString(count), StandardCharsets.UTF_8);
+        return;
+      }
+      String content = Files.readString(partitionsFile, StandardCharsets.UTF_8);
+      int stored = Integer.parseInt(content.trim());
+      if (stored != count) {
+        throw new IllegalStateException("The URL repository has " + stored
+            + " partitions, but " + count + " are configured");
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the URL aliases of a user page by page with
+ * {@link UrlRepository#getAliasesForUser(String, String, int)}, so that only one page is held in
+ * memory at a time.
+ */
+final class UserAliasPages implements Iterator<UrlAlias> {
+  private static final int PAGE_SIZE = 256;
+
+  private final UrlRepository repository;
+  private final String userEmail;
+  private List<UrlAlias> page;
+  private int next;
+
+  UserAliasPages(UrlRepository repository, String userEmail) {
+    this.repository = repository;
+    this.userEmail = userEmail;
+    this.page = repository.getAliasesForUser(userEmail, null, PAGE_SIZE);
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == page.size() && page.size() == PAGE_SIZE) {
+      page = repository.getAliasesForUser(userEmail, page.get(PAGE_SIZE - 1).alias(), PAGE_SIZE);
+      next = 0;
+    }
+    return next < page.size();
+  }
+
+  @Override
+  public UrlAlias next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return page.get(next++);
+  }
+}
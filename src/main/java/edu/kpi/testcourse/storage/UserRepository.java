@@ -21,4 +21,9 @@ public interface UserRepository {
    *          exist.
    */
   @Nullable User findUser(String email);
+
+  /**
+   * Returns the number of users in the repository.
+   */
+  long size();
 }
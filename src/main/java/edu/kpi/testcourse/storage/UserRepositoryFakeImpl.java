@@ -22,4 +22,9 @@ public class UserRepositoryFakeImpl implements UserRepository {
   public @Nullable User findUser(String email) {
     return users.get(email);
   }
+
+  @Override
+  public long size() {
+    return users.size();
+  }
 }
@@ -1,28 +1,53 @@
 package edu.kpi.testcourse.storage;
 
-import com.google.gson.reflect.TypeToken;
 import edu.kpi.testcourse.entities.User;
 import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.SnapshotFormat;
+import edu.kpi.testcourse.metrics.Histogram;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.serialization.JsonTool;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 /**
  * A file-backed implementation of {@link UserRepository} suitable for use in production.
+ *
+ * <p>Users created concurrently are persisted with a single write of the repository file through
+ * a {@link GroupCommit}, the file is forced to the disk according to
+ * {@link UrlShortenerConfig#fsyncPolicy()}. Lookups take no lock.
+ *
+ * <p>The file is written in {@link UrlShortenerConfig#snapshotFormat()}
+ * (<tt>user-repository.json</tt> or <tt>user-repository.bin</tt>). If there is no file of that
+ * format yet, the file of the other format is loaded, and it is deleted after the first write.
  */
 public class UserRepositoryFileImpl implements UserRepository {
-  // User profiles, keyed by email.
-  private final Map<String, User> users;
+  private static final int AVERAGE_FILE_ENTRY_BYTES = 192;
+  private static final Histogram WRITE_BYTES = MetricsRegistry.global().sizes(
+      "repository_write_bytes", "Size of repository writes", "repository", "users");
+  private static final Histogram WRITE_SECONDS = MetricsRegistry.global().timer(
+      "repository_write_seconds", "Duration of repository writes", "repository", "users");
+
+  // User profiles, keyed by email. Written under the repository monitor, read without any locking.
+  private final ConcurrentHashMap<String, User> users;
 
   private final JsonTool jsonTool;
-  private final UrlShortenerConfig appConfig;
+  private final SnapshotFormat format;
+  private final Path filePath;
+  private final GroupCommit<User> commits;
+  private final FileSync fileSync;
+  // Accessed only by the thread that writes the file.
+  private boolean otherFormatFileDeleted;
 
   /**
    * Creates an instance.
@@ -30,52 +55,102 @@ public class UserRepositoryFileImpl implements UserRepository {
   @Inject
   public UserRepositoryFileImpl(JsonTool jsonTool, UrlShortenerConfig appConfig) {
     this.jsonTool = jsonTool;
-    this.appConfig = appConfig;
-    this.users = readUsersFromJsonDatabaseFile(jsonTool, makeJsonFilePath(appConfig.storageRoot()));
+    this.format = appConfig.snapshotFormat();
+    this.filePath = makeFilePath(appConfig.storageRoot(), format);
+    this.users = readUsersFromDatabaseFile(jsonTool, appConfig.storageRoot(), format);
+    this.commits = new GroupCommit<>(batch -> syncUsersWithDatabaseFile());
+    this.fileSync = new FileSync(filePath, appConfig);
   }
 
   @Override
-  public synchronized void createUser(User user) {
-    if (users.putIfAbsent(user.email(), user) != null) {
-      throw new RuntimeException("User already exists");
+  public void createUser(User user) {
+    GroupCommit.Batch<User> batch;
+    synchronized (this) {
+      if (users.putIfAbsent(user.email(), user) != null) {
+        throw new RuntimeException("User already exists");
+      }
+      batch = commits.enqueue(user);
+    }
+    try {
+      commits.await(batch);
+    } catch (RuntimeException e) {
+      // The user was not persisted, so it must not be found either.
+      synchronized (this) {
+        users.remove(user.email(), user);
+      }
+      throw e;
     }
-    writeUsersToJsonDatabaseFile(jsonTool, users, makeJsonFilePath(appConfig.storageRoot()));
   }
 
   @Override
-  public synchronized @Nullable User findUser(String email) {
+  public @Nullable User findUser(String email) {
     return users.get(email);
   }
 
-  private static Path makeJsonFilePath(Path storageRoot) {
-    return storageRoot.resolve("user-repository.json");
+  @Override
+  public long size() {
+    return users.mappingCount();
+  }
+
+  private static Path makeFilePath(Path storageRoot, SnapshotFormat format) {
+    return storageRoot.resolve(
+      format == SnapshotFormat.JSON ? "user-repository.json" : "user-repository.bin");
+  }
+
+  private static SnapshotFormat otherFormat(SnapshotFormat format) {
+    return format == SnapshotFormat.JSON ? SnapshotFormat.BINARY : SnapshotFormat.JSON;
   }
 
-  private static Map<String, User> readUsersFromJsonDatabaseFile(
-      JsonTool jsonTool, Path sourceFilePath
+  private static ConcurrentHashMap<String, User> readUsersFromDatabaseFile(
+      JsonTool jsonTool, Path storageRoot, SnapshotFormat format
   ) {
-    String json;
-    try {
-      json = Files.readString(sourceFilePath, StandardCharsets.UTF_8);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+    Path sourceFilePath = makeFilePath(storageRoot, format);
+    if (!Files.exists(sourceFilePath)) {
+      // The format was changed since the last write.
+      format = otherFormat(format);
+      sourceFilePath = makeFilePath(storageRoot, format);
+    }
+    if (!Files.exists(sourceFilePath)) {
+      // Nothing has been written yet.
+      return new ConcurrentHashMap<>();
     }
-    Type type = new TypeToken<HashMap<String, User>>(){}.getType();
-    Map<String, User> result = jsonTool.fromJson(json, type);
-    if (result == null) {
-      throw new RuntimeException("Could not deserialize the user repository");
+    if (format == SnapshotFormat.JSON) {
+      return JsonSnapshots.load(
+        jsonTool, List.of(sourceFilePath), User.class, AVERAGE_FILE_ENTRY_BYTES);
     }
-    return result;
+    return BinarySnapshots.loadUsers(sourceFilePath);
   }
 
-  private static void writeUsersToJsonDatabaseFile(
-      JsonTool jsonTool, Map<String, User> users, Path destinationFilePath
-  ) {
-    String json = jsonTool.toJson(users);
-    try {
-      Files.write(destinationFilePath, json.getBytes(StandardCharsets.UTF_8));
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  /**
+   * Writes all users into the file, including the ones whose commit is still pending.
+   */
+  private void syncUsersWithDatabaseFile() throws IOException {
+    long start = System.nanoTime();
+    Map<String, User> snapshot;
+    synchronized (this) {
+      snapshot = new HashMap<>(users);
+    }
+    try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      switch (format) {
+        case JSON -> {
+          String json = jsonTool.toJson(snapshot);
+          ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+        case BINARY -> BinarySnapshots.writeUsers(channel, snapshot.values(), false);
+        case COMPRESSED_BINARY -> BinarySnapshots.writeUsers(channel, snapshot.values(), true);
+        default -> throw new IllegalStateException("Unknown snapshot format: " + format);
+      }
+      fileSync.afterWrite(channel);
+      WRITE_BYTES.record(channel.position());
+    }
+    WRITE_SECONDS.recordSince(start);
+    if (!otherFormatFileDeleted) {
+      Files.deleteIfExists(makeFilePath(filePath.getParent(), otherFormat(format)));
+      otherFormatFileDeleted = true;
     }
   }
 }
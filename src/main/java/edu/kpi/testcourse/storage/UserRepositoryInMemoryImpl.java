@@ -0,0 +1,31 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.User;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * A thread-safe in-memory implementation of {@link UserRepository} for servers that do not need to
+ * keep users across restarts. Users are kept in a {@link ConcurrentHashMap}, so lookups take no
+ * lock and sign-ups of different users don't wait for each other.
+ */
+public class UserRepositoryInMemoryImpl implements UserRepository {
+  private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+
+  @Override
+  public void createUser(User user) {
+    if (users.putIfAbsent(user.email(), user) != null) {
+      throw new RuntimeException("User already exists");
+    }
+  }
+
+  @Override
+  public @Nullable User findUser(String email) {
+    return users.get(email);
+  }
+
+  @Override
+  public long size() {
+    return users.mappingCount();
+  }
+}
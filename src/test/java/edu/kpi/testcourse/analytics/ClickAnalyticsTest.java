@@ -0,0 +1,133 @@
+package edu.kpi.testcourse.analytics;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.storage.ClickStatsRepositoryFakeImpl;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickAnalyticsTest {
+  ClickStatsRepositoryFakeImpl repository;
+  ClickAnalytics analytics;
+
+  @BeforeEach
+  void setUp() {
+    repository = new ClickStatsRepositoryFakeImpl();
+    // Flushes are triggered by tests explicitly.
+    analytics = new ClickAnalytics(repository,
+      UrlShortenerConfig.builder(Paths.get("unused"))
+        .clickStatsFlushIntervalMillis(3_600_000)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    analytics.close();
+  }
+
+  @Test
+  void countsClicksBeforeFlush() {
+    // GIVEN
+    long before = System.currentTimeMillis();
+
+    // WHEN
+    analytics.recordClick("alias");
+    analytics.recordClick("alias");
+
+    // THEN
+    ClickStats stats = analytics.stats("alias");
+    assertThat(stats.clicks()).isEqualTo(2);
+    assertThat(stats.lastAccess()).isGreaterThanOrEqualTo(before);
+    assertThat(repository.findClickStats("alias")).isNull();
+  }
+
+  @Test
+  void flushesClicksToRepository() {
+    // GIVEN
+    analytics.recordClick("alias");
+    analytics.flush();
+
+    // WHEN
+    analytics.recordClick("alias");
+    analytics.flush();
+
+    // THEN
+    assertThat(repository.findClickStats("alias").clicks()).isEqualTo(2);
+    assertThat(analytics.stats("alias").clicks()).isEqualTo(2);
+  }
+
+  @Test
+  void keepsCountingAliasDroppedFromMemory() {
+    // GIVEN
+    analytics.recordClick("alias");
+    analytics.flush();
+    // The alias was not clicked since the previous flush, so it is dropped.
+    analytics.flush();
+
+    // WHEN
+    analytics.recordClick("alias");
+    analytics.flush();
+
+    // THEN
+    assertThat(analytics.stats("alias").clicks()).isEqualTo(2);
+  }
+
+  @Test
+  void doesNotLoseConcurrentClicks() throws InterruptedException {
+    // GIVEN
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    // WHEN
+    for (int thread = 0; thread < 4; thread++) {
+      executor.execute(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          analytics.recordClick("alias" + i % 3);
+        }
+      });
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    analytics.flush();
+
+    // THEN
+    long clicks = 0;
+    for (int i = 0; i < 3; i++) {
+      clicks += repository.findClickStats("alias" + i).clicks();
+    }
+    assertThat(clicks).isEqualTo(40_000);
+  }
+
+  @Test
+  void returnsEmptyStatsOfAliasWithoutClicks() {
+    // WHEN
+    ClickStats stats = analytics.stats("alias");
+
+    // THEN
+    assertThat(stats).isEqualTo(new ClickStats("alias", 0, 0));
+  }
+
+  @Test
+  void forgetsClicksOfAliasTakenAgain() {
+    // GIVEN
+    analytics.recordClick("alias");
+    analytics.flush();
+    analytics.recordClick("alias");
+
+    // WHEN
+    analytics.forget("alias");
+
+    // THEN
+    assertThat(analytics.stats("alias").clicks()).isZero();
+    analytics.recordClick("alias");
+    analytics.flush();
+    assertThat(repository.findClickStats("alias").clicks()).isEqualTo(1);
+    assertThat(analytics.stats("alias").clicks()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,87 @@
+package edu.kpi.testcourse.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class AliasGeneratorTest {
+
+  @Test
+  void encodesNumbersInBase62() {
+    assertThat(AliasGenerator.encode(0)).isEqualTo("_0");
+    assertThat(AliasGenerator.encode(61)).isEqualTo("_Z");
+    assertThat(AliasGenerator.encode(62)).isEqualTo("_10");
+    assertThat(AliasGenerator.encode(Long.MAX_VALUE)).isEqualTo("_aZl8N0y58M7");
+  }
+
+  @Test
+  void generatesReservedAliases() {
+    // GIVEN
+    AliasGenerator generator = new AliasGenerator();
+
+    // WHEN
+    String alias = generator.nextAlias();
+
+    // THEN
+    assertThat(AliasGenerator.isReserved(alias)).isTrue();
+    assertThat(AliasGenerator.isReserved("custom")).isFalse();
+  }
+
+  @Test
+  void generatesUniqueAliasesConcurrently() throws Exception {
+    // GIVEN
+    AliasGenerator generator = new AliasGenerator();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    int perThread = 3 * AliasGenerator.BLOCK_SIZE;
+    Callable<List<String>> task = () -> {
+      List<String> aliases = new ArrayList<>();
+      for (int i = 0; i < perThread; i++) {
+        aliases.add(generator.nextAlias());
+      }
+      return aliases;
+    };
+
+    // WHEN
+    List<Future<List<String>>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executor.submit(task));
+    }
+    Set<String> unique = new HashSet<>();
+    for (Future<List<String>> result : results) {
+      unique.addAll(result.get());
+    }
+    executor.shutdown();
+
+    // THEN
+    assertThat(unique).hasSize(8 * perThread);
+  }
+
+  @Test
+  void membersOfClusterGenerateDifferentAliases() {
+    // GIVEN
+    List<AliasGenerator> members = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      members.add(new AliasGenerator(
+          AliasGenerator.interleaved(new AliasGenerator.InMemoryBlockSource(), i, 3)));
+    }
+
+    // WHEN
+    Set<String> unique = new HashSet<>();
+    for (AliasGenerator member : members) {
+      for (int i = 0; i < 3 * AliasGenerator.BLOCK_SIZE; i++) {
+        unique.add(member.nextAlias());
+      }
+    }
+
+    // THEN
+    assertThat(unique).hasSize(9 * AliasGenerator.BLOCK_SIZE);
+  }
+}
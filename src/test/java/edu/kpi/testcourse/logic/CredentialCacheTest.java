@@ -0,0 +1,56 @@
+package edu.kpi.testcourse.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CredentialCacheTest {
+  private final AtomicLong now = new AtomicLong();
+  private final CredentialCache cache = new CredentialCache(1000, 2, now::get);
+
+  @Test
+  void remembersVerifiedPassword() {
+    // WHEN
+    cache.verified("aaa@bbb.com", "password", "hash");
+
+    // THEN
+    assertThat(cache.isVerified("aaa@bbb.com", "password", "hash")).isTrue();
+    assertThat(cache.isVerified("aaa@bbb.com", "another", "hash")).isFalse();
+    assertThat(cache.isVerified("ccc@bbb.com", "password", "hash")).isFalse();
+  }
+
+  @Test
+  void forgetsVerification_whenPasswordHashChanges() {
+    // WHEN
+    cache.verified("aaa@bbb.com", "password", "hash");
+
+    // THEN
+    assertThat(cache.isVerified("aaa@bbb.com", "password", "another hash")).isFalse();
+  }
+
+  @Test
+  void forgetsVerification_whenItExpires() {
+    // GIVEN
+    cache.verified("aaa@bbb.com", "password", "hash");
+
+    // WHEN
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+    // THEN
+    assertThat(cache.isVerified("aaa@bbb.com", "password", "hash")).isFalse();
+  }
+
+  @Test
+  void staysBounded() {
+    // WHEN
+    cache.verified("aaa@bbb.com", "password", "hash");
+    cache.verified("bbb@bbb.com", "password", "hash");
+    cache.verified("ccc@bbb.com", "password", "hash");
+
+    // THEN
+    assertThat(cache.isVerified("ccc@bbb.com", "password", "hash")).isTrue();
+    assertThat(cache.isVerified("aaa@bbb.com", "password", "hash")).isFalse();
+  }
+}
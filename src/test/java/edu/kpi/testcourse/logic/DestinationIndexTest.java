@@ -0,0 +1,63 @@
+package edu.kpi.testcourse.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DestinationIndexTest {
+
+  @Test
+  void separatesOwnersAndUrls() {
+    assertThat(DestinationIndex.key("ab", "c")).isNotEqualTo(DestinationIndex.key("a", "bc"));
+    assertThat(DestinationIndex.key("a@b.com", "http://g.com"))
+      .isEqualTo(DestinationIndex.key("a@b.com", "http://g.com"));
+  }
+
+  @Test
+  void removesOnlyTheGivenAlias() {
+    // GIVEN
+    DestinationIndex index = new DestinationIndex();
+    index.put(42, "first");
+    index.put(42, "second");
+
+    // WHEN
+    index.remove(42, "first");
+
+    // THEN
+    assertThat(index.get(42)).isEqualTo("second");
+    index.remove(42, "second");
+    assertThat(index.get(42)).isNull();
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void behavesLikeMap_whenKeysCollideAndTableGrows() {
+    // GIVEN
+    DestinationIndex index = new DestinationIndex();
+    Map<Long, String> expected = new HashMap<>();
+    Random random = new Random(1);
+
+    // WHEN
+    for (int i = 0; i < 200_000; i++) {
+      // Few distinct low bits, so that keys fight for the same slots.
+      long key = (random.nextInt(5000) << 20) | random.nextInt(8) | 1;
+      String alias = "alias" + random.nextInt(3);
+      if (random.nextInt(3) == 0) {
+        index.remove(key, alias);
+        expected.remove(key, alias);
+      } else {
+        index.put(key, alias);
+        expected.put(key, alias);
+      }
+    }
+
+    // THEN
+    assertThat(index.size()).isEqualTo(expected.size());
+    for (Map.Entry<Long, String> entry : expected.entrySet()) {
+      assertThat(index.get(entry.getKey())).isEqualTo(entry.getValue());
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package edu.kpi.testcourse.logic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FileBlockSourceTest {
+  Path storageRoot;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    storageRoot = Files.createTempDirectory("file-block-source-test");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(storageRoot.resolve(FileBlockSource.FILE_NAME));
+    Files.delete(storageRoot);
+  }
+
+  @Test
+  void handsOutConsecutiveBlocks() {
+    // GIVEN
+    FileBlockSource source = new FileBlockSource(storageRoot);
+
+    // WHEN
+    long first = source.reserve(AliasGenerator.BLOCK_SIZE);
+    long second = source.reserve(AliasGenerator.BLOCK_SIZE);
+
+    // THEN
+    assertThat(first).isEqualTo(0);
+    assertThat(second).isEqualTo(AliasGenerator.BLOCK_SIZE);
+  }
+
+  @Test
+  void neverHandsOutBlockAgain_afterRestart() {
+    // GIVEN
+    FileBlockSource source = new FileBlockSource(storageRoot);
+    long last = 0;
+    for (int i = 0; i < 100; i++) {
+      last = source.reserve(AliasGenerator.BLOCK_SIZE);
+    }
+
+    // WHEN
+    long afterRestart = new FileBlockSource(storageRoot).reserve(AliasGenerator.BLOCK_SIZE);
+
+    // THEN
+    assertThat(afterRestart).isGreaterThan(last);
+  }
+
+  @Test
+  void generatorDoesNotRepeatAliases_afterRestart() {
+    // GIVEN
+    String before = new AliasGenerator(new FileBlockSource(storageRoot)).nextAlias();
+
+    // WHEN
+    String after = new AliasGenerator(new FileBlockSource(storageRoot)).nextAlias();
+
+    // THEN
+    assertThat(after).isNotEqualTo(before);
+  }
+}
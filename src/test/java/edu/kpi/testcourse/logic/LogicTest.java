@@ -2,9 +2,19 @@ package edu.kpi.testcourse.logic;
 
 import edu.kpi.testcourse.entities.UrlAlias;
 import edu.kpi.testcourse.entities.User;
+import edu.kpi.testcourse.metrics.Counter;
+import edu.kpi.testcourse.metrics.MetricsRegistry;
 import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
 import edu.kpi.testcourse.storage.UrlRepositoryFakeImpl;
+import edu.kpi.testcourse.storage.UrlRepositoryInMemoryImpl;
 import edu.kpi.testcourse.storage.UserRepositoryFakeImpl;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -64,6 +74,21 @@ class LogicTest {
     assertThat(logic.isUserValid("aaa@bbb.com", "password")).isTrue();
   }
 
+  @Test
+  void shouldNotAuthorizeUserWithWrongPassword_afterSuccessfulLogin()
+      throws Logic.UserIsAlreadyCreated {
+    // GIVEN
+    Logic logic = createLogic();
+    logic.createNewUser("aaa@bbb.com", "password");
+
+    // WHEN
+    logic.isUserValid("aaa@bbb.com", "password");
+
+    // THEN
+    assertThat(logic.isUserValid("aaa@bbb.com", "password")).isTrue();
+    assertThat(logic.isUserValid("aaa@bbb.com", "wrong password")).isFalse();
+  }
+
   @Test
   void shouldCreateShortVersionOfUrl() {
     // GIVEN
@@ -78,6 +103,65 @@ class LogicTest {
     assertThat(logic.findFullUrl("short")).isEqualTo("http://g.com/loooong_url");
   }
 
+  @Test
+  void shouldStoreNormalizedUrl() {
+    // GIVEN
+    Logic logic = createLogic();
+
+    // WHEN
+    logic.createNewAlias("aaa@bbb.com", " HTTPS://g.com/a/./b/../путь ", "short");
+
+    // THEN
+    assertThat(logic.findFullUrl("short")).isEqualTo("https://g.com/a/%D0%BF%D1%83%D1%82%D1%8C");
+  }
+
+  @Test
+  void shouldNotAllowToShortenInvalidUrl() {
+    // GIVEN
+    Logic logic = createLogic();
+
+    // WHEN + THEN
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "ftp://g.com/file", "short");
+    }).isInstanceOf(Logic.InvalidUrl.class);
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "not a url", "short");
+    }).isInstanceOf(Logic.InvalidUrl.class);
+  }
+
+  @Test
+  void shouldCreateExpiringAlias() {
+    // GIVEN
+    UrlRepositoryFakeImpl urls = new UrlRepositoryFakeImpl();
+    Logic logic = createLogic(urls);
+    long before = System.currentTimeMillis();
+
+    // WHEN
+    logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", "short", Duration.ofDays(7));
+
+    // THEN
+    assertThat(urls.findUrlAlias("short").expiresAt())
+      .isGreaterThanOrEqualTo(before + Duration.ofDays(7).toMillis());
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", "other", Duration.ZERO);
+    }).isInstanceOf(Logic.InvalidTtl.class);
+  }
+
+  @Test
+  void shouldRejectTooLongTtl() {
+    // GIVEN
+    Logic logic = createLogic();
+
+    // WHEN + THEN
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "http://g.com/", "short",
+          Duration.ofSeconds(Long.MAX_VALUE));
+    }).isInstanceOf(Logic.InvalidTtl.class);
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "http://g.com/", "short", Logic.MAX_TTL.plusDays(1));
+    }).isInstanceOf(Logic.InvalidTtl.class);
+  }
+
   @Test
   void shouldNotAllowToCreateSameAliasTwice() {
     // GIVEN
@@ -91,4 +175,227 @@ class LogicTest {
       logic.createNewAlias("ddd@bbb.com", "http://d.com/laaaang_url", "short");
     }).isInstanceOf(AliasAlreadyExist.class);
   }
+
+  @Test
+  void shouldGenerateAlias_whenItIsNotProvided() {
+    // GIVEN
+    Logic logic = createLogic();
+
+    // WHEN
+    var alias1 = logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", null);
+    var alias2 = logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "");
+
+    // THEN
+    assertThat(alias1).isNotEqualTo(alias2);
+    assertThat(logic.findFullUrl(alias1)).isEqualTo("http://g.com/loooong_url");
+    assertThat(logic.findFullUrl(alias2)).isEqualTo("http://g.com/loooong_url");
+  }
+
+  @Test
+  void shouldNotAllowToUseReservedAlias() {
+    // GIVEN
+    Logic logic = createLogic();
+
+    // WHEN + THEN
+    assertThatThrownBy(() -> {
+      logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "_0");
+    }).isInstanceOf(Logic.AliasIsReserved.class);
+  }
+
+  @Test
+  void shouldListAliasesOfUserByPages() {
+    // GIVEN
+    Logic logic = createLogic();
+    for (int i = 0; i < 5; i++) {
+      logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "alias" + i);
+    }
+    logic.createNewAlias("ddd@bbb.com", "http://g.com/loooong_url", "another");
+
+    // WHEN
+    var firstPage = logic.getAliasesForUser("aaa@bbb.com", null, 3);
+    var lastPage = logic.getAliasesForUser("aaa@bbb.com", "alias2", 3);
+
+    // THEN
+    assertThat(firstPage.stream().map(UrlAlias::alias).collect(Collectors.toList()))
+      .isEqualTo(List.of("alias0", "alias1", "alias2"));
+    assertThat(lastPage.stream().map(UrlAlias::alias).collect(Collectors.toList()))
+      .isEqualTo(List.of("alias3", "alias4"));
+  }
+
+  @Test
+  void shouldCreateBatchOfAliases() {
+    // GIVEN
+    Logic logic = createLogic();
+    logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "taken");
+
+    // WHEN
+    var results = logic.createNewAliases("aaa@bbb.com", List.of(
+        new Logic.ShortenRequest("http://g.com/1", "short"),
+        new Logic.ShortenRequest("http://g.com/2", null),
+        new Logic.ShortenRequest("http://g.com/3", "taken"),
+        new Logic.ShortenRequest("http://g.com/4", "_0")));
+
+    // THEN
+    assertThat(results.get(0).alias()).isEqualTo("short");
+    assertThat(logic.findFullUrl(results.get(1).alias())).isEqualTo("http://g.com/2");
+    assertThat(results.get(2).error()).isInstanceOf(AliasAlreadyExist.class);
+    assertThat(results.get(3).error()).isInstanceOf(Logic.AliasIsReserved.class);
+  }
+
+  @Test
+  void shouldCreateAliasAsynchronously() throws Exception {
+    // GIVEN
+    ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    Logic logic = new Logic(new UserRepositoryFakeImpl(), new UrlRepositoryFakeImpl(),
+        new AliasGenerator(), ioExecutor);
+
+    // WHEN
+    String alias = logic.createNewAliasAsync("aaa@bbb.com", "http://g.com/loooong_url", "short")
+        .get(10, TimeUnit.SECONDS);
+
+    // THEN
+    assertThat(alias).isEqualTo("short");
+    assertThat(logic.findFullUrlAsync("short").get(10, TimeUnit.SECONDS))
+      .isEqualTo("http://g.com/loooong_url");
+    assertThat(logic.findFullUrlAsync("unknown").get(10, TimeUnit.SECONDS)).isNull();
+    ioExecutor.shutdown();
+  }
+
+  @Test
+  void shouldFailAsynchronousCreation_whenAliasIsTaken() {
+    // GIVEN
+    Logic logic = createLogic();
+    logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "short");
+
+    // WHEN
+    var future = logic.createNewAliasAsync("ddd@bbb.com", "http://d.com/laaaang_url", "short");
+
+    // THEN
+    assertThatThrownBy(future::join).hasCauseInstanceOf(AliasAlreadyExist.class);
+  }
+
+  @Test
+  void shouldCountConflict_whenRepositoryFailsWithoutWrappingError() {
+    // GIVEN
+    Counter conflicts = MetricsRegistry.global().counter(
+        "alias_conflicts_total", "Number of attempts to create an alias that is already taken");
+    // Its futures fail with the error itself rather than with a CompletionException.
+    Logic logic = new Logic(new UserRepositoryFakeImpl(), new UrlRepositoryInMemoryImpl());
+    logic.createNewAlias("aaa@bbb.com", "http://g.com/loooong_url", "short");
+    long conflictsBefore = conflicts.count();
+
+    // WHEN
+    var future = logic.createNewAliasAsync("ddd@bbb.com", "http://d.com/laaaang_url", "short");
+
+    // THEN
+    assertThatThrownBy(future::join).hasCauseInstanceOf(AliasAlreadyExist.class);
+    assertThat(conflicts.count() - conflictsBefore).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReuseExistingAlias_whenAsked() {
+    // GIVEN
+    Logic logic = createLogic();
+    String existing = logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null);
+
+    // WHEN
+    String reused = logic.createNewAlias("aaa@bbb.com", "HTTP://g.com/campaign", null, null, true);
+    String created = logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null);
+    String otherOwner =
+        logic.createNewAlias("ccc@bbb.com", "http://g.com/campaign", null, null, true);
+
+    // THEN
+    assertThat(reused).isEqualTo(existing);
+    assertThat(created).isNotEqualTo(existing);
+    assertThat(otherOwner).isNotIn(existing, created);
+  }
+
+  @Test
+  void shouldReuseExistingAliasAsynchronously_withoutGeneratingAlias() {
+    // GIVEN
+    Logic logic = createLogic();
+    String existing = logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null);
+
+    // WHEN
+    String reused = logic.createNewAliasAsync("aaa@bbb.com", "http://g.com/campaign", null, null,
+        true).join();
+    String created = logic.createNewAlias("aaa@bbb.com", "http://g.com/other", null);
+
+    // THEN
+    assertThat(reused).isEqualTo(existing);
+    assertThat(existing).isEqualTo("_0");
+    assertThat(created).isEqualTo("_1");
+  }
+
+  @Test
+  void shouldReuseStoredAlias_onlyWhenExistingAliasesAreIndexed() {
+    // GIVEN
+    UrlRepositoryFakeImpl urls = new UrlRepositoryFakeImpl();
+    urls.createUrlAlias(new UrlAlias("stored", "http://g.com/campaign", "aaa@bbb.com"));
+    Logic indexing = new Logic(new UserRepositoryFakeImpl(), urls, new AliasGenerator(),
+        Runnable::run, alias -> { }, true);
+    Logic notIndexing = new Logic(new UserRepositoryFakeImpl(), urls, new AliasGenerator(),
+        Runnable::run, alias -> { }, false);
+
+    // WHEN
+    String reused = indexing.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null, null,
+        true);
+    String created = notIndexing.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null,
+        null, true);
+
+    // THEN
+    assertThat(reused).isEqualTo("stored");
+    assertThat(created).isNotEqualTo("stored");
+  }
+
+  @Test
+  void shouldNotReuseDeletedAlias() {
+    // GIVEN
+    Logic logic = createLogic();
+    String existing = logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null);
+    logic.deleteAlias("aaa@bbb.com", existing);
+
+    // WHEN
+    String alias = logic.createNewAlias("aaa@bbb.com", "http://g.com/campaign", null, null, true);
+
+    // THEN
+    assertThat(alias).isNotEqualTo(existing);
+    assertThat(logic.findFullUrl(alias)).isEqualTo("http://g.com/campaign");
+  }
+
+  @Test
+  void shouldReuseAliasesWithinBatch() {
+    // GIVEN
+    Logic logic = createLogic();
+    String existing = logic.createNewAlias("aaa@bbb.com", "http://g.com/1", null);
+
+    // WHEN
+    var results = logic.createNewAliases("aaa@bbb.com", List.of(
+        new Logic.ShortenRequest("http://g.com/1", null, null, true),
+        new Logic.ShortenRequest("http://g.com/2", null, null, true),
+        new Logic.ShortenRequest("http://g.com/2", null, null, true),
+        new Logic.ShortenRequest("http://g.com/2", null, null, false)));
+
+    // THEN
+    assertThat(results.get(0).alias()).isEqualTo(existing);
+    assertThat(results.get(2).alias()).isEqualTo(results.get(1).alias());
+    assertThat(results.get(3).alias()).isNotEqualTo(results.get(1).alias());
+    assertThat(logic.getAllAliasesForUser("aaa@bbb.com").size()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldResetDataOfCreatedAndDeletedAliases() {
+    // GIVEN
+    List<String> reset = new ArrayList<>();
+    Logic logic = new Logic(new UserRepositoryFakeImpl(), new UrlRepositoryFakeImpl(),
+        new AliasGenerator(), Runnable::run, reset::add);
+    logic.createNewAlias("aaa@bbb.com", "http://g.com/1", "campaign");
+
+    // WHEN
+    logic.deleteAlias("aaa@bbb.com", "campaign");
+    logic.createNewAlias("bbb@ccc.com", "http://g.com/2", "campaign");
+
+    // THEN
+    assertThat(reset).isEqualTo(List.of("campaign", "campaign", "campaign"));
+  }
 }
@@ -0,0 +1,89 @@
+package edu.kpi.testcourse.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class MetricsRegistryTest {
+
+  @Test
+  void exportsCountersAndGauges() {
+    // GIVEN
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("requests_total", "Requests", "kind", "a").increment(3);
+    registry.gauge("entries", "Entries", () -> 42);
+
+    // WHEN
+    String scrape = registry.scrape();
+
+    // THEN
+    assertThat(scrape).contains(
+        "# TYPE requests_total counter\n",
+        "requests_total{kind=\"a\"} 3\n",
+        "# HELP entries Entries\n",
+        "entries 42\n");
+  }
+
+  @Test
+  void returnsSameCounter_forSameNameAndLabels() {
+    // GIVEN
+    MetricsRegistry registry = new MetricsRegistry();
+
+    // WHEN
+    registry.counter("requests_total", "Requests").increment();
+    registry.counter("requests_total", "Requests").increment();
+
+    // THEN
+    assertThat(registry.counter("requests_total", "Requests").count()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsMetricOfAnotherType_withSameName() {
+    // GIVEN
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("requests_total", "Requests");
+
+    // WHEN + THEN
+    assertThatThrownBy(() -> registry.timer("requests_total", "Requests"))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void exportsCumulativeHistogramBuckets() {
+    // GIVEN
+    MetricsRegistry registry = new MetricsRegistry();
+    Histogram sizes = registry.sizes("write_bytes", "Writes");
+
+    // WHEN
+    sizes.record(100);
+    sizes.record(5000);
+
+    // THEN
+    assertThat(registry.scrape()).contains(
+        "write_bytes_bucket{le=\"64\"} 0\n",
+        "write_bytes_bucket{le=\"128\"} 1\n",
+        "write_bytes_bucket{le=\"8192\"} 2\n",
+        "write_bytes_bucket{le=\"+Inf\"} 2\n",
+        "write_bytes_sum 5100\n",
+        "write_bytes_count 2\n");
+  }
+
+  @Test
+  void estimatesPercentilesWithinBucketPrecision() {
+    // GIVEN
+    Histogram latencies = new MetricsRegistry().timer("latency_seconds", "Latency");
+
+    // WHEN
+    for (int i = 1; i <= 100_000; i++) {
+      latencies.record(i * 1000L);
+    }
+
+    // THEN
+    double relativeError = 1.0 / Histogram.SUB_BUCKETS;
+    assertThat((double) latencies.valueAtPercentile(50))
+      .isBetween(50_000_000 * (1 - relativeError), 50_000_000 * (1 + relativeError));
+    assertThat((double) latencies.valueAtPercentile(99))
+      .isBetween(99_000_000 * (1 - relativeError), 99_000_000 * (1 + relativeError));
+  }
+}
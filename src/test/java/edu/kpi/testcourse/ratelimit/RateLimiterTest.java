@@ -0,0 +1,73 @@
+package edu.kpi.testcourse.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class RateLimiterTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long START = 1_000 * SECOND;
+
+  @Test
+  void allowsBurst_andThenRate() {
+    // GIVEN
+    RateLimiter limiter = new RateLimiter(2, 3, 16);
+    for (int i = 0; i < 3; i++) {
+      assertThat(limiter.tryAcquire("user", START)).isEqualTo(0L);
+    }
+
+    // WHEN
+    long wait = limiter.tryAcquire("user", START);
+
+    // THEN
+    assertThat(wait).isEqualTo(SECOND / 2);
+    assertThat(limiter.tryAcquire("user", START + SECOND / 2)).isEqualTo(0L);
+    assertThat(limiter.tryAcquire("user", START + SECOND / 2)).isGreaterThan(0L);
+  }
+
+  @Test
+  void refillsUpToBurstOnly() {
+    // GIVEN
+    RateLimiter limiter = new RateLimiter(1, 2, 16);
+    limiter.tryAcquire("user", START);
+
+    // WHEN
+    long later = START + 60 * SECOND;
+
+    // THEN
+    assertThat(limiter.tryAcquire("user", later)).isEqualTo(0L);
+    assertThat(limiter.tryAcquire("user", later)).isEqualTo(0L);
+    assertThat(limiter.tryAcquire("user", later)).isGreaterThan(0L);
+  }
+
+  @Test
+  void limitsClientsSeparately() {
+    // GIVEN
+    RateLimiter limiter = new RateLimiter(1, 1, 16);
+    limiter.tryAcquire("first", START);
+
+    // WHEN
+    long wait = limiter.tryAcquire("first", START);
+
+    // THEN
+    assertThat(wait).isGreaterThan(0L);
+    assertThat(limiter.tryAcquire("second", START)).isEqualTo(0L);
+  }
+
+  @Test
+  void keepsBusyClients_whenIdleOnesAreEvicted() {
+    // GIVEN
+    RateLimiter limiter = new RateLimiter(1, 1, 8);
+    limiter.tryAcquire("busy", START + 10 * SECOND);
+    for (int i = 0; i < 100; i++) {
+      limiter.tryAcquire("idle" + i, START);
+    }
+
+    // WHEN
+    long wait = limiter.tryAcquire("busy", START + 10 * SECOND);
+
+    // THEN
+    assertThat(wait).isGreaterThan(0L);
+  }
+}
@@ -5,7 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
+import java.io.StringReader;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,6 +64,39 @@ class JsonToolJacksonImplTest {
     assertThat(result).isEqualTo(a);
   }
 
+  @Test
+  void shouldDeserializeFromReader() {
+    // GIVEN
+    var reader = new StringReader("{\"a\": \"b\", \"c\": \"d\"}");
+
+    // WHEN
+    HashMap<String, String> result =
+        json.fromJson(reader, new TypeReference<HashMap<String, String>>() {}.getType());
+
+    // THEN
+    assertThat(result).isEqualTo(Map.of("a", "b", "c", "d"));
+  }
+
+  @Test
+  void shouldReadObjectEntryByEntry() {
+    // GIVEN
+    var reader = new StringReader(
+        "{\"x\": {\"a\": \"test\", \"b\": 1}, \"y\": {\"a\": null, \"b\": 2}}");
+    var entries = new LinkedHashMap<String, Clazz>();
+
+    // WHEN
+    json.readObjectEntries(reader, Clazz.class, entries::put);
+
+    // THEN
+    assertThat(entries).isEqualTo(Map.of("x", new Clazz("test", 1), "y", new Clazz(null, 2)));
+  }
+
+  @Test
+  void shouldNotReadEntriesOfNotAnObject() {
+    assertThrows(JsonTool.JsonParsingError.class,
+        () -> json.readObjectEntries(new StringReader("[1, 2]"), Clazz.class, (k, v) -> {}));
+  }
+
   static class Clazz {
     public String a;
     public int b;
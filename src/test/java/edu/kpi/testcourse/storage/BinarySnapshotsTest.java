@@ -0,0 +1,135 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.entities.User;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class BinarySnapshotsTest {
+  Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("binary-snapshots-test", ".bin");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.delete(file);
+  }
+
+  @Test
+  void readsWrittenUrlAliases() throws IOException {
+    // GIVEN
+    List<UrlAlias> urlAliases = createUrlAliases(10_000);
+
+    // WHEN
+    write(urlAliases, false);
+    Map<String, UrlAlias> loaded = BinarySnapshots.loadUrlAliases(List.of(file));
+
+    // THEN
+    assertThat(loaded.size()).isEqualTo(urlAliases.size());
+    assertThat(loaded.get("alias42")).isEqualTo(urlAliases.get(42));
+    assertThat(loaded.get("alias9999")).isEqualTo(urlAliases.get(9999));
+  }
+
+  @Test
+  void readsCompressedUrlAliases() throws IOException {
+    // GIVEN
+    List<UrlAlias> urlAliases = createUrlAliases(10_000);
+
+    // WHEN
+    write(urlAliases, true);
+    Map<String, UrlAlias> loaded = BinarySnapshots.loadUrlAliases(List.of(file));
+
+    // THEN
+    assertThat(loaded.size()).isEqualTo(urlAliases.size());
+    assertThat(loaded.get("alias42")).isEqualTo(urlAliases.get(42));
+  }
+
+  @Test
+  void keepsExpirationTime() throws IOException {
+    // GIVEN
+    UrlAlias expiring = new UrlAlias("expiring", "http://g.com", "user@example.org", 1L << 42);
+    UrlAlias eternal = new UrlAlias("eternal", "http://g.com", "user@example.org");
+
+    // WHEN
+    write(List.of(expiring, eternal), false);
+    Map<String, UrlAlias> loaded = BinarySnapshots.loadUrlAliases(List.of(file));
+
+    // THEN
+    assertThat(loaded.get("expiring")).isEqualTo(expiring);
+    assertThat(loaded.get("eternal")).isEqualTo(eternal);
+  }
+
+  @Test
+  void sharesEmailsOfLoadedAliases() throws IOException {
+    // GIVEN
+    write(createUrlAliases(100), false);
+
+    // WHEN
+    Map<String, UrlAlias> loaded = BinarySnapshots.loadUrlAliases(List.of(file));
+
+    // THEN
+    assertThat(loaded.get("alias1").email()).isSameAs(loaded.get("alias11").email());
+  }
+
+  @Test
+  void readsWrittenUsers() throws IOException {
+    // GIVEN
+    List<User> users =
+        List.of(new User("aaa@bbb.com", "hash"), new User("юзер@bbb.com", "hash2"));
+
+    // WHEN
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      BinarySnapshots.writeUsers(channel, users, true);
+    }
+    Map<String, User> loaded = BinarySnapshots.loadUsers(file);
+
+    // THEN
+    assertThat(loaded.get("юзер@bbb.com")).isEqualTo(users.get(1));
+    assertThat(loaded.size()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsCorruptedFile() throws IOException {
+    // GIVEN
+    write(createUrlAliases(100), false);
+
+    // WHEN
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'x'}), 40);
+    }
+
+    // THEN
+    assertThatThrownBy(() -> BinarySnapshots.loadUrlAliases(List.of(file)))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
+  private void write(List<UrlAlias> urlAliases, boolean compressed) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      BinarySnapshots.writeUrlAliases(channel, urlAliases, compressed);
+    }
+  }
+
+  private static List<UrlAlias> createUrlAliases(int count) {
+    List<UrlAlias> urlAliases = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      urlAliases.add(new UrlAlias("alias" + i, "http://example.com/" + i, "user" + (i % 10)));
+    }
+    return urlAliases;
+  }
+}
@@ -0,0 +1,93 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BloomFilteredUrlRepositoryTest {
+
+  @Test
+  void findsAliasesCreatedBeforeAndAfterFilterIsBuilt() {
+    // GIVEN
+    UrlRepositoryFakeImpl urls = new UrlRepositoryFakeImpl();
+    UrlAlias before = new UrlAlias("before", "http://www.google.com", "user@test.com");
+    UrlAlias after = new UrlAlias("after", "http://www.google.com", "user@test.com");
+    urls.createUrlAlias(before);
+    BloomFilteredUrlRepository filtered = new BloomFilteredUrlRepository(urls, 0.01);
+
+    // WHEN
+    filtered.createUrlAlias(after);
+
+    // THEN
+    assertThat(filtered.findUrlAlias("before")).isEqualTo(before);
+    assertThat(filtered.findUrlAlias("after")).isEqualTo(after);
+  }
+
+  @Test
+  void rejectsMostUnknownAliases() {
+    // GIVEN
+    BloomFilteredUrlRepository filtered = new BloomFilteredUrlRepository(
+        new UrlRepositoryFakeImpl(), 0.01);
+    for (int i = 0; i < 500; i++) {
+      filtered.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+    }
+
+    // WHEN
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(filtered.findUrlAlias("unknown" + i)).isNull();
+    }
+
+    // THEN
+    assertThat(filtered.stats().lookups()).isEqualTo(10_000);
+    assertThat(filtered.stats().observedFalsePositiveRate()).isLessThan(0.03);
+  }
+
+  @Test
+  void keepsFindingAliases_whenFilterIsRebuilt() {
+    // GIVEN
+    // The fake repository is not thread-safe, so rebuilds run on the writing thread.
+    BloomFilteredUrlRepository filtered = new BloomFilteredUrlRepository(
+        new UrlRepositoryFakeImpl(), 0.01, Runnable::run);
+
+    // WHEN
+    for (int i = 0; i < 5000; i++) {
+      filtered.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+      filtered.deleteUrlAlias("user@test.com", "alias" + (i / 2));
+      filtered.createUrlAlias(
+          new UrlAlias("alias" + (i / 2), "http://www.google.com", "user@test.com"));
+    }
+
+    // THEN
+    for (int i = 0; i < 5000; i++) {
+      assertThat(filtered.findUrlAlias("alias" + i)).isNotNull();
+    }
+    assertThat(filtered.stats().rejections()).isZero();
+  }
+
+  @Test
+  void rebuildsFilterInBackground_onceAtATime() {
+    // GIVEN
+    List<Runnable> rebuilds = new ArrayList<>();
+    BloomFilteredUrlRepository filtered = new BloomFilteredUrlRepository(
+        new UrlRepositoryFakeImpl(), 0.01, rebuilds::add);
+
+    // WHEN
+    for (int i = 0; i < 2000; i++) {
+      filtered.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+    }
+    int scheduled = rebuilds.size();
+    rebuilds.get(0).run();
+    filtered.createUrlAlias(new UrlAlias("after", "http://www.google.com", "user@test.com"));
+
+    // THEN
+    assertThat(scheduled).isEqualTo(1);
+    assertThat(rebuilds).hasSize(1);
+    for (int i = 0; i < 2000; i++) {
+      assertThat(filtered.findUrlAlias("alias" + i)).isNotNull();
+    }
+    assertThat(filtered.findUrlAlias("after")).isNotNull();
+  }
+}
@@ -0,0 +1,129 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import org.junit.jupiter.api.Test;
+
+class CachingUrlRepositoryTest {
+
+  @Test
+  void servesRepeatedLookupsFromCache() {
+    // GIVEN
+    UrlRepositoryFakeImpl urls = new UrlRepositoryFakeImpl();
+    CachingUrlRepository cache = new CachingUrlRepository(urls, 100, 1024 * 1024);
+    UrlAlias url = new UrlAlias("alias", "http://www.google.com", "user@test.com");
+    cache.createUrlAlias(url);
+
+    // WHEN
+    cache.findUrlAlias("alias");
+    cache.findUrlAlias("alias");
+    cache.findUrlAlias("alias");
+
+    // THEN
+    assertThat(cache.findUrlAlias("alias")).isEqualTo(url);
+    assertThat(cache.stats().hits()).isEqualTo(3);
+    assertThat(cache.stats().misses()).isEqualTo(1);
+  }
+
+  @Test
+  void doesNotReturnDeletedAlias() {
+    // GIVEN
+    CachingUrlRepository cache = new CachingUrlRepository(
+        new UrlRepositoryFakeImpl(), 100, 1024 * 1024);
+    cache.createUrlAlias(new UrlAlias("alias", "http://www.google.com", "user@test.com"));
+    cache.findUrlAlias("alias");
+
+    // WHEN
+    cache.deleteUrlAlias("user@test.com", "alias");
+
+    // THEN
+    assertThat(cache.findUrlAlias("alias")).isNull();
+    assertThat(cache.stats().entries()).isZero();
+  }
+
+  @Test
+  void doesNotReturnAlias_whenItsCreationFailed() {
+    // GIVEN
+    CachingUrlRepository[] cache = new CachingUrlRepository[1];
+    cache[0] = new CachingUrlRepository(new UrlRepositoryFakeImpl() {
+      @Override
+      public void createUrlAlias(UrlAlias urlAlias) {
+        super.createUrlAlias(urlAlias);
+        // A concurrent lookup sees the alias before the failed write is undone.
+        cache[0].findUrlAlias(urlAlias.alias());
+        deleteUrlAlias(urlAlias.email(), urlAlias.alias());
+        throw new IllegalStateException("Disk is full");
+      }
+    }, 100, 1024 * 1024);
+
+    // WHEN
+    assertThatThrownBy(() -> cache[0].createUrlAlias(
+        new UrlAlias("alias", "http://www.google.com", "user@test.com")))
+        .isInstanceOf(IllegalStateException.class);
+
+    // THEN
+    assertThat(cache[0].findUrlAlias("alias")).isNull();
+    assertThat(cache[0].stats().entries()).isZero();
+  }
+
+  @Test
+  void staysWithinBounds() {
+    // GIVEN
+    CachingUrlRepository cache = new CachingUrlRepository(
+        new UrlRepositoryFakeImpl(), 50, 1024 * 1024);
+
+    // WHEN
+    for (int i = 0; i < 1000; i++) {
+      cache.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+      cache.findUrlAlias("alias" + i);
+    }
+
+    // THEN
+    assertThat(cache.stats().entries()).isLessThanOrEqualTo(50);
+    assertThat(cache.stats().evictions()).isGreaterThanOrEqualTo(950);
+  }
+
+  @Test
+  void staysWithinSizeBound() {
+    // GIVEN
+    CachingUrlRepository cache = new CachingUrlRepository(new UrlRepositoryFakeImpl(), 1000, 2000);
+
+    // WHEN
+    for (int i = 0; i < 100; i++) {
+      cache.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+      cache.findUrlAlias("alias" + i);
+    }
+
+    // THEN
+    assertThat(cache.stats().bytes()).isLessThanOrEqualTo(2000);
+  }
+
+  @Test
+  void keepsHotAliases_whenColdOnesAreScanned() {
+    // GIVEN
+    CachingUrlRepository cache = new CachingUrlRepository(
+        new UrlRepositoryFakeImpl(), 100, 1024 * 1024);
+    for (int i = 0; i < 1100; i++) {
+      cache.createUrlAlias(new UrlAlias("alias" + i, "http://www.google.com", "user@test.com"));
+    }
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 50; i++) {
+        cache.findUrlAlias("alias" + i);
+      }
+    }
+
+    // WHEN
+    for (int i = 100; i < 1100; i++) {
+      cache.findUrlAlias("alias" + i);
+    }
+    long missesBefore = cache.stats().misses();
+    for (int i = 0; i < 50; i++) {
+      cache.findUrlAlias("alias" + i);
+    }
+
+    // THEN
+    assertThat(cache.stats().misses() - missesBefore).isLessThan(5);
+  }
+}
@@ -0,0 +1,73 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.storage.ChangeFeed.SequenceExpired;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedTest {
+
+  @Test
+  void numbersChangesInOrder() {
+    // GIVEN
+    ChangeFeed feed = new ChangeFeed(16);
+    UrlAlias first = new UrlAlias("first", "http://g.com/1", "aaa@bbb.com");
+    UrlAlias second = new UrlAlias("second", "http://g.com/2", "aaa@bbb.com");
+
+    // WHEN
+    feed.created(first);
+    feed.created(List.of(first, second), new boolean[] {false, true});
+    feed.deleted("first");
+
+    // THEN
+    assertThat(feed.changesAfter(feed.epoch(), 0, 10)).containsExactly(
+        new AliasChange(1, AliasChange.Type.CREATE, "first", first),
+        new AliasChange(2, AliasChange.Type.CREATE, "second", second),
+        new AliasChange(3, AliasChange.Type.DELETE, "first", null));
+    assertThat(feed.changesAfter(feed.epoch(), 1, 1)).extracting(AliasChange::sequence)
+      .containsExactly(2L);
+    assertThat(feed.changesAfter(feed.epoch(), 3, 10)).isEmpty();
+  }
+
+  @Test
+  void forgetsOldChanges() {
+    // GIVEN
+    ChangeFeed feed = new ChangeFeed(4);
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      feed.deleted("alias" + i);
+    }
+
+    // THEN
+    assertThat(feed.changesAfter(feed.epoch(), 6, 10)).extracting(AliasChange::alias)
+      .containsExactly("alias6", "alias7", "alias8", "alias9");
+    assertThatThrownBy(() -> feed.changesAfter(feed.epoch(), 5, 10))
+      .isInstanceOf(SequenceExpired.class);
+    assertThatThrownBy(() -> feed.changesAfter(feed.epoch() + 1, 9, 10))
+      .isInstanceOf(SequenceExpired.class);
+  }
+
+  @Test
+  void wakesUpWaiters() throws Exception {
+    // GIVEN
+    ChangeFeed feed = new ChangeFeed(16);
+    CompletableFuture<Void> waiting = feed.awaitChangeAfter(0);
+    CompletableFuture<Void> givenUp = feed.awaitChangeAfter(0);
+    givenUp.complete(null);
+
+    // WHEN
+    feed.deleted("alias");
+
+    // THEN
+    waiting.get(10, TimeUnit.SECONDS);
+    assertThat(feed.awaitChangeAfter(0)).isDone();
+    assertThat(feed.awaitChangeAfter(1)).isNotDone();
+  }
+}
@@ -0,0 +1,74 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.ClickStats;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickStatsRepositoryFileImplTest {
+  UrlShortenerConfig appConfig;
+  ClickStatsRepository repository;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    appConfig = UrlShortenerConfig.builder(Files.createTempDirectory("click-stats-file-test"))
+      .logCompactionThreshold(3)
+      .build();
+    repository = new ClickStatsRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(appConfig.storageRoot().resolve("click-stats.json"));
+    Files.deleteIfExists(appConfig.storageRoot().resolve("click-stats.log"));
+    Files.delete(appConfig.storageRoot());
+  }
+
+  @Test
+  void sumsUpClicks() {
+    // WHEN
+    repository.addClicks(List.of(new ClickStats("a", 2, 100), new ClickStats("a", 1, 50)));
+    repository.addClicks(List.of(new ClickStats("a", 3, 200)));
+
+    // THEN
+    assertThat(repository.findClickStats("a")).isEqualTo(new ClickStats("a", 6, 200));
+    assertThat(repository.findClickStats("b")).isNull();
+  }
+
+  @Test
+  void restoresClicksFromLogAndSnapshot() {
+    // GIVEN
+    for (int i = 0; i < 5; i++) {
+      repository.addClicks(List.of(new ClickStats("a", 1, i), new ClickStats("b" + i, 1, i)));
+    }
+
+    // WHEN
+    // The new repository instance must read the data in constructor.
+    repository = new ClickStatsRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    assertThat(repository.findClickStats("a")).isEqualTo(new ClickStats("a", 5, 4));
+    assertThat(repository.findClickStats("b4")).isEqualTo(new ClickStats("b4", 1, 4));
+  }
+
+  @Test
+  void forgetsResetClicksAfterRestart() {
+    // GIVEN
+    repository.addClicks(List.of(new ClickStats("a", 2, 100), new ClickStats("b", 1, 100)));
+
+    // WHEN
+    repository.resetClickStats(List.of("a", "c"));
+    repository = new ClickStatsRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    assertThat(repository.findClickStats("a")).isNull();
+    assertThat(repository.findClickStats("b")).isEqualTo(new ClickStats("b", 1, 100));
+  }
+}
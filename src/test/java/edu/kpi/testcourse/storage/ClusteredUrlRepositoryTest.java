@@ -0,0 +1,160 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class ClusteredUrlRepositoryTest {
+  private static final List<String> MEMBERS =
+      List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082");
+
+  // Every member sees the same stores, like members that forward to each other over HTTP.
+  Map<String, UrlRepository> stores;
+  List<UrlRepository> members;
+
+  @BeforeEach
+  void setUp() {
+    stores = new LinkedHashMap<>();
+    for (String member : MEMBERS) {
+      stores.put(member, new UrlRepositoryInMemoryImpl());
+    }
+    members = new ArrayList<>();
+    for (String member : MEMBERS) {
+      members.add(new ClusteredUrlRepository(member, stores));
+    }
+  }
+
+  @Test
+  void storesEveryAliasOnce_andFindsItFromEveryMember() {
+    // GIVEN
+    for (int i = 0; i < 60; i++) {
+      members.get(i % 3).createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, "a@b.com"));
+    }
+
+    // WHEN
+    long stored = stores.values().stream().mapToLong(UrlRepository::size).sum();
+
+    // THEN
+    assertThat(stored).isEqualTo(60);
+    for (UrlRepository store : stores.values()) {
+      assertThat(store.size()).isGreaterThan(0L);
+    }
+    for (UrlRepository member : members) {
+      assertThat(member.findUrlAlias("alias42").destinationUrl()).isEqualTo("http://g.com/42");
+    }
+  }
+
+  @Test
+  void rejectsAliasTakenThroughAnotherMember() {
+    // GIVEN
+    members.get(0).createUrlAlias(new UrlAlias("alias", "http://g.com/", "a@b.com"));
+
+    // WHEN
+    UrlAlias duplicate = new UrlAlias("alias", "http://h.com/", "c@d.com");
+
+    // THEN
+    assertThatThrownBy(() -> members.get(1).createUrlAlias(duplicate))
+      .isInstanceOf(UrlRepository.AliasAlreadyExist.class);
+  }
+
+  @Test
+  void createsBatchOnAllMembers() {
+    // GIVEN
+    List<UrlAlias> batch = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      batch.add(new UrlAlias("alias" + i, "http://g.com/" + i, "a@b.com"));
+    }
+    batch.add(new UrlAlias("alias7", "http://h.com/", "a@b.com"));
+    members.get(2).createUrlAlias(new UrlAlias("alias3", "http://h.com/", "c@d.com"));
+
+    // WHEN
+    boolean[] created = members.get(0).createUrlAliases(batch);
+
+    // THEN
+    for (int i = 0; i < 30; i++) {
+      assertThat(created[i]).isEqualTo(i != 3);
+    }
+    assertThat(created[30]).isFalse();
+    assertThat(members.get(1).findUrlAlias("alias29").destinationUrl())
+      .isEqualTo("http://g.com/29");
+  }
+
+  @Test
+  void mergesAliasesOfUserFromAllMembers() {
+    // GIVEN
+    for (int i = 0; i < 10; i++) {
+      members.get(0).createUrlAlias(new UrlAlias("alias" + i, "http://g.com/", "a@b.com"));
+    }
+
+    // WHEN
+    List<UrlAlias> page = members.get(1).getAliasesForUser("a@b.com", "alias2", 3);
+
+    // THEN
+    assertThat(members.get(2).getAllAliasesForUser("a@b.com").size()).isEqualTo(10);
+    assertThat(page.stream().map(UrlAlias::alias).collect(Collectors.toList()))
+      .isEqualTo(List.of("alias3", "alias4", "alias5"));
+  }
+
+  @Test
+  void deletesAliasOnItsOwner() {
+    // GIVEN
+    members.get(0).createUrlAlias(new UrlAlias("alias", "http://g.com/", "a@b.com"));
+
+    // WHEN
+    assertThatThrownBy(() -> members.get(1).deleteUrlAlias("c@d.com", "alias"))
+      .isInstanceOf(UrlRepository.PermissionDenied.class);
+    members.get(2).deleteUrlAlias("a@b.com", "alias");
+
+    // THEN
+    assertThat(members.get(0).findUrlAlias("alias")).isNull();
+  }
+
+  @Test
+  void listsAndDeletesAliasesAsynchronously() throws Exception {
+    // GIVEN
+    ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    for (int i = 0; i < 9; i++) {
+      members.get(0).createUrlAlias(new UrlAlias("alias" + i, "http://g.com/", "a@b.com"));
+    }
+
+    // WHEN
+    members.get(1).deleteUrlAliasAsync("a@b.com", "alias0", ioExecutor).get(10, TimeUnit.SECONDS);
+    List<UrlAlias> all =
+        members.get(1).getAllAliasesForUserAsync("a@b.com", ioExecutor).get(10, TimeUnit.SECONDS);
+    List<UrlAlias> page = members.get(2).getAliasesForUserAsync("a@b.com", "alias2", 3, ioExecutor)
+        .get(10, TimeUnit.SECONDS);
+
+    // THEN
+    assertThat(all.size()).isEqualTo(8);
+    assertThat(page.stream().map(UrlAlias::alias).collect(Collectors.toList()))
+      .isEqualTo(List.of("alias3", "alias4", "alias5"));
+    ioExecutor.shutdown();
+  }
+
+  @Test
+  void walksOnlyLocalAliases() {
+    // GIVEN
+    for (int i = 0; i < 30; i++) {
+      members.get(0).createUrlAlias(new UrlAlias("alias" + i, "http://g.com/", "a@b.com"));
+    }
+
+    // WHEN
+    List<String> walked = new ArrayList<>();
+    members.get(1).forEachUrlAlias(urlAlias -> walked.add(urlAlias.alias()));
+
+    // THEN
+    assertThat((long) walked.size()).isEqualTo(stores.get(MEMBERS.get(1)).size());
+    assertThat(members.get(1).size()).isEqualTo(stores.get(MEMBERS.get(1)).size());
+  }
+}
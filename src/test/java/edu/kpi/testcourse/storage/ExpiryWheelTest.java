@@ -0,0 +1,65 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiryWheelTest {
+  static final long START = 1_600_000_000_000L;
+  static final long DAY = 24 * 3600 * 1000L;
+
+  @Test
+  void returnsAliasAtItsTick() {
+    // GIVEN
+    ExpiryWheel wheel = new ExpiryWheel(1000, START);
+
+    // WHEN
+    wheel.schedule("alias", START + 2500);
+
+    // THEN
+    assertThat(wheel.advance(START + 2999)).isEmpty();
+    assertThat(wheel.advance(START + 3000)).containsExactly("alias");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void returnsOverdueAliasRightAway() {
+    // GIVEN
+    ExpiryWheel wheel = new ExpiryWheel(1000, START);
+
+    // WHEN
+    wheel.schedule("alias", START - DAY);
+
+    // THEN
+    assertThat(wheel.advance(START)).containsExactly("alias");
+  }
+
+  @Test
+  void cascadesDistantExpirations() {
+    // GIVEN
+    ExpiryWheel wheel = new ExpiryWheel(1000, START);
+    // From minutes to a year, beyond the reach of the highest wheel.
+    long[] expirations = {START + 90_000, START + 3 * DAY, START + 60 * DAY, START + 365 * DAY};
+    for (int i = 0; i < expirations.length; i++) {
+      wheel.schedule("alias" + i, expirations[i]);
+    }
+
+    // WHEN
+    List<String> expired = new ArrayList<>();
+    List<Long> expiredAt = new ArrayList<>();
+    for (long now = START; now <= START + 366 * DAY; now += 60_000) {
+      for (String alias : wheel.advance(now)) {
+        expired.add(alias);
+        expiredAt.add(now);
+      }
+    }
+
+    // THEN
+    assertThat(expired).containsExactly("alias0", "alias1", "alias2", "alias3");
+    for (int i = 0; i < expirations.length; i++) {
+      assertThat(expiredAt.get(i)).isBetween(expirations[i], expirations[i] + 61_000);
+    }
+  }
+}
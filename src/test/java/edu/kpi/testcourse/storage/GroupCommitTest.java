@@ -0,0 +1,82 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class GroupCommitTest {
+
+  @Test
+  void flushesEveryRecordInOrder() {
+    // GIVEN
+    List<Integer> flushed = new ArrayList<>();
+    GroupCommit<Integer> commit = new GroupCommit<>(flushed::addAll);
+
+    // WHEN
+    commit.commit(1);
+    commit.commit(2);
+    commit.commit(3);
+
+    // THEN
+    assertThat(flushed).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void batchesConcurrentRecords() throws Exception {
+    // GIVEN
+    List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch firstFlushStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+    GroupCommit<Integer> commit = new GroupCommit<>(records -> {
+      batches.add(List.copyOf(records));
+      firstFlushStarted.countDown();
+      try {
+        releaseFirstFlush.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    // WHEN
+    Future<?> first = executor.submit(() -> commit.commit(0));
+    firstFlushStarted.await();
+    List<GroupCommit.Batch<Integer>> pending = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      pending.add(commit.enqueue(i));
+    }
+    List<Future<?>> waiters = new ArrayList<>();
+    for (GroupCommit.Batch<Integer> batch : pending) {
+      waiters.add(executor.submit(() -> commit.await(batch)));
+    }
+    releaseFirstFlush.countDown();
+    first.get();
+    for (Future<?> waiter : waiters) {
+      waiter.get();
+    }
+    executor.shutdown();
+
+    // THEN
+    assertThat(batches).containsExactly(List.of(0), List.of(1, 2, 3));
+  }
+
+  @Test
+  void reportsFlushErrorToWriter() {
+    // GIVEN
+    GroupCommit<Integer> commit = new GroupCommit<>(records -> {
+      throw new IOException("Disk is full");
+    });
+
+    // WHEN + THEN
+    assertThrows(RuntimeException.class, () -> commit.commit(1));
+  }
+}
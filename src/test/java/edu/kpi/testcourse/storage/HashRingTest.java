@@ -0,0 +1,66 @@
+package edu.kpi.testcourse.storage;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class HashRingTest {
+  private static final List<String> MEMBERS =
+      List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082");
+
+  @Test
+  void splitsKeysEvenly() {
+    // GIVEN
+    HashRing ring = new HashRing(MEMBERS, 128);
+
+    // WHEN
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 30_000; i++) {
+      counts.merge(ring.ownerOf("alias" + i), 1, Integer::sum);
+    }
+
+    // THEN
+    for (String member : MEMBERS) {
+      assertThat(counts.get(member)).isBetween(8_000, 12_000);
+    }
+  }
+
+  @Test
+  void isTheSameOnEveryMember_whateverTheOrderOfMembers() {
+    // GIVEN
+    HashRing ring = new HashRing(MEMBERS, 128);
+
+    // WHEN
+    HashRing other = new HashRing(List.of(MEMBERS.get(2), MEMBERS.get(0), MEMBERS.get(1)), 128);
+
+    // THEN
+    for (int i = 0; i < 1000; i++) {
+      assertThat(other.ownerOf("alias" + i)).isEqualTo(ring.ownerOf("alias" + i));
+    }
+  }
+
+  @Test
+  void movesOnlyKeysOfNewMember_whenMemberIsAdded() {
+    // GIVEN
+    HashRing ring = new HashRing(MEMBERS, 128);
+    String added = "http://localhost:8083";
+
+    // WHEN
+    HashRing grown = new HashRing(List.of(MEMBERS.get(0), MEMBERS.get(1), MEMBERS.get(2), added),
+        128);
+
+    // THEN
+    int moved = 0;
+    for (int i = 0; i < 10_000; i++) {
+      String owner = grown.ownerOf("alias" + i);
+      if (!owner.equals(ring.ownerOf("alias" + i))) {
+        assertThat(owner).isEqualTo(added);
+        moved++;
+      }
+    }
+    assertThat(moved).isBetween(1_500, 3_500);
+  }
+}
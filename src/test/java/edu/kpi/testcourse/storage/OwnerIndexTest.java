@@ -0,0 +1,66 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import org.junit.jupiter.api.Test;
+
+class OwnerIndexTest {
+
+  @Test
+  void listsAliasesOfOwnerSortedByAlias() {
+    // GIVEN
+    OwnerIndex index = new OwnerIndex();
+    UrlAlias b = new UrlAlias("b", "http://www.test.com", "user@test.com");
+    UrlAlias a = new UrlAlias("a", "http://www.test.com", "user@test.com");
+    UrlAlias c = new UrlAlias("c", "http://www.test.com", "another@test.com");
+
+    // WHEN
+    index.add(b);
+    index.add(a);
+    index.add(c);
+
+    // THEN
+    assertThat(index.aliasesOf("user@test.com")).containsExactly(a, b);
+    assertThat(index.aliasesOf("another@test.com")).containsExactly(c);
+    assertThat(index.aliasesOf("nobody@test.com")).isEmpty();
+  }
+
+  @Test
+  void removesAliases() {
+    // GIVEN
+    OwnerIndex index = new OwnerIndex();
+    UrlAlias a = new UrlAlias("a", "http://www.test.com", "user@test.com");
+    UrlAlias b = new UrlAlias("b", "http://www.test.com", "user@test.com");
+    index.add(a);
+    index.add(b);
+
+    // WHEN
+    index.remove(a);
+    index.remove(b);
+    index.remove(b);
+
+    // THEN
+    assertThat(index.aliasesOf("user@test.com")).isEmpty();
+  }
+
+  @Test
+  void listsAliasesOfOwnerByPages() {
+    // GIVEN
+    OwnerIndex index = new OwnerIndex();
+    UrlAlias a = new UrlAlias("a", "http://www.test.com", "user@test.com");
+    UrlAlias b = new UrlAlias("b", "http://www.test.com", "user@test.com");
+    UrlAlias c = new UrlAlias("c", "http://www.test.com", "user@test.com");
+    index.add(c);
+    index.add(a);
+    index.add(b);
+
+    // WHEN
+    var firstPage = index.aliasesOf("user@test.com", null, 2);
+    var secondPage = index.aliasesOf("user@test.com", "b", 2);
+
+    // THEN
+    assertThat(firstPage).containsExactly(a, b);
+    assertThat(secondPage).containsExactly(c);
+  }
+}
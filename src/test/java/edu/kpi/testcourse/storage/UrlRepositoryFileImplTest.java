@@ -2,13 +2,20 @@ package edu.kpi.testcourse.storage;
 
 import edu.kpi.testcourse.entities.UrlAlias;
 import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.logic.UrlShortenerConfig.SnapshotFormat;
 import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
 import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
 import edu.kpi.testcourse.storage.UrlRepository.PermissionDenied;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -35,7 +42,9 @@ public class UrlRepositoryFileImplTest {
   @AfterEach
   void tearDown() {
     try {
-      Files.delete(appConfig.storageRoot().resolve("url-repository.json"));
+      Files.deleteIfExists(appConfig.storageRoot().resolve("url-repository.json"));
+      Files.deleteIfExists(appConfig.storageRoot().resolve("url-repository.bin"));
+      Files.deleteIfExists(appConfig.storageRoot().resolve("url-repository.log"));
       Files.delete(appConfig.storageRoot());
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -68,10 +77,31 @@ public class UrlRepositoryFileImplTest {
     // THEN
     Assertions.assertThat(
       Files.readString(appConfig.storageRoot()
-        .resolve("url-repository.json"), StandardCharsets.UTF_8)
+        .resolve("url-repository.log"), StandardCharsets.UTF_8)
     ).contains(alias, email, destinationUrl);
   }
 
+  @Test
+  void compactsLogIntoSnapshot() throws IOException {
+    // GIVEN
+    appConfig = appConfig.toBuilder().logCompactionThreshold(2).build();
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+    UrlAlias url = new UrlAlias("alias", "http://www.youtube.com", "user@example.org");
+
+    // WHEN
+    urlRepository.createUrlAlias(url);
+    urlRepository.createUrlAlias(new UrlAlias("other", "http://www.google.com", "a@b.com"));
+
+    // THEN
+    Assertions.assertThat(
+      Files.readString(appConfig.storageRoot()
+        .resolve("url-repository.json"), StandardCharsets.UTF_8)
+    ).contains("alias", "other");
+    Assertions.assertThat(
+      Files.size(appConfig.storageRoot().resolve("url-repository.log"))
+    ).isZero();
+  }
+
   @Test
   void deserializesOneUrl() {
     // GIVEN
@@ -86,6 +116,208 @@ public class UrlRepositoryFileImplTest {
     Assertions.assertThat(urlRepository.findUrlAlias("test")).isEqualTo(url);
   }
 
+  @Test
+  void keepsChanges_whenOnlyCompactionFails() {
+    // GIVEN
+    UrlShortenerConfig compactingConfig =
+        appConfig.toBuilder().logCompactionThreshold(2).build();
+    boolean[] failSnapshots = {true};
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl() {
+      @Override
+      public String toJson(Object obj) {
+        // Snapshots are written as maps, log records are not.
+        if (failSnapshots[0] && obj instanceof Map) {
+          throw new IllegalStateException("Disk is full");
+        }
+        return super.toJson(obj);
+      }
+    }, compactingConfig);
+    UrlAlias first = new UrlAlias("first", "http://g.com/1", "user@test.com");
+    UrlAlias second = new UrlAlias("second", "http://g.com/2", "user@test.com");
+    UrlAlias third = new UrlAlias("third", "http://g.com/3", "user@test.com");
+
+    // WHEN
+    urlRepository.createUrlAlias(first);
+    urlRepository.createUrlAlias(second);
+    urlRepository.deleteUrlAlias("user@test.com", "first");
+    failSnapshots[0] = false;
+    urlRepository.createUrlAlias(third);
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("first")).isNull();
+    assertThat(urlRepository.findUrlAlias("second")).isEqualTo(second);
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), compactingConfig);
+    assertThat(urlRepository.findUrlAlias("first")).isNull();
+    assertThat(urlRepository.findUrlAlias("second")).isEqualTo(second);
+    assertThat(urlRepository.findUrlAlias("third")).isEqualTo(third);
+  }
+
+  @Test
+  void refusesSnapshotWithNullAlias() throws IOException {
+    // GIVEN
+    Files.write(appConfig.storageRoot().resolve("url-repository.json"),
+        "{\"test\": null}".getBytes(StandardCharsets.UTF_8));
+
+    // WHEN
+    IllegalStateException error = assertThrows(IllegalStateException.class,
+        () -> new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig));
+
+    // THEN
+    Assertions.assertThat(error.getMessage()).contains("url-repository.json", "test");
+  }
+
+  @Test
+  void loadsSnapshotSplitIntoShards() throws IOException {
+    // GIVEN
+    UrlShortenerConfig shardedConfig =
+        appConfig.toBuilder().snapshotShards(3).logCompactionThreshold(5).build();
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), shardedConfig);
+    for (int i = 0; i < 20; i++) {
+      urlRepository.createUrlAlias(
+          new UrlAlias("alias" + i, "http://www.test.com", "user@test.com"));
+    }
+
+    // WHEN
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), shardedConfig);
+
+    // THEN
+    assertThat(urlRepository.getAllAliasesForUser("user@test.com").size()).isEqualTo(20);
+    assertThat(Files.exists(appConfig.storageRoot().resolve("url-repository.2.json"))).isTrue();
+    Files.delete(appConfig.storageRoot().resolve("url-repository.1.json"));
+    Files.delete(appConfig.storageRoot().resolve("url-repository.2.json"));
+  }
+
+  @Test
+  void switchesSnapshotToBinaryFormat() {
+    // GIVEN
+    UrlShortenerConfig binaryConfig = appConfig.toBuilder()
+        .snapshotFormat(SnapshotFormat.BINARY)
+        .logCompactionThreshold(1)
+        .build();
+    UrlAlias url = new UrlAlias("test", "http://www.facebook.com", "user@example.org");
+    urlRepository.createUrlAlias(url);
+
+    // WHEN
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), binaryConfig);
+    urlRepository.createUrlAlias(
+        new UrlAlias("other", "http://www.google.com", "user@example.org"));
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), binaryConfig);
+
+    // THEN
+    Assertions.assertThat(urlRepository.findUrlAlias("test")).isEqualTo(url);
+    assertThat(urlRepository.getAllAliasesForUser("user@example.org").size()).isEqualTo(2);
+    assertThat(Files.exists(appConfig.storageRoot().resolve("url-repository.bin"))).isTrue();
+    assertThat(Files.exists(appConfig.storageRoot().resolve("url-repository.json"))).isFalse();
+  }
+
+  @Test
+  void replaysDeletionFromLog() {
+    // GIVEN
+    UrlAlias url = new UrlAlias("test", "http://www.facebook.com", "user@example.org");
+    urlRepository.createUrlAlias(url);
+    urlRepository.deleteUrlAlias("user@example.org", "test");
+
+    // WHEN
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    Assertions.assertThat(urlRepository.findUrlAlias("test")).isNull();
+    Assertions.assertThat(urlRepository.getAllAliasesForUser("user@example.org")).isEmpty();
+  }
+
+  @Test
+  void hidesExpiredAlias_andLetsNewAliasTakeItsName() {
+    // GIVEN
+    long now = System.currentTimeMillis();
+    urlRepository.createUrlAlias(
+      new UrlAlias("test", "http://www.facebook.com", "user@example.org", now - 1000));
+
+    // WHEN
+    UrlAlias found = urlRepository.findUrlAlias("test");
+    UrlAlias newUrl = new UrlAlias("test", "http://www.google.com", "user2@example.org");
+    urlRepository.createUrlAlias(newUrl);
+
+    // THEN
+    Assertions.assertThat(found).isNull();
+    Assertions.assertThat(urlRepository.findUrlAlias("test")).isEqualTo(newUrl);
+    Assertions.assertThat(urlRepository.getAllAliasesForUser("user@example.org")).isEmpty();
+  }
+
+  @Test
+  void removesExpiredAliases() {
+    // GIVEN
+    long now = System.currentTimeMillis();
+    UrlAlias expiring = new UrlAlias("later", "http://www.google.com", "user@example.org",
+        now + 3_600_000);
+    urlRepository.createUrlAlias(
+      new UrlAlias("test", "http://www.facebook.com", "user@example.org", now - 1000));
+    urlRepository.createUrlAlias(expiring);
+
+    // WHEN
+    ((UrlRepositoryFileImpl) urlRepository).removeExpiredAliases();
+
+    // THEN
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+    Assertions.assertThat(urlRepository.getAllAliasesForUser("user@example.org"))
+      .containsExactly(expiring);
+  }
+
+  @Test
+  void ignoresIncompleteLastLogRecord() throws IOException {
+    // GIVEN
+    UrlAlias url = new UrlAlias("test", "http://www.facebook.com", "user@example.org");
+    urlRepository.createUrlAlias(url);
+    Files.writeString(appConfig.storageRoot().resolve("url-repository.log"),
+        "{\"op\":\"create\",\"ali", StandardOpenOption.APPEND);
+
+    // WHEN
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    Assertions.assertThat(urlRepository.findUrlAlias("test")).isEqualTo(url);
+  }
+
+  @Test
+  void findsAlias_whileWriterHoldsRepositoryLock() throws Exception {
+    // GIVEN
+    UrlAlias url = new UrlAlias("test", "http://www.facebook.com", "user@example.org");
+    urlRepository.createUrlAlias(url);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // WHEN
+    Future<UrlAlias> found;
+    synchronized (urlRepository) {
+      found = executor.submit(() -> urlRepository.findUrlAlias("test"));
+
+      // THEN
+      assertThat(found.get(5, TimeUnit.SECONDS)).isEqualTo(url);
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  void createsBatchOfAliases() {
+    // GIVEN
+    UrlAlias existing = new UrlAlias("alias1", "http://www.test1.com", "user@test.com");
+    UrlAlias url2 = new UrlAlias("alias2", "http://www.test2.com", "user@test.com");
+    UrlAlias url3 = new UrlAlias("alias3", "http://www.test3.com", "user@test.com");
+    urlRepository.createUrlAlias(existing);
+
+    // WHEN
+    boolean[] created = urlRepository.createUrlAliases(List.of(
+        new UrlAlias("alias1", "http://www.another.com", "user@test.com"),
+        url2,
+        url3,
+        new UrlAlias("alias3", "http://www.another.com", "user@test.com")));
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    assertThat(created).containsExactly(false, true, true, false);
+    assertThat(urlRepository.findUrlAlias("alias1")).isEqualTo(existing);
+    assertThat(urlRepository.findUrlAlias("alias2")).isEqualTo(url2);
+    assertThat(urlRepository.findUrlAlias("alias3")).isEqualTo(url3);
+  }
+
   @Test
   void shouldThrowError_whenAliasAlreadyExists() {
     // GIVEN
@@ -154,6 +386,25 @@ public class UrlRepositoryFileImplTest {
                             .doesNotContain(url);
   }
 
+  @Test
+  void returnsSnapshotOfAliasesForUser() {
+    // GIVEN
+    UrlAlias url1 = new UrlAlias("alias1", "http://www.test1.com", "user@test.com");
+    UrlAlias url2 = new UrlAlias("alias2", "http://www.test2.com", "user@test.com");
+    urlRepository.createUrlAlias(url1);
+    List<UrlAlias> urls = urlRepository.getAllAliasesForUser("user@test.com");
+
+    // WHEN
+    urlRepository.createUrlAlias(url2);
+    urlRepository.deleteUrlAlias("user@test.com", "alias1");
+
+    // THEN
+    Assertions.assertThat(urls).containsExactly(url1);
+    Assertions.assertThat(urlRepository.getAllAliasesForUser("user@test.com"))
+      .containsExactly(url2);
+    assertThrows(UnsupportedOperationException.class, () -> urls.add(url2));
+  }
+
   @Test
   void shouldThrowRuntimeError_whenNoAliasForDeletion() {
     // GIVEN
@@ -175,4 +426,37 @@ public class UrlRepositoryFileImplTest {
     assertThrows(PermissionDenied.class,
       () -> urlRepository.deleteUrlAlias("test@user.com", "alias"));
   }
+
+  @Test
+  void undoesChanges_whenLogWriteFails() {
+    // GIVEN
+    boolean[] failWrites = {false};
+    urlRepository = new UrlRepositoryFileImpl(new JsonToolJacksonImpl() {
+      @Override
+      public String toJson(Object obj) {
+        if (failWrites[0]) {
+          throw new IllegalStateException("Disk is full");
+        }
+        return super.toJson(obj);
+      }
+    }, appConfig);
+    UrlAlias kept = new UrlAlias("kept", "http://g.com/1", "user@test.com");
+    urlRepository.createUrlAlias(kept);
+    failWrites[0] = true;
+
+    // WHEN
+    assertThrows(RuntimeException.class, () -> urlRepository.createUrlAlias(
+        new UrlAlias("alias", "http://g.com/2", "user@test.com")));
+    assertThrows(RuntimeException.class, () -> urlRepository.createUrlAliases(List.of(
+        new UrlAlias("batch", "http://g.com/3", "user@test.com"))));
+    assertThrows(RuntimeException.class,
+        () -> urlRepository.deleteUrlAlias("user@test.com", "kept"));
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("alias")).isNull();
+    assertThat(urlRepository.findUrlAlias("batch")).isNull();
+    assertThat(urlRepository.findUrlAlias("kept")).isEqualTo(kept);
+    Assertions.assertThat(urlRepository.getAllAliasesForUser("user@test.com"))
+        .containsExactly(kept);
+  }
 }
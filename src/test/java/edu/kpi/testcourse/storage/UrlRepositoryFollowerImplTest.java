@@ -0,0 +1,137 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import edu.kpi.testcourse.entities.AliasChange;
+import edu.kpi.testcourse.entities.AliasSnapshot;
+import edu.kpi.testcourse.entities.UrlAlias;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UrlRepositoryFollowerImplTest {
+  ChangeFeed feed;
+  UrlRepository leader;
+  UrlRepositoryFollowerImpl follower;
+
+  @BeforeEach
+  void setUp() {
+    feed = new ChangeFeed(4);
+    leader = new ChangeCapturingUrlRepository(new UrlRepositoryInMemoryImpl(), feed);
+  }
+
+  @AfterEach
+  void tearDown() {
+    follower.close();
+  }
+
+  @Test
+  void bootstrapsFromSnapshot_andFollowsChanges() throws Exception {
+    // GIVEN
+    UrlAlias existing = new UrlAlias("existing", "http://g.com/1", "aaa@bbb.com");
+    UrlAlias created = new UrlAlias("created", "http://g.com/2", "aaa@bbb.com");
+    leader.createUrlAlias(existing);
+    follower = new UrlRepositoryFollowerImpl(new LocalChangeSource());
+    awaitSequence(1);
+
+    // WHEN
+    leader.createUrlAlias(created);
+    leader.deleteUrlAlias("aaa@bbb.com", "existing");
+    awaitSequence(3);
+
+    // THEN
+    assertThat(follower.findUrlAlias("created")).isEqualTo(created);
+    assertThat(follower.findUrlAlias("existing")).isNull();
+    assertThat(follower.getAllAliasesForUser("aaa@bbb.com")).containsExactly(created);
+    assertThatThrownBy(() -> follower.createUrlAlias(existing))
+      .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void bootstrapsAgain_whenChangesAreNoLongerAvailable() throws Exception {
+    // GIVEN
+    leader.createUrlAlias(new UrlAlias("alias0", "http://g.com/0", "aaa@bbb.com"));
+    follower = new UrlRepositoryFollowerImpl(new LocalChangeSource());
+    awaitSequence(1);
+    follower.close();
+
+    // WHEN
+    for (int i = 1; i < 10; i++) {
+      leader.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, "aaa@bbb.com"));
+    }
+    follower = new UrlRepositoryFollowerImpl(new LocalChangeSource(1));
+    awaitSequence(10);
+
+    // THEN
+    assertThat(follower.size()).isEqualTo(10);
+  }
+
+  @Test
+  void removesExpiredAliases() throws Exception {
+    // GIVEN
+    UrlAlias permanent = new UrlAlias("permanent", "http://g.com/1", "aaa@bbb.com");
+    leader.createUrlAlias(permanent);
+    leader.createUrlAlias(new UrlAlias("expiring", "http://g.com/2", "aaa@bbb.com",
+        System.currentTimeMillis() + 500));
+
+    // WHEN
+    follower = new UrlRepositoryFollowerImpl(new LocalChangeSource());
+    awaitSequence(2);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (follower.size() > 1 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    // THEN
+    assertThat(follower.size()).isEqualTo(1);
+    assertThat(follower.getAllAliasesForUser("aaa@bbb.com")).containsExactly(permanent);
+  }
+
+  private void awaitSequence(long sequence) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (follower.sequence() < sequence && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(follower.sequence()).isEqualTo(sequence);
+  }
+
+  /**
+   * Reads the feed of the leader in the same process.
+   */
+  private class LocalChangeSource implements ChangeSource {
+    // A stale position the first snapshot claims, to make the follower fall behind.
+    private long staleSequence;
+
+    LocalChangeSource() {
+      this(-1);
+    }
+
+    LocalChangeSource(long staleSequence) {
+      this.staleSequence = staleSequence;
+    }
+
+    @Override
+    public AliasSnapshot snapshot() {
+      long sequence = staleSequence >= 0 ? staleSequence : feed.lastSequence();
+      staleSequence = -1;
+      List<UrlAlias> aliases = new ArrayList<>();
+      leader.forEachUrlAlias(aliases::add);
+      return new AliasSnapshot(feed.epoch(), sequence, aliases);
+    }
+
+    @Override
+    public List<AliasChange> changesAfter(long epoch, long sequence, int limit, Duration wait) {
+      List<AliasChange> changes = feed.changesAfter(epoch, sequence, limit);
+      if (!changes.isEmpty()) {
+        return changes;
+      }
+      feed.awaitChangeAfter(sequence).completeOnTimeout(null, 100, TimeUnit.MILLISECONDS).join();
+      return feed.changesAfter(epoch, sequence, limit);
+    }
+  }
+}
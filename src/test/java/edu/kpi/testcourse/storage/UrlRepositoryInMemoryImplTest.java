@@ -0,0 +1,109 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
+import edu.kpi.testcourse.storage.UrlRepository.PermissionDenied;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class UrlRepositoryInMemoryImplTest {
+
+  @Test
+  void shouldCreateAlias() {
+    // GIVEN
+    UrlRepository repo = new UrlRepositoryInMemoryImpl();
+    UrlAlias alias = new UrlAlias("short", "http://g.com/long", "aaa@bbb.com");
+
+    // WHEN
+    repo.createUrlAlias(alias);
+
+    // THEN
+    assertThat(repo.findUrlAlias("short")).isEqualTo(alias);
+    assertThat(repo.getAllAliasesForUser("aaa@bbb.com")).containsExactly(alias);
+    assertThatThrownBy(() -> repo.createUrlAlias(alias)).isInstanceOf(AliasAlreadyExist.class);
+  }
+
+  @Test
+  void shouldDeleteOnlyOwnAlias() {
+    // GIVEN
+    UrlRepository repo = new UrlRepositoryInMemoryImpl();
+    repo.createUrlAlias(new UrlAlias("short", "http://g.com/long", "aaa@bbb.com"));
+
+    // WHEN
+    assertThatThrownBy(() -> repo.deleteUrlAlias("ccc@bbb.com", "short"))
+      .isInstanceOf(PermissionDenied.class);
+    repo.deleteUrlAlias("aaa@bbb.com", "short");
+
+    // THEN
+    assertThat(repo.findUrlAlias("short")).isNull();
+    assertThat(repo.getAllAliasesForUser("aaa@bbb.com")).isEmpty();
+    assertThat(repo.size()).isZero();
+  }
+
+  @Test
+  void shouldReplaceExpiredAlias() {
+    // GIVEN
+    UrlRepository repo = new UrlRepositoryInMemoryImpl();
+    repo.createUrlAlias(new UrlAlias("short", "http://g.com/old", "aaa@bbb.com",
+        System.currentTimeMillis() - 1000));
+    UrlAlias alias = new UrlAlias("short", "http://g.com/new", "ccc@bbb.com");
+
+    // WHEN
+    boolean[] created = repo.createUrlAliases(List.of(alias));
+
+    // THEN
+    assertThat(created).containsExactly(true);
+    assertThat(repo.findUrlAlias("short")).isEqualTo(alias);
+    assertThat(repo.getAllAliasesForUser("aaa@bbb.com")).isEmpty();
+  }
+
+  @Test
+  void shouldCreateEveryAliasOnce_whenCreatedConcurrently() throws Exception {
+    // GIVEN
+    UrlRepository repo = new UrlRepositoryInMemoryImpl();
+    int threads = 8;
+    int aliases = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    // WHEN
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      String email = "user" + t + "@example.org";
+      results.add(executor.submit(() -> {
+        int created = 0;
+        for (int i = 0; i < aliases; i++) {
+          try {
+            repo.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, email));
+            created++;
+          } catch (AliasAlreadyExist e) {
+            // Another thread was first.
+          }
+        }
+        return created;
+      }));
+    }
+    int created = 0;
+    for (Future<Integer> result : results) {
+      created += result.get();
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+
+    // THEN
+    assertThat(created).isEqualTo(aliases);
+    assertThat(repo.size()).isEqualTo(aliases);
+    int indexed = 0;
+    for (int t = 0; t < threads; t++) {
+      indexed += repo.getAllAliasesForUser("user" + t + "@example.org").size();
+    }
+    assertThat(indexed).isEqualTo(aliases);
+  }
+}
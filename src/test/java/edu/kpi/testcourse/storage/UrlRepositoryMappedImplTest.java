@@ -0,0 +1,210 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.storage.UrlRepository.AliasAlreadyExist;
+import edu.kpi.testcourse.storage.UrlRepository.PermissionDenied;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UrlRepositoryMappedImplTest {
+  // Small segments make records cross segment boundaries in tests.
+  private static final int SEGMENT_BITS = 12;
+
+  UrlShortenerConfig appConfig;
+  UrlRepositoryMappedImpl urlRepository;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    appConfig = new UrlShortenerConfig(Files.createTempDirectory("url-repository-mapped-test"));
+    urlRepository = new UrlRepositoryMappedImpl(appConfig, SEGMENT_BITS);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    urlRepository.close();
+    Files.delete(appConfig.storageRoot().resolve("url-repository.data"));
+    Files.delete(appConfig.storageRoot().resolve("url-repository.index"));
+    Files.delete(appConfig.storageRoot());
+  }
+
+  @Test
+  void shouldCreateAlias() {
+    // GIVEN
+    UrlAlias url = new UrlAlias("alias", "http://www.google.com", "user@test.com");
+
+    // WHEN
+    urlRepository.createUrlAlias(url);
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("alias")).isEqualTo(url);
+  }
+
+  @Test
+  void shouldThrowError_whenAliasAlreadyExists() {
+    // GIVEN
+    UrlAlias urlAlias = new UrlAlias("alias", "http://twitter.com", "test@gmail.com");
+    urlRepository.createUrlAlias(urlAlias);
+
+    // WHEN + THEN
+    assertThrows(AliasAlreadyExist.class, () -> urlRepository.createUrlAlias(urlAlias));
+  }
+
+  @Test
+  void shouldFindNull_whenRepositoryIsEmpty() {
+    assertThat(urlRepository.findUrlAlias("alias")).isNull();
+  }
+
+  @Test
+  void readsAliasesAfterReopening() {
+    // GIVEN
+    UrlAlias url = new UrlAlias("тест", "http://www.facebook.com/сторінка", "user@example.org");
+    urlRepository.createUrlAlias(url);
+    urlRepository.close();
+
+    // WHEN
+    urlRepository = new UrlRepositoryMappedImpl(appConfig, SEGMENT_BITS);
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("тест")).isEqualTo(url);
+  }
+
+  @Test
+  void hidesExpiredAlias_andLetsNewAliasTakeItsName() {
+    // GIVEN
+    long now = System.currentTimeMillis();
+    UrlAlias expiring = new UrlAlias("later", "http://www.google.com", "user@example.org",
+        now + 3_600_000);
+    urlRepository.createUrlAlias(expiring);
+    urlRepository.createUrlAlias(
+      new UrlAlias("test", "http://www.facebook.com", "user@example.org", now - 1000));
+
+    // WHEN
+    UrlAlias found = urlRepository.findUrlAlias("test");
+    UrlAlias newUrl = new UrlAlias("test", "http://www.google.com", "user2@example.org");
+    urlRepository.createUrlAlias(newUrl);
+
+    // THEN
+    assertThat(found).isNull();
+    assertThat(urlRepository.findUrlAlias("test")).isEqualTo(newUrl);
+    assertThat(urlRepository.findUrlAlias("later")).isEqualTo(expiring);
+  }
+
+  @Test
+  void keepsAllAliases_whenIndexAndDataGrow() {
+    // GIVEN
+    int count = 5000;
+
+    // WHEN
+    for (int i = 0; i < count; i++) {
+      urlRepository.createUrlAlias(
+          new UrlAlias("alias" + i, "http://www.test.com/" + i, "user" + i % 3 + "@test.com"));
+    }
+    urlRepository.close();
+    urlRepository = new UrlRepositoryMappedImpl(appConfig, SEGMENT_BITS);
+
+    // THEN
+    for (int i = 0; i < count; i++) {
+      assertThat(urlRepository.findUrlAlias("alias" + i).destinationUrl())
+          .isEqualTo("http://www.test.com/" + i);
+    }
+    assertThat(urlRepository.getAllAliasesForUser("user1@test.com")).hasSize(count / 3);
+  }
+
+  @Test
+  void shouldGetAllAliasesForUser() {
+    // GIVEN
+    UrlAlias url1 = new UrlAlias("alias1", "http://www.test1.com", "user@test.com");
+    UrlAlias url2 = new UrlAlias("alias2", "http://www.test2.com", "user@test.com");
+    UrlAlias url3 = new UrlAlias("alias3", "http://www.test3.com", "notTargetUser@test.com");
+    urlRepository.createUrlAlias(url1);
+    urlRepository.createUrlAlias(url2);
+    urlRepository.createUrlAlias(url3);
+
+    // WHEN
+    List<UrlAlias> urls = urlRepository.getAllAliasesForUser("user@test.com");
+
+    // THEN
+    assertThat(urls).containsExactlyInAnyOrder(url1, url2);
+  }
+
+  @Test
+  void getsPagesOfAliasesForUser_sortedByAlias() {
+    // GIVEN
+    for (int i = 9; i >= 0; i--) {
+      urlRepository.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, "user@test.com"));
+      urlRepository.createUrlAlias(new UrlAlias("other" + i, "http://g.com/" + i, "user@test.co"));
+    }
+
+    // WHEN
+    List<UrlAlias> first = urlRepository.getAliasesForUser("user@test.com", null, 4);
+    List<UrlAlias> last = urlRepository.getAliasesForUser("user@test.com", "alias7", 4);
+
+    // THEN
+    assertThat(first).extracting(UrlAlias::alias)
+      .containsExactly("alias0", "alias1", "alias2", "alias3");
+    assertThat(last).extracting(UrlAlias::alias).containsExactly("alias8", "alias9");
+  }
+
+  @Test
+  void iteratesOverAliasesOfUser_sortedByAlias_skippingDeletedOnes() {
+    // GIVEN
+    for (int i = 9; i >= 0; i--) {
+      urlRepository.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, "user@test.com"));
+      urlRepository.createUrlAlias(new UrlAlias("other" + i, "http://g.com/" + i, "user@test.co"));
+    }
+
+    // WHEN
+    Iterator<UrlAlias> iterator = urlRepository.iterateAliasesForUser("user@test.com");
+    urlRepository.deleteUrlAlias("user@test.com", "alias5");
+    List<String> aliases = new ArrayList<>();
+    iterator.forEachRemaining(urlAlias -> aliases.add(urlAlias.alias()));
+
+    // THEN
+    assertThat(aliases).containsExactly(
+        "alias0", "alias1", "alias2", "alias3", "alias4", "alias6", "alias7", "alias8", "alias9");
+  }
+
+  @Test
+  void shouldDeleteUrl_andAllowToReuseAlias() {
+    // GIVEN
+    UrlAlias url = new UrlAlias("alias", "http://www.test.com", "user@test.com");
+    urlRepository.createUrlAlias(url);
+
+    // WHEN
+    urlRepository.deleteUrlAlias("user@test.com", "alias");
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("alias")).isNull();
+    assertThat(urlRepository.getAllAliasesForUser("user@test.com")).isEmpty();
+    UrlAlias newUrl = new UrlAlias("alias", "http://www.other.com", "other@test.com");
+    urlRepository.createUrlAlias(newUrl);
+    assertThat(urlRepository.findUrlAlias("alias")).isEqualTo(newUrl);
+  }
+
+  @Test
+  void shouldThrowRuntimeError_whenNoAliasForDeletion() {
+    assertThrows(RuntimeException.class,
+        () -> urlRepository.deleteUrlAlias("user@test.com", "alias"));
+  }
+
+  @Test
+  void shouldThrowPermissionDenied_whenAliasDoesNotBelongToUser() {
+    // GIVEN
+    UrlAlias urlAlias = new UrlAlias("alias", "http://google.com", "user@test.com");
+    urlRepository.createUrlAlias(urlAlias);
+
+    // WHEN + THEN
+    assertThrows(PermissionDenied.class,
+        () -> urlRepository.deleteUrlAlias("test@user.com", "alias"));
+  }
+}
@@ -0,0 +1,96 @@
+package edu.kpi.testcourse.storage;
+
+import edu.kpi.testcourse.entities.UrlAlias;
+import edu.kpi.testcourse.logic.UrlShortenerConfig;
+import edu.kpi.testcourse.serialization.JsonToolJacksonImpl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class UrlRepositoryPartitionedImplTest {
+  UrlShortenerConfig appConfig;
+  UrlRepository urlRepository;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    appConfig = UrlShortenerConfig.builder(
+        Files.createTempDirectory("url-repository-partitioned-test"))
+        .repositoryPartitions(4)
+        .build();
+    urlRepository = new UrlRepositoryPartitionedImpl(new JsonToolJacksonImpl(), appConfig);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(appConfig.storageRoot())) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Test
+  void findsAliasesOfAllPartitions_afterReopening() {
+    // GIVEN
+    for (int i = 0; i < 20; i++) {
+      urlRepository.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/" + i, "aaa@bbb.com"));
+    }
+    urlRepository.deleteUrlAlias("aaa@bbb.com", "alias7");
+
+    // WHEN
+    urlRepository = new UrlRepositoryPartitionedImpl(new JsonToolJacksonImpl(), appConfig);
+
+    // THEN
+    assertThat(urlRepository.findUrlAlias("alias13").destinationUrl()).isEqualTo("http://g.com/13");
+    assertThat(urlRepository.findUrlAlias("alias7")).isNull();
+    assertThat(urlRepository.getAllAliasesForUser("aaa@bbb.com").size()).isEqualTo(19);
+  }
+
+  @Test
+  void mergesPagesOfAllPartitions() {
+    // GIVEN
+    for (int i = 0; i < 6; i++) {
+      urlRepository.createUrlAlias(new UrlAlias("alias" + i, "http://g.com/", "aaa@bbb.com"));
+    }
+
+    // WHEN
+    List<UrlAlias> page = urlRepository.getAliasesForUser("aaa@bbb.com", "alias1", 3);
+
+    // THEN
+    assertThat(page.stream().map(UrlAlias::alias).collect(Collectors.toList()))
+      .isEqualTo(List.of("alias2", "alias3", "alias4"));
+  }
+
+  @Test
+  void createsBatchSpreadOverPartitions() {
+    // GIVEN
+    urlRepository.createUrlAlias(new UrlAlias("taken", "http://g.com/", "aaa@bbb.com"));
+
+    // WHEN
+    boolean[] created = urlRepository.createUrlAliases(List.of(
+        new UrlAlias("first", "http://g.com/1", "aaa@bbb.com"),
+        new UrlAlias("taken", "http://g.com/2", "aaa@bbb.com"),
+        new UrlAlias("second", "http://g.com/3", "aaa@bbb.com")));
+
+    // THEN
+    assertThat(created).containsExactly(true, false, true);
+    assertThat(urlRepository.findUrlAlias("taken").destinationUrl()).isEqualTo("http://g.com/");
+  }
+
+  @Test
+  void refusesToOpenWithAnotherNumberOfPartitions() {
+    assertThatThrownBy(() -> new UrlRepositoryPartitionedImpl(
+        new JsonToolJacksonImpl(), appConfig.toBuilder().repositoryPartitions(8).build()))
+      .isInstanceOf(IllegalStateException.class);
+  }
+}
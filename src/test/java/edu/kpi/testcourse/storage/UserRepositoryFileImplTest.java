@@ -84,6 +84,21 @@ class UserRepositoryFileImplTest {
     assertThat(userRepository.findUser(email)).isEqualTo(user);
   }
 
+  @Test
+  void startsEmpty_whenThereIsNoFile() throws IOException {
+    // GIVEN
+    Files.delete(appConfig.storageRoot().resolve("user-repository.json"));
+    var user = new User("user1@example.org", "hash1");
+
+    // WHEN
+    userRepository = new UserRepositoryFileImpl(new JsonToolJacksonImpl(), appConfig);
+    userRepository.createUser(user);
+
+    // THEN
+    assertThat(userRepository.size()).isEqualTo(1);
+    assertThat(Files.exists(appConfig.storageRoot().resolve("user-repository.json"))).isTrue();
+  }
+
   @Test
   void doesNotCreateDuplicateUser() {
     // GIVEN
@@ -0,0 +1,25 @@
+package edu.kpi.testcourse.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.kpi.testcourse.entities.User;
+import org.junit.jupiter.api.Test;
+
+class UserRepositoryInMemoryImplTest {
+
+  @Test
+  void createsOneUser() {
+    // GIVEN
+    var userRepository = new UserRepositoryInMemoryImpl();
+    var user = new User("user1@example.org", "hash1");
+
+    // WHEN
+    userRepository.createUser(user);
+
+    // THEN
+    assertThat(userRepository.findUser("user1@example.org")).isEqualTo(user);
+    assertThat(userRepository.size()).isEqualTo(1);
+    assertThrows(RuntimeException.class, () -> userRepository.createUser(user));
+  }
+}